@@ -1,29 +1,88 @@
 package de.unikassel.ann.algo;
 
-import java.util.List;
+import java.util.Arrays;
+import java.util.Random;
 
-import de.unikassel.ann.model.DataPair;
+import de.unikassel.ann.algo.optimizer.MomentumOptimizer;
+import de.unikassel.ann.algo.optimizer.Optimizer;
+
+import de.unikassel.ann.model.CompiledNetwork;
 import de.unikassel.ann.model.DataPairSet;
-import de.unikassel.ann.model.Layer;
+import de.unikassel.ann.model.DataPairSource;
 import de.unikassel.ann.model.NetError;
 import de.unikassel.ann.model.Network;
-import de.unikassel.ann.model.Neuron;
-import de.unikassel.ann.model.Synapse;
-import de.unikassel.ann.strategy.Strategy;
 
+/**
+ * Backpropagation with momentum.<br>
+ * Online training updates the weights after each pair. Batch training collects the weight changes of {@link #batchSize} pairs (or the
+ * whole training set) and updates the weights once per batch. For mini-batches the order of the pairs is shuffled before each
+ * iteration. In batch mode the pairs of a batch can be split across {@link #threads} workers, see {@link BatchGradient}.<br>
+ * The batch updates use the {@link #optimizer}, by default {@link MomentumOptimizer} with the learn rate and momentum. With another
+ * optimizer the online training runs as batches of one pair.<br>
+ * Large training data can be streamed block by block from a {@link DataPairSource}, see {@link #train(DataPairSource, int)}.
+ */
 public class BackPropagation extends TrainingModule implements WorkModule {
 
 	private boolean batchLearning = false;
 	private Double momentum;
 	private Double learnRate;
 
+	/**
+	 * Pairs per weight update in batch mode, 0 for the whole training set
+	 */
+	private int batchSize = 0;
+
+	/**
+	 * Worker threads for batch mode
+	 */
+	private int threads = 1;
+
+	/**
+	 * Shuffle the pairs before each iteration when training with mini-batches
+	 */
+	private boolean shuffle = true;
+
+	private Random random = new Random();
+
+	/**
+	 * Update rule for batch training, null for momentum with {@link #learnRate} and {@link #momentum}
+	 */
+	private Optimizer optimizer;
+
+	/**
+	 * Update rule of the current training
+	 */
+	private Optimizer rule;
+
+	/**
+	 * Flat view of the network while training
+	 */
+	private CompiledNetwork compiled;
+
+	/**
+	 * Collects the weight changes in batch mode
+	 */
+	private BatchGradient gradient;
+
+	/**
+	 * Pairs per weight update of the current training
+	 */
+	private int batchRows;
+
+	/**
+	 * Pairs collected in batch mode since the last weight update
+	 */
+	private int pending;
+
+	private BatchWork batchWork = new BatchWork();
+
 	public BackPropagation() {
 		this(0.35, 0.8);
 	}
 
 	public BackPropagation(final Double learnRate, final Double momentum) {
-		this.learnRate = learnRate;
-		this.momentum = momentum;
+		setLearnRate(learnRate);
+		setMomentum(momentum);
 	}
 
 	@Override
@@ -31,188 +90,308 @@ public class BackPropagation extends TrainingModule implements WorkModule {
 		if (net == null) {
 			net = config.getNetwork();
 		}
-		for (DataPair p : testData.getPairs()) {
-			forwardStep(net, p);
-			net.setOutputToPair(p.getIdeal());
-		}
+		batchWork.work(net, testData);
 	}
 
 	@Override
 	public boolean validateDataSet(final Network net, final DataPairSet dataset) {
-		DataPair pair = dataset.getPairs().get(0);
 		int inputSize = net.getInputSizeIgnoringBias();
 		int outputSize = net.getOutputSize();
-		if (pair.getInput().length == inputSize && pair.getIdeal().length == outputSize) {
+		if (dataset.getInputSize() == inputSize && dataset.getIdealSize() == outputSize) {
 			return true;
 		}
 		throw new IllegalArgumentException("dataset does not match for topology");
 	}
 
-	private void forwardStep(final Network net, final DataPair pair) {
+	@Override
+	public void train(final DataPairSet trainingData) {
+		int rows = trainingData.getRows();
+		prepare(trainingData, rows);
+		try {
+			while (true) {
+				trainNow = true;
+				if (config.shouldRestartTraining()) {
+					shutdownWorkers();
+					train(trainingData); // restart training
+					config.reset();
+					return;
+				}
+				if (config.shouldStopTraining()) {
+					compiled.syncToNetwork();
+					config.reset();
+					return;
+				}
+
+				preIteration();
 
-		if (net.isTrainable() == false) {
-			throw new IllegalArgumentException("net not finalized yet");
+				if (gradient != null) {
+					if (shuffle && batchRows < rows) {
+						gradient.shuffle(random);
+					}
+					trainBatches(rows); // offline training
+					flushBatch();
+				} else {
+					trainOnline(trainingData, rows);
+				}
+
+				// currentSingleError = netError.calculateSingleRMS();
+				postIteration(netError.calculateRMS());
+			}
+		} finally {
+			shutdownWorkers();
 		}
-		net.setInputLayerValues(pair.getInput());
 
-		for (Layer l : net.getLayers()) {
-			for (Neuron n : l.getNeurons()) {
-				// calculate netnput (not for input layer)
-				if (l.equals(net.getInputLayer())) {
-					continue;
+	}
+
+	/**
+	 * Trains without holding all pairs in memory, each iteration reads the pairs block by block into the same buffer. Batches may
+	 * span several blocks, so the weights are the same as with {@link #train(DataPairSet)} on all pairs. Mini-batches are only
+	 * shuffled inside a block.
+	 *
+	 * @param source
+	 *            e.g. a mapped file of {@link de.unikassel.ann.io.BinaryTrainingRW}
+	 * @param blockRows
+	 *            pairs per block
+	 */
+	public void train(final DataPairSource source, final int blockRows) {
+		if (blockRows < 1) {
+			throw new IllegalArgumentException("block rows must be positive: " + blockRows);
+		}
+		int rows = source.getRows();
+		int inputSize = source.getInputSize();
+		int idealSize = source.getIdealSize();
+		int size = Math.max(1, Math.min(blockRows, rows));
+		DataPairSet block = new DataPairSet(new double[size * inputSize], new double[size * idealSize], size, inputSize, idealSize);
+		prepare(block, rows);
+		try {
+			while (true) {
+				trainNow = true;
+				if (config.shouldRestartTraining()) {
+					shutdownWorkers();
+					train(source, blockRows); // restart training
+					config.reset();
+					return;
 				}
-				// calculate netnput
-				List<Synapse> synapseList = n.getIncomingSynapses();
-				Double sum = 0.0d;
-				for (Synapse s : synapseList) {
-					sum += s.getWeight() * s.getFromNeuron().getValue();
+				if (config.shouldStopTraining()) {
+					compiled.syncToNetwork();
+					config.reset();
+					return;
 				}
-				if (n.isBias() == false) {
-					n.activate(sum);
+
+				preIteration();
+
+				for (int from = 0; from < rows; from += size) {
+					int count = Math.min(size, rows - from);
+					source.read(from, count, block.getInputData(), 0, block.getIdealData(), 0);
+					if (gradient != null) {
+						if (shuffle && batchRows < rows) {
+							gradient.shuffle(random, count);
+						}
+						trainBatches(count);
+					} else {
+						trainOnline(block, count);
+					}
 				}
+				flushBatch();
 
+				postIteration(netError.calculateRMS());
 			}
+		} finally {
+			shutdownWorkers();
 		}
 	}
 
-	@Override
-	public void train(final DataPairSet trainingData) {
+	/**
+	 * Compiles the network and creates the workers for batch mode
+	 *
+	 * @param data
+	 *            pairs of the workers
+	 * @param rows
+	 *            amount of all pairs
+	 */
+	private void prepare(final DataPairSet data, final int rows) {
 		Network net = config.getNetwork();
 		if (net.getSynapseSet().isEmpty()) {
 			net.connectFeedForward();
 		}
-		netError = new NetError(this, trainingData);
+		netError = new NetError(this, data);
 		config.resetErrorList();
-		validateDataSet(net, trainingData);
-		while (true) {
-			// try {
-			// Thread.sleep(1);
-			// } catch (InterruptedException e) {
-			// // TODO Auto-generated catch block
-			// e.printStackTrace();
-			// }
-			trainNow = true;
-			if (config.shouldRestartTraining()) {
-				train(trainingData); // restart training
-				config.reset();
-				return;
-			}
-			if (config.shouldStopTraining()) {
-				config.reset();
-				return;
-			}
-
-			for (Strategy s : config.getStrategies()) {
-				s.preIteration();
-			}
-
-			for (DataPair pair : trainingData.getPairs()) {
-				forwardStep(net, pair);
-				calculateDeltaAndUpdateWeights(net, pair);
-				currentStep++;
-			}
-			if (batchLearning) {
-				updateWeights(net); // offline training
-			}
-
-			double tmpError = netError.calculateRMS();
-			currentImprovement = currentError - tmpError;
-			currentError = tmpError;
-			config.addErrorList(currentIteration, currentError);
-			// currentSingleError = netError.calculateSingleRMS();
-			netError.reset();
-			currentIteration++;
+		validateDataSet(net, data);
+		compiled = new CompiledNetwork(net);
+		batchRows = batchLearning == false ? 1 : batchSize > 0 ? batchSize : Math.max(1, rows);
+		pending = 0;
+		if (batchLearning || optimizer != null) {
+			rule = optimizer != null ? optimizer : new MomentumOptimizer(learnRate, momentum);
+			rule.init(compiled);
+			gradient = new BatchGradient(this, compiled, data, threads);
+		}
+	}
 
-			for (Strategy s : config.getStrategies()) {
-				s.postIteration();
-			}
+	/**
+	 * Online training on the first rows of the data
+	 */
+	private void trainOnline(final DataPairSet data, final int rows) {
+		double[] input = data.getInputData();
+		double[] ideal = data.getIdealData();
+		for (int r = 0; r < rows; r++) {
+			compiled.forward(input, data.getInputOffset(r));
+			calculateDeltaAndUpdateWeights(ideal, data.getIdealOffset(r));
+			currentStep++;
 		}
+	}
 
+	@Override
+	public void syncNetwork() {
+		CompiledNetwork c = compiled;
+		if (c != null) {
+			c.syncToNetwork();
+		}
 	}
 
-	private void calculateDeltaAndUpdateWeights(final Network net, final DataPair pair) {
-		List<Layer> reversedLayers = net.reverse();
-		for (Layer l : reversedLayers) {
-			if (l.equals(net.getInputLayer())) {
-				break;
-			}
-			if (l.equals(net.getOutputLayer())) {
-				calculateOutputError(l, pair);
+	/**
+	 * Goes backwards from the output layer, calculates the delta of each layer and updates its incoming weights
+	 */
+	private void calculateDeltaAndUpdateWeights(final double[] ideal, final int offset) {
+		int outputIndex = compiled.getLayerCount() - 1;
+		for (int l = outputIndex; l > 0; l--) {
+			if (l == outputIndex) {
+				calculateOutputError(compiled, netError, ideal, offset);
 			} else {
-				calculateError(l);
+				calculateError(compiled, l);
 			}
-			calculateWeightDelta(l); // for offline learning
-			if (batchLearning == false) {
-				updateWeights(l); // online training
+			updateWeights(compiled, l, learnRate, momentum); // online training
+		}
+	}
+
+	/**
+	 * Splits the first rows of the current order into batches, the pairs of each batch are shared among the workers of
+	 * {@link BatchGradient}. The weights are updated whenever a batch is complete, the rest is kept for the next rows.
+	 */
+	private void trainBatches(final int rows) {
+		int start = 0;
+		while (start < rows) {
+			int end = Math.min(start + batchRows - pending, rows);
+			gradient.calculate(start, end, netError);
+			pending += end - start;
+			currentStep += end - start;
+			start = end;
+			if (pending == batchRows) {
+				flushBatch();
 			}
 		}
 	}
 
-	private void updateWeights(final Network net) {
-		List<Layer> reversedLayers = net.reverse();
-		for (Layer l : reversedLayers) {
-			updateWeights(l);
+	/**
+	 * Updates the weights with the collected pairs, if any
+	 */
+	private void flushBatch() {
+		if (pending == 0) {
+			return;
+		}
+		rule.nextStep();
+		for (int l = compiled.getLayerCount() - 1; l > 0; l--) {
+			updateWeights(l, gradient.getGradients(l), gradient.getBiasGradients(l));
+		}
+		pending = 0;
+	}
+
+	private void shutdownWorkers() {
+		if (gradient != null) {
+			gradient.shutdown();
+			gradient = null;
 		}
 	}
 
-	private void calculateOutputError(final Layer outputLayer, final DataPair pair) {
-		List<Neuron> neuronList = outputLayer.getNeurons();
-		Double[] ideal = pair.getIdeal();
-		Double rmseError = 0.0;
-		for (int i = 0; i < ideal.length; i++) {
-			Neuron n = neuronList.get(i);
-			Double o = n.getValue();
-			Double t = ideal[i];
+	static void calculateOutputError(final CompiledNetwork c, final NetError error, final double[] ideal, final int offset) {
+		int outputIndex = c.getLayerCount() - 1;
+		double[] output = c.getValues(outputIndex);
+		double[] delta = c.getDeltas(outputIndex);
+		double[] derivation = c.derivate(outputIndex);
+		for (int i = 0; i < output.length; i++) {
+			double o = output[i];
+			double t = ideal[offset + i];
 			// ((t - o) * o * (1 - o)
 			double diff = t - o;
-			// double delta = o * (1-o) * errorFactor;
-			// derivate:= (1.0 - o * o)
-			double delta = n.getActivationFunction().derivate(o) * diff;
-			n.setDelta(delta);
-			netError.updateError(t, o);
-			rmseError += Math.pow(diff, 2);
+			delta[i] = derivation[i] * diff;
+			error.updateError(t, o);
 		}
 	}
 
-	private void calculateError(final Layer currentLayer) {
-		for (Neuron n : currentLayer.getNeurons()) {
-			double diffSum = 0.d;
-			for (Synapse s : n.getOutgoingSynapses()) {
-				diffSum += s.getWeight() * s.getToNeuron().getDelta();
+	static void calculateError(final CompiledNetwork c, final int l) {
+		double[] output = c.getValues(l);
+		double[] delta = c.getDeltas(l);
+		double[] nextWeights = c.getWeights(l + 1);
+		double[] nextDelta = c.getDeltas(l + 1);
+		int size = output.length;
+		int nextSize = c.getInputs(l + 1).length;
+		for (int i = 0; i < size; i++) {
+			delta[i] = 0.0d;
+		}
+		// walk the weight matrix row by row, the layer is in the first columns
+		for (int j = 0; j < nextDelta.length; j++) {
+			double d = nextDelta[j];
+			int offset = j * nextSize;
+			for (int i = 0; i < size; i++) {
+				delta[i] += nextWeights[offset + i] * d;
 			}
-			Double o = n.getValue();
-			// derivate:= (1.0 - o * o)
-			double delta = n.getActivationFunction().derivate(o) * diffSum;
-			// double delta = o * ( 1 - o) * errorFactor;
-			n.setDelta(delta);
+		}
+		c.addSkipErrors(l, delta);
+		double[] derivation = c.derivate(l);
+		for (int i = 0; i < size; i++) {
+			delta[i] = derivation[i] * delta[i];
 		}
 	}
 
-	private void calculateWeightDelta(final Layer l) {
-		for (Neuron n : l.getNeurons()) {
-			for (Synapse s : n.getIncomingSynapses()) {
-				double offlineDelta = s.getToNeuron().getDelta() * s.getFromNeuron().getValue();
-				s.updateBatchDelta(offlineDelta);
+	static void calculateWeightDelta(final CompiledNetwork c, final int l, final double[] batch, final double[] batchBias) {
+		double[] in = c.getInputs(l);
+		double[] delta = c.getDeltas(l);
+		int fromSize = in.length;
+		for (int j = 0; j < delta.length; j++) {
+			double d = delta[j];
+			int offset = j * fromSize;
+			for (int i = 0; i < fromSize; i++) {
+				batch[offset + i] += d * in[i];
 			}
+			batchBias[j] += d;
 		}
 	}
 
-	private void updateWeights(final Layer l) {
-		for (Neuron n : l.getNeurons()) {
-			for (Synapse s : n.getIncomingSynapses()) {
-				Double oldDeltaWeight = s.getDeltaWeight();
-				Double delta = null;
-				if (batchLearning) {
-					delta = learnRate * s.getBatchDelta() + momentum * oldDeltaWeight;
-					s.resetBatchDelta();
-				} else {
-					delta = learnRate * s.getToNeuron().getDelta() * s.getFromNeuron().getValue() + momentum * oldDeltaWeight;
-				}
-				Double oldWeight = s.getWeight();
-				s.setWeight(oldWeight + delta);
-				s.setDeltaWeight(delta);
+	/**
+	 * Online update with the delta of the current pair
+	 */
+	static void updateWeights(final CompiledNetwork c, final int l, final double rate, final double mom) {
+		double[] in = c.getInputs(l);
+		double[] delta = c.getDeltas(l);
+		double[] w = c.getWeights(l);
+		double[] dw = c.getDeltaWeights(l);
+		double[] b = c.getBiasWeights(l);
+		double[] db = c.getDeltaBiasWeights(l);
+		int fromSize = in.length;
+		for (int j = 0; j < delta.length; j++) {
+			int offset = j * fromSize;
+			double d = rate * delta[j];
+			double change;
+			for (int i = 0; i < fromSize; i++) {
+				change = d * in[i] + mom * dw[offset + i];
+				w[offset + i] += change;
+				dw[offset + i] = change;
 			}
+			change = d + mom * db[j];
+			b[j] += change;
+			db[j] = change;
 		}
+		c.clearMissing(l);
+	}
+
+	/**
+	 * Offline update with the collected weight changes, resets the collected changes
+	 */
+	private void updateWeights(final int l, final double[] batch, final double[] batchBias) {
+		rule.update(Optimizer.slot(l, false), compiled.getWeights(l), batch, compiled.getDeltaWeights(l));
+		rule.update(Optimizer.slot(l, true), compiled.getBiasWeights(l), batchBias, compiled.getDeltaBiasWeights(l));
+		Arrays.fill(batch, 0.0d);
+		Arrays.fill(batchBias, 0.0d);
+		compiled.clearMissing(l);
 	}
 
 	/**
@@ -230,6 +409,96 @@ public class BackPropagation extends TrainingModule implements WorkModule {
 		batchLearning = batchMode;
 	}
 
+	/**
+	 * @return pairs per weight update in batch mode, 0 for the whole training set
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize
+	 *            pairs per weight update in batch mode, 0 for the whole training set
+	 */
+	public void setBatchSize(final int batchSize) {
+		if (batchSize < 0) {
+			throw new IllegalArgumentException("batch size cannot be negative");
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return true if the pairs are shuffled before each iteration when training with mini-batches
+	 */
+	public boolean isShuffle() {
+		return shuffle;
+	}
+
+	/**
+	 * @param shuffle
+	 *            shuffle the pairs before each iteration when training with mini-batches
+	 */
+	public void setShuffle(final boolean shuffle) {
+		this.shuffle = shuffle;
+	}
+
+	/**
+	 * @param seed
+	 *            seed for shuffling the pairs, for reproducible training
+	 */
+	public void setSeed(final long seed) {
+		random = new Random(seed);
+	}
+
+	/**
+	 * @return worker threads for batch mode
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @param threads
+	 *            worker threads for batch mode
+	 */
+	public void setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("at least one thread is needed");
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * @return the amount of rows which are calculated together while working
+	 */
+	public int getWorkBatchSize() {
+		return batchWork.getBatchSize();
+	}
+
+	/**
+	 * @param workBatchSize
+	 *            the amount of rows which are calculated together while working
+	 * @see BatchWork
+	 */
+	public void setWorkBatchSize(final int workBatchSize) {
+		batchWork.setBatchSize(workBatchSize);
+	}
+
+	/**
+	 * @return update rule for batch training, null for momentum with the learn rate and momentum
+	 */
+	public Optimizer getOptimizer() {
+		return optimizer;
+	}
+
+	/**
+	 * @param optimizer
+	 *            update rule for batch training, null for momentum with the learn rate and momentum
+	 */
+	public void setOptimizer(final Optimizer optimizer) {
+		this.optimizer = optimizer;
+	}
+
 	/**
 	 * @return the momentum
 	 */
@@ -242,6 +511,9 @@ public class BackPropagation extends TrainingModule implements WorkModule {
 	 *            the momentum to set
 	 */
 	public void setMomentum(final Double momentum) {
+		if (momentum == null) {
+			throw new IllegalArgumentException("momentum is null");
+		}
 		this.momentum = momentum;
 	}
 
@@ -257,6 +529,9 @@ public class BackPropagation extends TrainingModule implements WorkModule {
 	 *            the learnRate to set
 	 */
 	public void setLearnRate(final Double learnRate) {
+		if (learnRate == null) {
+			throw new IllegalArgumentException("learn rate is null");
+		}
 		this.learnRate = learnRate;
 	}
 
@@ -0,0 +1,266 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import de.unikassel.ann.model.CompiledNetwork;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.NetError;
+
+/**
+ * Collects the weight changes (negative gradient of the error) of a range of pairs for the batch training modules.<br>
+ * The pairs are split across the workers, each worker collects into its own buffers and the buffers are summed up pairwise like a tree
+ * into the first worker. The first worker uses the given network, the others use views sharing its weights.<br>
+ * The pairs are read through a permutation which can be shuffled between the iterations.
+ */
+class BatchGradient {
+
+	private final GradientWorker[] workers;
+
+	private ExecutorService pool;
+
+	/**
+	 * Order of the pairs, shared by all workers
+	 */
+	private final int[] order;
+
+	/**
+	 * @param module
+	 *            owner of the error instances
+	 * @param compiled
+	 *            network of the training module
+	 * @param data
+	 * @param threads
+	 *            amount of workers
+	 */
+	public BatchGradient(final TrainingModule module, final CompiledNetwork compiled, final DataPairSet data, final int threads) {
+		order = new int[data.getRows()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		workers = new GradientWorker[threads];
+		for (int w = 0; w < threads; w++) {
+			CompiledNetwork view = w == 0 ? compiled : compiled.createView();
+			workers[w] = new GradientWorker(view, new NetError(module, data), data, order);
+		}
+		if (threads > 1) {
+			pool = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread t = new Thread(r, module.getClass().getSimpleName() + " worker");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Fisher-Yates shuffle of the pair order
+	 */
+	public void shuffle(final Random random) {
+		for (int i = order.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+		}
+	}
+
+	/**
+	 * Puts the first pairs in a new random order, the others in their original order. Used for a block of streamed pairs which may
+	 * fill only a part of the data.
+	 *
+	 * @param random
+	 * @param count
+	 *            amount of shuffled pairs
+	 */
+	public void shuffle(final Random random, final int count) {
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = order[i];
+			order[i] = order[j];
+			order[j] = tmp;
+		}
+	}
+
+	/**
+	 * Adds the weight changes of the pairs start until end (exclusive) of the current order to {@link #getGradients(int)} and
+	 * {@link #getBiasGradients(int)}, the caller has to reset them after using.
+	 *
+	 * @param start
+	 * @param end
+	 * @param error
+	 *            collects the error of the pairs
+	 */
+	public void calculate(final int start, final int end, final NetError error) {
+		int count = end - start;
+		int workerCount = Math.min(workers.length, count);
+		for (int w = 0; w < workerCount; w++) {
+			workers[w].setRange(start + count * w / workerCount, start + count * (w + 1) / workerCount);
+		}
+		if (workerCount == 1) {
+			workers[0].call();
+		} else {
+			invokeAll(workers, workerCount);
+			reduce(workerCount);
+		}
+		for (int w = 0; w < workerCount; w++) {
+			error.add(workers[w].error);
+			workers[w].error.reset();
+		}
+	}
+
+	/**
+	 * @return collected weight changes of the layer, same layout as {@link CompiledNetwork#getWeights(int)}
+	 */
+	public double[] getGradients(final int l) {
+		return workers[0].gradients[l];
+	}
+
+	/**
+	 * @return collected bias weight changes of the layer
+	 */
+	public double[] getBiasGradients(final int l) {
+		return workers[0].biasGradients[l];
+	}
+
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+
+	/**
+	 * Sums up the gradients of the workers pairwise into the first worker
+	 */
+	private void reduce(final int workerCount) {
+		List<Reduction> tasks = new ArrayList<Reduction>();
+		for (int step = 1; step < workerCount; step *= 2) {
+			tasks.clear();
+			for (int w = 0; w + step < workerCount; w += 2 * step) {
+				tasks.add(new Reduction(workers[w], workers[w + step]));
+			}
+			invokeAll(tasks.toArray(new Reduction[tasks.size()]), tasks.size());
+		}
+	}
+
+	private void invokeAll(final Callable<Void>[] tasks, final int count) {
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(count);
+		for (int i = 1; i < count; i++) {
+			futures.add(pool.submit(tasks[i]));
+		}
+		try {
+			// the calling thread takes the first task
+			tasks[0].call();
+			for (Future<Void> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("training interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("training worker failed", e.getCause());
+		} catch (Exception e) {
+			throw new IllegalStateException("training worker failed", e);
+		}
+	}
+
+	/**
+	 * Collects the weight changes for a range of pairs into its own buffers
+	 */
+	private static class GradientWorker implements Callable<Void> {
+
+		private final CompiledNetwork net;
+		private final NetError error;
+		private final DataPairSet data;
+		private final int[] order;
+		private final double[][] gradients;
+		private final double[][] biasGradients;
+		private int from;
+		private int to;
+
+		public GradientWorker(final CompiledNetwork net, final NetError error, final DataPairSet data, final int[] order) {
+			this.net = net;
+			this.error = error;
+			this.data = data;
+			this.order = order;
+			gradients = net.createWeightBuffer();
+			biasGradients = net.createBiasBuffer();
+		}
+
+		public void setRange(final int from, final int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public Void call() {
+			double[] input = data.getInputData();
+			double[] ideal = data.getIdealData();
+			int outputIndex = net.getLayerCount() - 1;
+			for (int k = from; k < to; k++) {
+				int r = order[k];
+				net.forward(input, data.getInputOffset(r));
+				for (int l = outputIndex; l > 0; l--) {
+					if (l == outputIndex) {
+						BackPropagation.calculateOutputError(net, error, ideal, data.getIdealOffset(r));
+					} else {
+						BackPropagation.calculateError(net, l);
+					}
+					BackPropagation.calculateWeightDelta(net, l, gradients[l], biasGradients[l]);
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Adds the gradients of one worker to another one and resets them
+	 */
+	private static class Reduction implements Callable<Void> {
+
+		private final GradientWorker target;
+		private final GradientWorker source;
+
+		public Reduction(final GradientWorker target, final GradientWorker source) {
+			this.target = target;
+			this.source = source;
+		}
+
+		@Override
+		public Void call() {
+			add(target.gradients, source.gradients);
+			add(target.biasGradients, source.biasGradients);
+			return null;
+		}
+
+		private static void add(final double[][] target, final double[][] source) {
+			for (int l = 0; l < target.length; l++) {
+				double[] t = target[l];
+				double[] s = source[l];
+				for (int i = 0; i < t.length; i++) {
+					t[i] += s[i];
+					s[i] = 0.0d;
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,263 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo;
+
+import de.unikassel.ann.model.CompiledNetwork;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.Network;
+
+/**
+ * Working module which pushes blocks of rows through the network.<br>
+ * Each layer is calculated as one matrix-matrix product (rows x from) * (to x from)^T, tiled so the current rows and weights stay in
+ * the cache.<br>
+ * Rows and results are stored row-major in primitive arrays:
+ *
+ * <pre>
+ * input[row * inputSize + i]
+ * output[row * outputSize + o]
+ * </pre>
+ */
+public class BatchWork implements WorkModule {
+
+	/**
+	 * Rows of one tile
+	 */
+	static final int ROW_BLOCK = 16;
+
+	/**
+	 * Neurons of one tile
+	 */
+	static final int UNIT_BLOCK = 64;
+
+	/**
+	 * Incoming values of one tile
+	 */
+	static final int INPUT_BLOCK = 256;
+
+	private int batchSize;
+
+	public BatchWork() {
+		this(256);
+	}
+
+	/**
+	 * @param batchSize
+	 *            amount of rows which are calculated together
+	 */
+	public BatchWork(final int batchSize) {
+		setBatchSize(batchSize);
+	}
+
+	@Override
+	public void work(final Network net, final DataPairSet testData) {
+		CompiledNetwork compiledNet = new CompiledNetwork(net);
+		if (testData.getInputSize() != compiledNet.getInputSize() || testData.getIdealSize() != compiledNet.getOutputSize()) {
+			throw new IllegalArgumentException("dataset does not match for topology");
+		}
+		int rows = testData.getRows();
+		double[] input = testData.getInputData();
+		double[] ideal = testData.getIdealData();
+		if (testData.isContiguous()) {
+			// the rows of the set are already row-major, the output is written into the ideal values
+			double[][] buffers = createBuffers(compiledNet);
+			for (int start = 0; start < rows; start += batchSize) {
+				int count = Math.min(batchSize, rows - start);
+				forward(compiledNet, buffers, input, testData.getInputOffset(start), ideal, testData.getIdealOffset(start), count);
+			}
+		} else {
+			workRows(compiledNet, testData);
+		}
+		if (rows > 0) {
+			// neurons show the values of the last row, like the single step working
+			compiledNet.forward(input, testData.getInputOffset(rows - 1));
+			compiledNet.syncValues();
+		}
+	}
+
+	/**
+	 * Copies the rows of a shuffled or selected view block by block
+	 */
+	private void workRows(final CompiledNetwork compiledNet, final DataPairSet testData) {
+		int rows = testData.getRows();
+		int inputSize = compiledNet.getInputSize();
+		int outputSize = compiledNet.getOutputSize();
+		double[] input = testData.getInputData();
+		double[] ideal = testData.getIdealData();
+		double[][] buffers = createBuffers(compiledNet);
+		double[] in = new double[batchSize * inputSize];
+		double[] out = new double[batchSize * outputSize];
+		for (int start = 0; start < rows; start += batchSize) {
+			int count = Math.min(batchSize, rows - start);
+			for (int r = 0; r < count; r++) {
+				System.arraycopy(input, testData.getInputOffset(start + r), in, r * inputSize, inputSize);
+			}
+			forward(compiledNet, buffers, in, 0, out, 0, count);
+			for (int r = 0; r < count; r++) {
+				System.arraycopy(out, r * outputSize, ideal, testData.getIdealOffset(start + r), outputSize);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the output for all rows, without touching the synapses or neurons
+	 *
+	 * @param net
+	 * @param input
+	 *            rows * input size values
+	 * @param rows
+	 * @return rows * output size values
+	 */
+	public double[] work(final Network net, final double[] input, final int rows) {
+		CompiledNetwork compiledNet = new CompiledNetwork(net);
+		double[] output = new double[rows * compiledNet.getOutputSize()];
+		work(compiledNet, input, output, rows);
+		return output;
+	}
+
+	/**
+	 * Calculates the output for all rows and writes it into the output array
+	 *
+	 * @param compiledNet
+	 * @param input
+	 *            rows * input size values
+	 * @param output
+	 *            rows * output size values
+	 * @param rows
+	 */
+	public void work(final CompiledNetwork compiledNet, final double[] input, final double[] output, final int rows) {
+		int inputSize = compiledNet.getInputSize();
+		int outputSize = compiledNet.getOutputSize();
+		if (input.length < rows * inputSize || output.length < rows * outputSize) {
+			throw new IllegalArgumentException("input or output array too small for " + rows + " rows");
+		}
+		double[][] buffers = createBuffers(compiledNet);
+		for (int start = 0; start < rows; start += batchSize) {
+			int count = Math.min(batchSize, rows - start);
+			forward(compiledNet, buffers, input, start * inputSize, output, start * outputSize, count);
+		}
+	}
+
+	@Override
+	public boolean validateDataSet(final Network net, final DataPairSet dataset) {
+		if (dataset.getInputSize() == net.getInputSizeIgnoringBias() && dataset.getIdealSize() == net.getOutputSize()) {
+			return true;
+		}
+		throw new IllegalArgumentException("dataset does not match for topology");
+	}
+
+	/**
+	 * @return buffer for the hidden layers, input and output are read and written directly
+	 */
+	private double[][] createBuffers(final CompiledNetwork compiledNet) {
+		double[][] buffers = new double[compiledNet.getLayerCount()][];
+		for (int l = 1; l < compiledNet.getLayerCount() - 1; l++) {
+			buffers[l] = new double[batchSize * compiledNet.getUnits(l)];
+		}
+		return buffers;
+	}
+
+	private void forward(final CompiledNetwork compiledNet, final double[][] buffers, final double[] input, final int inputOffset,
+			final double[] output, final int outputOffset, final int rows) {
+		if (compiledNet.hasSkipSynapses()) {
+			// the tiled product only knows the previous layer
+			int inputSize = compiledNet.getInputSize();
+			int outputSize = compiledNet.getOutputSize();
+			for (int r = 0; r < rows; r++) {
+				compiledNet.forward(input, inputOffset + r * inputSize);
+				System.arraycopy(compiledNet.getOutput(), 0, output, outputOffset + r * outputSize, outputSize);
+			}
+			return;
+		}
+		int outputIndex = compiledNet.getLayerCount() - 1;
+		double[] in = input;
+		int inOffset = inputOffset;
+		for (int l = 1; l <= outputIndex; l++) {
+			double[] out = l == outputIndex ? output : buffers[l];
+			int outOffset = l == outputIndex ? outputOffset : 0;
+			multiply(in, inOffset, rows, compiledNet.getUnits(l - 1), compiledNet.getWeights(l), compiledNet.getBiasWeights(l),
+					compiledNet.hasBias(l - 1), out, outOffset, compiledNet.getUnits(l));
+			int toSize = compiledNet.getUnits(l);
+			for (int r = 0; r < rows; r++) {
+				compiledNet.activate(l, out, outOffset + r * toSize);
+			}
+			in = out;
+			inOffset = outOffset;
+		}
+	}
+
+	/**
+	 * out = in * w^T + b, tiled over rows, neurons and incoming values
+	 */
+	static void multiply(final double[] in, final int inOffset, final int rows, final int fromSize, final double[] w,
+			final double[] b, final boolean withBias, final double[] out, final int outOffset, final int toSize) {
+		for (int r = 0; r < rows; r++) {
+			int o = outOffset + r * toSize;
+			for (int j = 0; j < toSize; j++) {
+				out[o + j] = withBias ? b[j] : 0.0d;
+			}
+		}
+		for (int r0 = 0; r0 < rows; r0 += ROW_BLOCK) {
+			int r1 = Math.min(r0 + ROW_BLOCK, rows);
+			for (int j0 = 0; j0 < toSize; j0 += UNIT_BLOCK) {
+				int j1 = Math.min(j0 + UNIT_BLOCK, toSize);
+				for (int i0 = 0; i0 < fromSize; i0 += INPUT_BLOCK) {
+					int i1 = Math.min(i0 + INPUT_BLOCK, fromSize);
+					for (int r = r0; r < r1; r++) {
+						int inRow = inOffset + r * fromSize;
+						int outRow = outOffset + r * toSize;
+						int j = j0;
+						// four neurons share every loaded input value
+						for (; j + 3 < j1; j += 4) {
+							int w0 = j * fromSize;
+							int w1 = w0 + fromSize;
+							int w2 = w1 + fromSize;
+							int w3 = w2 + fromSize;
+							double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+							for (int i = i0; i < i1; i++) {
+								double x = in[inRow + i];
+								s0 += w[w0 + i] * x;
+								s1 += w[w1 + i] * x;
+								s2 += w[w2 + i] * x;
+								s3 += w[w3 + i] * x;
+							}
+							out[outRow + j] += s0;
+							out[outRow + j + 1] += s1;
+							out[outRow + j + 2] += s2;
+							out[outRow + j + 3] += s3;
+						}
+						for (; j < j1; j++) {
+							int w0 = j * fromSize;
+							double s0 = 0;
+							for (int i = i0; i < i1; i++) {
+								s0 += w[w0 + i] * in[inRow + i];
+							}
+							out[outRow + j] += s0;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the amount of rows which are calculated together
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize
+	 *            the amount of rows which are calculated together
+	 */
+	public void setBatchSize(final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be positive");
+		}
+		this.batchSize = batchSize;
+	}
+
+}
@@ -0,0 +1,278 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import de.unikassel.ann.model.CompiledNetwork;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.NetError;
+import de.unikassel.ann.model.Network;
+
+/**
+ * Asynchronous online backpropagation (Hogwild).<br>
+ * The training set is split into one shard per thread. Each thread runs online backpropagation with momentum on its shard and writes
+ * its weight changes directly into the shared weight arrays without any locking, so updates of different threads may overwrite each
+ * other. For sparse or small updates this rarely matters and the threads never wait for each other inside an iteration.<br>
+ * The threads are joined after each iteration, the errors of all shards are combined and the strategies decide about stopping.
+ */
+public class HogwildBackPropagation extends TrainingModule implements WorkModule {
+
+	private double momentum;
+	private double learnRate;
+
+	private int threads;
+
+	/**
+	 * Flat view of the network while training, the weights are shared with all shards
+	 */
+	private CompiledNetwork compiled;
+
+	private ShardWorker[] workers;
+
+	private ExecutorService pool;
+
+	private BatchWork batchWork = new BatchWork();
+
+	public HogwildBackPropagation() {
+		this(0.35, 0.8);
+	}
+
+	public HogwildBackPropagation(final double learnRate, final double momentum) {
+		this(learnRate, momentum, Runtime.getRuntime().availableProcessors());
+	}
+
+	public HogwildBackPropagation(final double learnRate, final double momentum, final int threads) {
+		setLearnRate(learnRate);
+		setMomentum(momentum);
+		setThreads(threads);
+	}
+
+	@Override
+	public void work(Network net, final DataPairSet testData) {
+		if (net == null) {
+			net = config.getNetwork();
+		}
+		batchWork.work(net, testData);
+	}
+
+	@Override
+	public boolean validateDataSet(final Network net, final DataPairSet dataset) {
+		int inputSize = net.getInputSizeIgnoringBias();
+		int outputSize = net.getOutputSize();
+		if (dataset.getInputSize() == inputSize && dataset.getIdealSize() == outputSize) {
+			return true;
+		}
+		throw new IllegalArgumentException("dataset does not match for topology");
+	}
+
+	@Override
+	public void train(final DataPairSet trainingData) {
+		Network net = config.getNetwork();
+		if (net.getSynapseSet().isEmpty()) {
+			net.connectFeedForward();
+		}
+		netError = new NetError(this, trainingData);
+		config.resetErrorList();
+		validateDataSet(net, trainingData);
+		compiled = new CompiledNetwork(net);
+		createWorkers(trainingData);
+		try {
+			while (true) {
+				trainNow = true;
+				if (config.shouldRestartTraining()) {
+					shutdownWorkers();
+					train(trainingData); // restart training
+					config.reset();
+					return;
+				}
+				if (config.shouldStopTraining()) {
+					compiled.syncToNetwork();
+					config.reset();
+					return;
+				}
+
+				preIteration();
+
+				runShards();
+				for (ShardWorker w : workers) {
+					netError.add(w.error);
+					w.error.reset();
+				}
+				currentStep += trainingData.getRows();
+
+				postIteration(netError.calculateRMS());
+			}
+		} finally {
+			shutdownWorkers();
+		}
+	}
+
+	@Override
+	public void syncNetwork() {
+		CompiledNetwork c = compiled;
+		if (c != null) {
+			c.syncToNetwork();
+		}
+	}
+
+	/**
+	 * Runs one iteration on all shards and waits until every shard is done
+	 */
+	private void runShards() {
+		List<Future<Void>> futures = new ArrayList<Future<Void>>(workers.length);
+		for (int i = 1; i < workers.length; i++) {
+			futures.add(pool.submit(workers[i]));
+		}
+		try {
+			// the calling thread takes the first shard
+			workers[0].call();
+			for (Future<Void> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("training interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("training worker failed", e.getCause());
+		}
+	}
+
+	private void createWorkers(final DataPairSet trainingData) {
+		int rows = trainingData.getRows();
+		int count = Math.max(1, Math.min(threads, rows));
+		workers = new ShardWorker[count];
+		for (int w = 0; w < count; w++) {
+			CompiledNetwork view = w == 0 ? compiled : compiled.createView();
+			workers[w] = new ShardWorker(view, new NetError(this, trainingData), trainingData, rows * w / count, rows * (w + 1) / count,
+					learnRate, momentum);
+		}
+		if (count > 1) {
+			pool = Executors.newFixedThreadPool(count - 1, new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread t = new Thread(r, "Hogwild worker");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+	}
+
+	private void shutdownWorkers() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		workers = null;
+	}
+
+	/**
+	 * Online training on a fixed range of pairs, writes into the shared weights
+	 */
+	private static class ShardWorker implements Callable<Void> {
+
+		private final CompiledNetwork net;
+		private final NetError error;
+		private final DataPairSet data;
+		private final int from;
+		private final int to;
+		private final double rate;
+		private final double mom;
+
+		public ShardWorker(final CompiledNetwork net, final NetError error, final DataPairSet data, final int from, final int to,
+				final double rate, final double mom) {
+			this.net = net;
+			this.error = error;
+			this.data = data;
+			this.from = from;
+			this.to = to;
+			this.rate = rate;
+			this.mom = mom;
+		}
+
+		@Override
+		public Void call() {
+			double[] input = data.getInputData();
+			double[] ideal = data.getIdealData();
+			int outputIndex = net.getLayerCount() - 1;
+			for (int r = from; r < to; r++) {
+				net.forward(input, data.getInputOffset(r));
+				for (int l = outputIndex; l > 0; l--) {
+					if (l == outputIndex) {
+						BackPropagation.calculateOutputError(net, error, ideal, data.getIdealOffset(r));
+					} else {
+						BackPropagation.calculateError(net, l);
+					}
+					BackPropagation.updateWeights(net, l, rate, mom);
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * @return amount of shards which are trained at the same time
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @param threads
+	 *            amount of shards which are trained at the same time
+	 */
+	public void setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("at least one thread is needed");
+		}
+		this.threads = threads;
+	}
+
+	/**
+	 * @return the momentum
+	 */
+	public double getMomentum() {
+		return momentum;
+	}
+
+	/**
+	 * @param momentum
+	 *            0 or positive
+	 */
+	public void setMomentum(final double momentum) {
+		if (momentum >= 0 == false) {
+			throw new IllegalArgumentException("momentum must not be negative: " + momentum);
+		}
+		this.momentum = momentum;
+	}
+
+	/**
+	 * @return the learnRate
+	 */
+	public double getLearnRate() {
+		return learnRate;
+	}
+
+	/**
+	 * @param learnRate
+	 *            0 or positive, with 0 the weights stay the same
+	 */
+	public void setLearnRate(final double learnRate) {
+		if (learnRate >= 0 == false) {
+			throw new IllegalArgumentException("learn rate must not be negative: " + learnRate);
+		}
+		this.learnRate = learnRate;
+	}
+
+}
@@ -0,0 +1,303 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo;
+
+import java.util.Arrays;
+
+import de.unikassel.ann.model.CompiledNetwork;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.NetError;
+import de.unikassel.ann.model.Network;
+
+/**
+ * Resilient propagation (iRPROP+ and iRPROP-) after Igel and Hüsken.<br>
+ * Only the sign of the batch gradient is used. Each weight has its own step size, which grows while the sign stays the same and
+ * shrinks when it changes. iRPROP+ additionally reverts the last change of a weight if its sign changed and the error of the whole net
+ * got worse (weight backtracking).<br>
+ * The weights are updated once per iteration with the gradient of the whole training set, which can be split across
+ * {@link #threads} workers, see {@link BatchGradient}.
+ */
+public class ResilientPropagation extends TrainingModule implements WorkModule {
+
+	private double initialStep = 0.1;
+	private double maxStep = 50.0;
+	private double minStep = 1e-6;
+	private double increase = 1.2;
+	private double decrease = 0.5;
+
+	/**
+	 * true for iRPROP+, false for iRPROP-
+	 */
+	private boolean backtracking = true;
+
+	private int threads = 1;
+
+	/**
+	 * Flat view of the network while training, the last weight changes are kept in its delta weights
+	 */
+	private CompiledNetwork compiled;
+
+	private BatchGradient gradient;
+
+	/**
+	 * Step size of each weight, same layout as the weights
+	 */
+	private double[][] steps;
+
+	private double[][] biasSteps;
+
+	/**
+	 * Gradient of the last iteration, 0 after a sign change
+	 */
+	private double[][] lastGradients;
+
+	private double[][] lastBiasGradients;
+
+	private double lastError;
+
+	private BatchWork batchWork = new BatchWork();
+
+	@Override
+	public void work(Network net, final DataPairSet testData) {
+		if (net == null) {
+			net = config.getNetwork();
+		}
+		batchWork.work(net, testData);
+	}
+
+	@Override
+	public boolean validateDataSet(final Network net, final DataPairSet dataset) {
+		int inputSize = net.getInputSizeIgnoringBias();
+		int outputSize = net.getOutputSize();
+		if (dataset.getInputSize() == inputSize && dataset.getIdealSize() == outputSize) {
+			return true;
+		}
+		throw new IllegalArgumentException("dataset does not match for topology");
+	}
+
+	@Override
+	public void train(final DataPairSet trainingData) {
+		Network net = config.getNetwork();
+		if (net.getSynapseSet().isEmpty()) {
+			net.connectFeedForward();
+		}
+		netError = new NetError(this, trainingData);
+		config.resetErrorList();
+		validateDataSet(net, trainingData);
+		compiled = new CompiledNetwork(net);
+		initState();
+		gradient = new BatchGradient(this, compiled, trainingData, threads);
+		try {
+			while (true) {
+				trainNow = true;
+				if (config.shouldRestartTraining()) {
+					gradient.shutdown();
+					train(trainingData); // restart training
+					config.reset();
+					return;
+				}
+				if (config.shouldStopTraining()) {
+					compiled.syncToNetwork();
+					config.reset();
+					return;
+				}
+
+				preIteration();
+
+				gradient.calculate(0, trainingData.getRows(), netError);
+				double tmpError = netError.calculateRMS();
+				boolean errorIncreased = tmpError > lastError;
+				for (int l = compiled.getLayerCount() - 1; l > 0; l--) {
+					update(gradient.getGradients(l), lastGradients[l], steps[l], compiled.getWeights(l), compiled.getDeltaWeights(l),
+							errorIncreased);
+					update(gradient.getBiasGradients(l), lastBiasGradients[l], biasSteps[l], compiled.getBiasWeights(l),
+							compiled.getDeltaBiasWeights(l), errorIncreased);
+					compiled.clearMissing(l);
+				}
+				lastError = tmpError;
+				currentStep += trainingData.getRows();
+
+				postIteration(tmpError);
+			}
+		} finally {
+			gradient.shutdown();
+		}
+	}
+
+	@Override
+	public void syncNetwork() {
+		CompiledNetwork c = compiled;
+		if (c != null) {
+			c.syncToNetwork();
+		}
+	}
+
+	private void initState() {
+		steps = compiled.createWeightBuffer();
+		biasSteps = compiled.createBiasBuffer();
+		lastGradients = compiled.createWeightBuffer();
+		lastBiasGradients = compiled.createBiasBuffer();
+		for (int l = 1; l < compiled.getLayerCount(); l++) {
+			Arrays.fill(steps[l], initialStep);
+			Arrays.fill(biasSteps[l], initialStep);
+			// no weight change to revert yet
+			Arrays.fill(compiled.getDeltaWeights(l), 0.0d);
+			Arrays.fill(compiled.getDeltaBiasWeights(l), 0.0d);
+		}
+		lastError = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Updates the weights with the signs of the collected weight changes and resets them
+	 *
+	 * @param g
+	 *            weight changes of this iteration (negative gradient)
+	 * @param last
+	 *            weight changes of the last iteration
+	 * @param step
+	 *            step size of each weight
+	 * @param w
+	 *            weights
+	 * @param dw
+	 *            last change of each weight
+	 * @param errorIncreased
+	 *            true if the error is worse than in the last iteration
+	 */
+	private void update(final double[] g, final double[] last, final double[] step, final double[] w, final double[] dw,
+			final boolean errorIncreased) {
+		for (int i = 0; i < g.length; i++) {
+			double grad = g[i];
+			g[i] = 0.0d;
+			double sign = grad * last[i];
+			if (sign > 0) {
+				step[i] = Math.min(step[i] * increase, maxStep);
+			} else if (sign < 0) {
+				step[i] = Math.max(step[i] * decrease, minStep);
+				if (backtracking && errorIncreased) {
+					w[i] -= dw[i];
+				}
+				dw[i] = 0.0d;
+				// no update and no step size change in the next iteration
+				last[i] = 0.0d;
+				continue;
+			}
+			double change = grad > 0 ? step[i] : grad < 0 ? -step[i] : 0.0d;
+			w[i] += change;
+			dw[i] = change;
+			last[i] = grad;
+		}
+	}
+
+	/**
+	 * @return true for iRPROP+, false for iRPROP-
+	 */
+	public boolean isBacktracking() {
+		return backtracking;
+	}
+
+	/**
+	 * @param backtracking
+	 *            true for iRPROP+ (revert the last change if the error got worse), false for iRPROP-
+	 */
+	public void setBacktracking(final boolean backtracking) {
+		this.backtracking = backtracking;
+	}
+
+	/**
+	 * @return step size of each weight in the first iteration
+	 */
+	public double getInitialStep() {
+		return initialStep;
+	}
+
+	/**
+	 * @param initialStep
+	 *            step size of each weight in the first iteration
+	 */
+	public void setInitialStep(final double initialStep) {
+		if (initialStep <= 0) {
+			throw new IllegalArgumentException("step size must be positive");
+		}
+		this.initialStep = initialStep;
+	}
+
+	public double getMaxStep() {
+		return maxStep;
+	}
+
+	public void setMaxStep(final double maxStep) {
+		if (maxStep <= 0) {
+			throw new IllegalArgumentException("step size must be positive");
+		}
+		this.maxStep = maxStep;
+	}
+
+	public double getMinStep() {
+		return minStep;
+	}
+
+	public void setMinStep(final double minStep) {
+		if (minStep < 0) {
+			throw new IllegalArgumentException("step size cannot be negative");
+		}
+		this.minStep = minStep;
+	}
+
+	/**
+	 * @return factor for the step size while the sign stays the same
+	 */
+	public double getIncrease() {
+		return increase;
+	}
+
+	/**
+	 * @param increase
+	 *            factor for the step size while the sign stays the same, greater than 1
+	 */
+	public void setIncrease(final double increase) {
+		if (increase <= 1) {
+			throw new IllegalArgumentException("increase factor must be greater than 1");
+		}
+		this.increase = increase;
+	}
+
+	/**
+	 * @return factor for the step size after a sign change
+	 */
+	public double getDecrease() {
+		return decrease;
+	}
+
+	/**
+	 * @param decrease
+	 *            factor for the step size after a sign change, between 0 and 1
+	 */
+	public void setDecrease(final double decrease) {
+		if (decrease <= 0 || decrease >= 1) {
+			throw new IllegalArgumentException("decrease factor must be between 0 and 1");
+		}
+		this.decrease = decrease;
+	}
+
+	/**
+	 * @return worker threads for the gradient
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @param threads
+	 *            worker threads for the gradient
+	 */
+	public void setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("at least one thread is needed");
+		}
+		this.threads = threads;
+	}
+
+}
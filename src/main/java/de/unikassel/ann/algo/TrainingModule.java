@@ -1,34 +1,37 @@
 package de.unikassel.ann.algo;
 
+import java.util.List;
+
 import de.unikassel.ann.config.NetConfig;
 import de.unikassel.ann.model.DataPairSet;
 import de.unikassel.ann.model.NetError;
+import de.unikassel.ann.strategy.Strategy;
 
 public abstract class TrainingModule {
 
 	protected boolean trainNow = false;
 
-	protected Double currentError = Double.NaN;
+	protected double currentError = Double.NaN;
 
-	protected Double currentImprovement = Double.NaN;
+	protected double currentImprovement = Double.NaN;
 
 	// protected Double currentSingleError = Double.NaN;
 
 	protected NetError netError;
 
-	protected Integer currentIteration = 0;
+	protected int currentIteration = 0;
 
-	protected Integer currentStep = 0;
+	protected int currentStep = 0;
 
 	protected NetConfig config;
 
 	abstract public void train(DataPairSet trainingData);
 
-	public Integer getCurrentIteration() {
+	public int getCurrentIteration() {
 		return currentIteration;
 	}
 
-	public Integer getCurrentStep() {
+	public int getCurrentStep() {
 		return currentStep;
 	}
 
@@ -36,11 +39,11 @@ public abstract class TrainingModule {
 		this.config = config;
 	}
 
-	public Double getCurrentError() {
+	public double getCurrentError() {
 		return currentError;
 	}
 
-	public Double getCurrentImprovement() {
+	public double getCurrentImprovement() {
 		return currentImprovement;
 	}
 
@@ -57,6 +60,44 @@ public abstract class TrainingModule {
 		return trainNow;
 	}
 
+	/**
+	 * Calls {@link Strategy#preIteration()} of all strategies
+	 */
+	protected void preIteration() {
+		List<Strategy> strategies = config.getStrategies();
+		// no iterator, the iterations should not allocate
+		for (int i = 0; i < strategies.size(); i++) {
+			strategies.get(i).preIteration();
+		}
+	}
+
+	/**
+	 * Takes the error of the finished iteration, resets {@link #netError} and calls {@link Strategy#postIteration()} of all
+	 * strategies
+	 *
+	 * @param error
+	 *            error of the finished iteration
+	 */
+	protected void postIteration(final double error) {
+		currentImprovement = currentError - error;
+		currentError = error;
+		config.addErrorList(currentIteration, currentError);
+		netError.reset();
+		currentIteration++;
+		List<Strategy> strategies = config.getStrategies();
+		for (int i = 0; i < strategies.size(); i++) {
+			strategies.get(i).postIteration();
+		}
+	}
+
+	/**
+	 * Writes the weights of the flat training arrays back to the synapses, e.g. before repainting the graph while training.<br>
+	 * Does nothing if the module trains directly on the synapses.
+	 */
+	public void syncNetwork() {
+		// nothing
+	}
+
 	// public Double getCurrentSingleError() {
 	// return currentSingleError;
 	// }
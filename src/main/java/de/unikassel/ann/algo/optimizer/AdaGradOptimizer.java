@@ -0,0 +1,55 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo.optimizer;
+
+import de.unikassel.ann.model.CompiledNetwork;
+
+/**
+ * AdaGrad, the learn rate of each weight shrinks with the sum of its squared gradients:
+ *
+ * <pre>
+ * h += g * g
+ * w += learnRate * g / (sqrt(h) + epsilon)
+ * </pre>
+ */
+public class AdaGradOptimizer extends Optimizer {
+
+	private double epsilon = 1e-8;
+
+	private double[][] squares;
+
+	public AdaGradOptimizer(final double learnRate) {
+		super(learnRate);
+	}
+
+	@Override
+	public void init(final CompiledNetwork net) {
+		squares = createState(net);
+	}
+
+	@Override
+	public void update(final int slot, final double[] w, final double[] g, final double[] dw) {
+		double[] h = squares[slot];
+		double rate = learnRate;
+		double eps = epsilon;
+		for (int i = 0; i < w.length; i++) {
+			double grad = g[i];
+			h[i] += grad * grad;
+			double change = rate * grad / (Math.sqrt(h[i]) + eps);
+			w[i] += change;
+			dw[i] = change;
+		}
+	}
+
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	public void setEpsilon(final double epsilon) {
+		this.epsilon = epsilon;
+	}
+
+}
@@ -0,0 +1,102 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo.optimizer;
+
+import de.unikassel.ann.model.CompiledNetwork;
+
+/**
+ * Adam, moving averages of the gradients and the squared gradients with bias correction:
+ *
+ * <pre>
+ * m = beta1 * m + (1 - beta1) * g
+ * v = beta2 * v + (1 - beta2) * g * g
+ * w += learnRate * (m / (1 - beta1^t)) / (sqrt(v / (1 - beta2^t)) + epsilon)
+ * </pre>
+ */
+public class AdamOptimizer extends Optimizer {
+
+	private double beta1;
+
+	private double beta2;
+
+	private double epsilon = 1e-8;
+
+	private double[][] moments;
+
+	private double[][] squares;
+
+	/**
+	 * Time step for the bias correction
+	 */
+	private int step;
+
+	private double correction1;
+
+	private double correction2;
+
+	public AdamOptimizer(final double learnRate) {
+		this(learnRate, 0.9, 0.999);
+	}
+
+	public AdamOptimizer(final double learnRate, final double beta1, final double beta2) {
+		super(learnRate);
+		if (beta1 < 0 || beta1 >= 1 || beta2 < 0 || beta2 >= 1) {
+			throw new IllegalArgumentException("beta must be between 0 and 1");
+		}
+		this.beta1 = beta1;
+		this.beta2 = beta2;
+	}
+
+	@Override
+	public void init(final CompiledNetwork net) {
+		moments = createState(net);
+		squares = createState(net);
+		step = 0;
+	}
+
+	@Override
+	public void nextStep() {
+		step++;
+		correction1 = 1 - Math.pow(beta1, step);
+		correction2 = 1 - Math.pow(beta2, step);
+	}
+
+	@Override
+	public void update(final int slot, final double[] w, final double[] g, final double[] dw) {
+		double[] m = moments[slot];
+		double[] v = squares[slot];
+		double b1 = beta1;
+		double b2 = beta2;
+		double rate = learnRate / correction1;
+		double c2 = correction2;
+		double eps = epsilon;
+		for (int i = 0; i < w.length; i++) {
+			double grad = g[i];
+			m[i] = b1 * m[i] + (1 - b1) * grad;
+			v[i] = b2 * v[i] + (1 - b2) * grad * grad;
+			double change = rate * m[i] / (Math.sqrt(v[i] / c2) + eps);
+			w[i] += change;
+			dw[i] = change;
+		}
+	}
+
+	public double getBeta1() {
+		return beta1;
+	}
+
+	public double getBeta2() {
+		return beta2;
+	}
+
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	public void setEpsilon(final double epsilon) {
+		this.epsilon = epsilon;
+	}
+
+}
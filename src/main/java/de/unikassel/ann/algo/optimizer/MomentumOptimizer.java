@@ -0,0 +1,51 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo.optimizer;
+
+import de.unikassel.ann.model.CompiledNetwork;
+
+/**
+ * Classic momentum, the rule of the backpropagation:
+ *
+ * <pre>
+ * dw = learnRate * g + momentum * dw
+ * w += dw
+ * </pre>
+ */
+public class MomentumOptimizer extends Optimizer {
+
+	private double momentum;
+
+	public MomentumOptimizer(final double learnRate, final double momentum) {
+		super(learnRate);
+		this.momentum = momentum;
+	}
+
+	@Override
+	public void init(final CompiledNetwork net) {
+		// last change is the only state
+	}
+
+	@Override
+	public void update(final int slot, final double[] w, final double[] g, final double[] dw) {
+		double rate = learnRate;
+		double mom = momentum;
+		for (int i = 0; i < w.length; i++) {
+			double change = rate * g[i] + mom * dw[i];
+			w[i] += change;
+			dw[i] = change;
+		}
+	}
+
+	public double getMomentum() {
+		return momentum;
+	}
+
+	public void setMomentum(final double momentum) {
+		this.momentum = momentum;
+	}
+
+}
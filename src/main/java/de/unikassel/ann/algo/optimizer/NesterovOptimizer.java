@@ -0,0 +1,54 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo.optimizer;
+
+import de.unikassel.ann.model.CompiledNetwork;
+
+/**
+ * Nesterov momentum, rewritten so the gradient is taken at the current weights:
+ *
+ * <pre>
+ * v' = momentum * v + learnRate * g
+ * w += (1 + momentum) * v' - momentum * v
+ * </pre>
+ *
+ * The velocity v is kept as last change of each weight.
+ */
+public class NesterovOptimizer extends Optimizer {
+
+	private double momentum;
+
+	public NesterovOptimizer(final double learnRate, final double momentum) {
+		super(learnRate);
+		this.momentum = momentum;
+	}
+
+	@Override
+	public void init(final CompiledNetwork net) {
+		// velocity is the only state
+	}
+
+	@Override
+	public void update(final int slot, final double[] w, final double[] g, final double[] dw) {
+		double rate = learnRate;
+		double mom = momentum;
+		for (int i = 0; i < w.length; i++) {
+			double v = dw[i];
+			double next = mom * v + rate * g[i];
+			w[i] += (1 + mom) * next - mom * v;
+			dw[i] = next;
+		}
+	}
+
+	public double getMomentum() {
+		return momentum;
+	}
+
+	public void setMomentum(final double momentum) {
+		this.momentum = momentum;
+	}
+
+}
@@ -0,0 +1,90 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo.optimizer;
+
+import de.unikassel.ann.model.CompiledNetwork;
+
+/**
+ * Update rule for the weights of a {@link CompiledNetwork}, decoupled from the calculation of the weight changes.<br>
+ * The weights and the bias weights of each layer are separate slots, see {@link #slot(int, boolean)}. State like moments is kept in
+ * flat arrays with the same layout as the slot, created with {@link #createState(CompiledNetwork)}.<br>
+ * The collected weight changes are the negative gradient of the error, summed up over the pairs of a batch.
+ */
+public abstract class Optimizer {
+
+	protected double learnRate;
+
+	public Optimizer(final double learnRate) {
+		setLearnRate(learnRate);
+	}
+
+	/**
+	 * Creates the state for the given network, called before training
+	 *
+	 * @param net
+	 */
+	public abstract void init(CompiledNetwork net);
+
+	/**
+	 * Called once before updating all slots with a new batch
+	 */
+	public void nextStep() {
+		// nothing
+	}
+
+	/**
+	 * Updates the weights of one slot
+	 *
+	 * @param slot
+	 *            see {@link #slot(int, boolean)}
+	 * @param w
+	 *            weights
+	 * @param g
+	 *            collected weight changes (negative gradient)
+	 * @param dw
+	 *            last change of each weight, must be updated by the optimizer
+	 */
+	public abstract void update(int slot, double[] w, double[] g, double[] dw);
+
+	/**
+	 * @param l
+	 *            layer index
+	 * @param bias
+	 *            true for the bias weights of the layer
+	 * @return slot of the incoming weights of a layer
+	 */
+	public static int slot(final int l, final boolean bias) {
+		return bias ? 2 * l + 1 : 2 * l;
+	}
+
+	/**
+	 * @return one zero array for each slot of the network
+	 */
+	protected static double[][] createState(final CompiledNetwork net) {
+		double[][] state = new double[2 * net.getLayerCount()][];
+		for (int l = 0; l < net.getLayerCount(); l++) {
+			state[slot(l, false)] = new double[net.getWeights(l).length];
+			state[slot(l, true)] = new double[net.getBiasWeights(l).length];
+		}
+		return state;
+	}
+
+	public double getLearnRate() {
+		return learnRate;
+	}
+
+	/**
+	 * @param learnRate
+	 *            0 or positive, with 0 the weights stay the same
+	 */
+	public void setLearnRate(final double learnRate) {
+		if (learnRate >= 0 == false) {
+			throw new IllegalArgumentException("learn rate must not be negative: " + learnRate);
+		}
+		this.learnRate = learnRate;
+	}
+
+}
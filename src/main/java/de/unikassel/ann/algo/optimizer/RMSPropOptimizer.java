@@ -0,0 +1,74 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.algo.optimizer;
+
+import de.unikassel.ann.model.CompiledNetwork;
+
+/**
+ * RMSProp, like {@link AdaGradOptimizer} but with a moving average of the squared gradients:
+ *
+ * <pre>
+ * h = decay * h + (1 - decay) * g * g
+ * w += learnRate * g / (sqrt(h) + epsilon)
+ * </pre>
+ */
+public class RMSPropOptimizer extends Optimizer {
+
+	private double decay;
+
+	private double epsilon = 1e-8;
+
+	private double[][] squares;
+
+	public RMSPropOptimizer(final double learnRate) {
+		this(learnRate, 0.9);
+	}
+
+	public RMSPropOptimizer(final double learnRate, final double decay) {
+		super(learnRate);
+		setDecay(decay);
+	}
+
+	@Override
+	public void init(final CompiledNetwork net) {
+		squares = createState(net);
+	}
+
+	@Override
+	public void update(final int slot, final double[] w, final double[] g, final double[] dw) {
+		double[] h = squares[slot];
+		double rate = learnRate;
+		double d = decay;
+		double eps = epsilon;
+		for (int i = 0; i < w.length; i++) {
+			double grad = g[i];
+			h[i] = d * h[i] + (1 - d) * grad * grad;
+			double change = rate * grad / (Math.sqrt(h[i]) + eps);
+			w[i] += change;
+			dw[i] = change;
+		}
+	}
+
+	public double getDecay() {
+		return decay;
+	}
+
+	public void setDecay(final double decay) {
+		if (decay < 0 || decay >= 1) {
+			throw new IllegalArgumentException("decay must be between 0 and 1");
+		}
+		this.decay = decay;
+	}
+
+	public double getEpsilon() {
+		return epsilon;
+	}
+
+	public void setEpsilon(final double epsilon) {
+		this.epsilon = epsilon;
+	}
+
+}
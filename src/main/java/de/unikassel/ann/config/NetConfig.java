@@ -3,6 +3,7 @@ package de.unikassel.ann.config;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -30,13 +31,18 @@ public class NetConfig {
 
 	private double initMinWeight = -2;
 	private double initMaxWeight = 2;
-	private List<IterationError> iterationErrorList;
+	/**
+	 * Error of each training iteration, only the first {@link #errorCount} entries are used
+	 */
+	private int[] errorIterations;
+	private double[] errors;
+	private int errorCount;
 
 	public NetConfig() {
 		network = new Network();
 		network.setConfig(this);
 		strategies = new ArrayList<Strategy>();
-		iterationErrorList = new ArrayList<IterationError>();
+		resetErrorList();
 
 		/*
 		 * default algorithm and strategy
@@ -48,8 +54,9 @@ public class NetConfig {
 	}
 
 	public boolean shouldStopTraining() {
-		for (Strategy s : strategies) {
-			if (s.shouldStop()) {
+		// no iterator, called in each training iteration
+		for (int i = 0; i < strategies.size(); i++) {
+			if (strategies.get(i).shouldStop()) {
 				return true;
 			}
 		}
@@ -57,8 +64,8 @@ public class NetConfig {
 	}
 
 	public boolean shouldRestartTraining() {
-		for (Strategy s : strategies) {
-			if (s.shouldRestart()) {
+		for (int i = 0; i < strategies.size(); i++) {
+			if (strategies.get(i).shouldRestart()) {
 				if (restartAmount > 3) {
 					return false;
 				}
@@ -124,6 +131,33 @@ public class NetConfig {
 		train.setConfig(this);
 	}
 
+	/**
+	 * Uses a new instance of the given training algorithm, unless the current training module already is one.<br>
+	 * If the algorithm can work too, it also becomes the work module.
+	 *
+	 * @param clazz
+	 *            e.g. {@link BackPropagation} or {@link de.unikassel.ann.algo.ResilientPropagation}
+	 * @return the current training module
+	 */
+	public <T extends TrainingModule> T selectTrainingModule(final Class<T> clazz) {
+		if (clazz.isInstance(trainingModule)) {
+			return clazz.cast(trainingModule);
+		}
+		T train;
+		try {
+			train = clazz.newInstance();
+		} catch (InstantiationException e) {
+			throw new IllegalArgumentException("cannot create training module " + clazz.getSimpleName(), e);
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("cannot create training module " + clazz.getSimpleName(), e);
+		}
+		addTrainingModule(train);
+		if (train instanceof WorkModule) {
+			addWorkModule((WorkModule) train);
+		}
+		return train;
+	}
+
 	public void addWorkModule(final WorkModule work) {
 		workModule = work;
 	}
@@ -240,16 +274,31 @@ public class NetConfig {
 	 * @param currentIteration
 	 * @param currentError
 	 */
-	public void addErrorList(final Integer iter, final Double error) {
-		iterationErrorList.add(new IterationError(iter, error));
+	public void addErrorList(final int iter, final double error) {
+		if (errorCount == errors.length) {
+			errorIterations = Arrays.copyOf(errorIterations, errorCount * 2);
+			errors = Arrays.copyOf(errors, errorCount * 2);
+		}
+		errorIterations[errorCount] = iter;
+		errors[errorCount] = error;
+		errorCount++;
 	}
 
 	public void resetErrorList() {
-		iterationErrorList = new ArrayList<IterationError>();
+		errorIterations = new int[256];
+		errors = new double[256];
+		errorCount = 0;
 	}
 
+	/**
+	 * @return copy of the errors of the training iterations
+	 */
 	public List<IterationError> getErrorList() {
-		return iterationErrorList;
+		List<IterationError> list = new ArrayList<IterationError>(errorCount);
+		for (int i = 0; i < errorCount; i++) {
+			list.add(new IterationError(errorIterations[i], errors[i]));
+		}
+		return list;
 	}
 
 	public class IterationError {
@@ -362,7 +362,7 @@ public class GraphController implements PropertyChangeListener {
 			Edge edge = edgeController.getEdgeFactory().create();
 
 			// Set synapse weight to random value if it's missing
-			if (synapse.getWeight() == null) {
+			if (synapse.hasWeight() == false) {
 				// Get random default weight between min and max defined in the standard options panel in the sidebar.
 				StandardOptionsPanel panel = Main.instance.sidebar.standardOptionsPanel;
 				double weight = panel.getRandomInitialWeight();
@@ -556,7 +556,7 @@ public class GraphController implements PropertyChangeListener {
 	public void removeAllEdges() {
 		Collection<Edge> edges = new CopyOnWriteArrayList(graph.getEdges());
 		removeEdges(edges);
-		Network.getNetwork().getSynapseSet().clear();
+		Network.getNetwork().removeAllSynapses();
 		repaint();
 	}
 
@@ -247,7 +247,7 @@ public class ImportFilePanel extends JDialog {
 					}
 
 				}
-				if (reader.trainigBeanList != null) {
+				if (reader.getTrainingSet() != null) {
 					trainigDataCB.setEnabled(true);
 					trainigDataCB.setSelected(true);
 				}
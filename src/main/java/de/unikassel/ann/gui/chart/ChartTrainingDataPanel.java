@@ -77,7 +77,7 @@ public class ChartTrainingDataPanel extends JPanel {
 		NetConfig netConfig = Settings.getInstance().getCurrentSession().getNetworkConfig();
 		DataPairSet trainData = netConfig.getTrainingData();
 		if (trainData != null) {
-			int inputSize = trainData.getPairs().get(0).getInput().length;
+			int inputSize = trainData.getInputSize();
 			Double[][] inputAndIdeal = trainData.getInputAndIdeal();
 			int field = 0;
 			for (int i = 0; i < inputAndIdeal[0].length; i++) {
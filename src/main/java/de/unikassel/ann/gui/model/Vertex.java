@@ -101,6 +101,13 @@ public class Vertex implements Comparable<Vertex> {
 		Neuron fromNeuron = getModel();
 		Neuron toNeuron = toVertex.getModel();
 
+		if (fromNeuron.getId() >= 0 && toNeuron.getId() >= 0) {
+			// synapses between neurons with ids are in the matrix
+			Synapse synapse = Network.getNetwork().getSynapseMatrix().getSynapse(fromNeuron.getId(), toNeuron.getId());
+			if (synapse != null && synapse.getFromNeuron().equals(fromNeuron) && synapse.getToNeuron().equals(toNeuron)) {
+				return synapse;
+			}
+		}
 		Set<Synapse> synapseSet = Network.getNetwork().getSynapseSet();
 		for (Synapse synapse : synapseSet) {
 			if (synapse.getFromNeuron().equals(fromNeuron) && synapse.getToNeuron().equals(toNeuron)) {
@@ -71,6 +71,9 @@ public class SOMTrainingPanel extends JPanel {
 				somNet.setMaxIterations((Integer) spinnerIterationsSOM.getValue());
 				boolean square = parent.somTopPanel.somPatternCombo.getSelectedIndex() == 0;
 				somNet.setSquare(square);
+				if ("Batch SOM".equals(comboAlgorithmSOM.getSelectedItem())) {
+					somNet.setAlgorithm(SomNetwork.Algorithm.BATCH);
+				}
 
 				parent.somNetwork = somNet;
 				SomWorker oldWorker = parent.getWorker();
@@ -117,7 +120,7 @@ public class SOMTrainingPanel extends JPanel {
 		JLabel lblAlgorithmSOM = new JLabel(Settings.i18n.getString("sidebar.trainingSOM.lblAlgorithmSOM"));
 
 		comboAlgorithmSOM = new JComboBox();
-		comboAlgorithmSOM.setModel(new DefaultComboBoxModel(new String[] { "SOM" }));
+		comboAlgorithmSOM.setModel(new DefaultComboBoxModel(new String[] { "SOM", "Batch SOM" }));
 
 		JLabel lblNeighborhoodRadius = new JLabel(Settings.i18n.getString("sidebar.trainingSOM.lblNeighborhoodRadius"));
 
@@ -9,7 +9,7 @@ package de.unikassel.ann.gui.sidebar;
 
 import javax.swing.SwingWorker;
 
-import de.unikassel.ann.algo.BackPropagation;
+import de.unikassel.ann.algo.TrainingModule;
 import de.unikassel.ann.config.NetConfig;
 import de.unikassel.ann.controller.GraphController;
 import de.unikassel.ann.controller.Settings;
@@ -34,9 +34,10 @@ public class TrainGuiUpdater extends SwingWorker<Void, Void> {
 	@Override
 	protected Void doInBackground() throws Exception {
 		NetConfig netCfg = Settings.getInstance().getCurrentSession().getNetworkConfig();
-		BackPropagation bp = (BackPropagation) netCfg.getTrainingModule();
+		TrainingModule bp = netCfg.getTrainingModule();
 		ChartTrainingErrorPanel chart = Main.instance.trainingErrorChartPanel;
 		while (trainWorker.isDone() == false) {
+			bp.syncNetwork();
 			GraphController.getInstance().repaint();
 			Integer iteration = bp.getCurrentIteration();
 			Double error = bp.getCurrentError();
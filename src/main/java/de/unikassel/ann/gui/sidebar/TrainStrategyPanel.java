@@ -29,6 +29,8 @@ import javax.swing.SpinnerNumberModel;
 import javax.swing.border.TitledBorder;
 
 import de.unikassel.ann.algo.BackPropagation;
+import de.unikassel.ann.algo.ResilientPropagation;
+import de.unikassel.ann.algo.TrainingModule;
 import de.unikassel.ann.config.NetConfig;
 import de.unikassel.ann.controller.GraphController;
 import de.unikassel.ann.controller.Settings;
@@ -100,7 +102,7 @@ public class TrainStrategyPanel extends JPanel {
 		lblMomentum = new JLabel(Settings.i18n.getString("sidebar.trainingsStretegy.momentum"));
 
 		comboBoxAlgorithm = new JComboBox();
-		comboBoxAlgorithm.setModel(new DefaultComboBoxModel(new String[] { "Backpropagation" }));
+		comboBoxAlgorithm.setModel(new DefaultComboBoxModel(new String[] { "Backpropagation", "RPROP" }));
 
 		spinnerLearnRate = new JSpinner();
 		spinnerLearnRate.setModel(new SpinnerNumberModel(new Double(0.0), null, null, new Double(0.1)));
@@ -424,11 +426,11 @@ public class TrainStrategyPanel extends JPanel {
 					JFrame frame = new JFrame();
 					JOptionPane.showMessageDialog(frame, "Es existieren keine Trainingsdaten ", "Warnung", JOptionPane.WARNING_MESSAGE);
 				} else {
-					// copy of train data
-					DataPairSet trainingData = new DataPairSet(net.getTrainingData());
+					// not copied, the training only reads it through a view
+					DataPairSet trainingData = net.getTrainingData();
 
-					int trainInLenght = trainingData.getPairs().get(0).getInput().length;
-					int trainOutLenght = trainingData.getPairs().get(0).getIdeal().length;
+					int trainInLenght = trainingData.getInputSize();
+					int trainOutLenght = trainingData.getIdealSize();
 					int netInLenght = net.getNetwork().getInputSizeIgnoringBias();
 					int netOutLength = net.getNetwork().getOutputSize();
 					if (trainInLenght != netInLenght || trainOutLenght != netOutLength) {
@@ -437,13 +439,25 @@ public class TrainStrategyPanel extends JPanel {
 						return;
 					}
 
-					BackPropagation train = (BackPropagation) net.getTrainingModule();
-					Double learnRate = (Double) Main.instance.sidebar.trainStrategyPanel.spinnerLearnRate.getValue();
-					Double momentum = (Double) Main.instance.sidebar.trainStrategyPanel.spinnerMomentum.getValue();
-					Boolean batchMode = Main.instance.sidebar.trainStrategyPanel.chbBatchMode.isSelected();
-					train.setBatchMode(batchMode);
-					train.setLearnRate(learnRate);
-					train.setMomentum(momentum);
+					TrainingModule train;
+					if ("RPROP".equals(comboBoxAlgorithm.getSelectedItem())) {
+						train = net.selectTrainingModule(ResilientPropagation.class);
+					} else {
+						BackPropagation backProp = net.selectTrainingModule(BackPropagation.class);
+						Double learnRate = (Double) Main.instance.sidebar.trainStrategyPanel.spinnerLearnRate.getValue();
+						Double momentum = (Double) Main.instance.sidebar.trainStrategyPanel.spinnerMomentum.getValue();
+						Boolean batchMode = Main.instance.sidebar.trainStrategyPanel.chbBatchMode.isSelected();
+						if (learnRate < 0) {
+							JFrame frame = new JFrame();
+							JOptionPane.showMessageDialog(frame, "Die Lernrate darf nicht negativ sein", "Warnung",
+									JOptionPane.WARNING_MESSAGE);
+							return;
+						}
+						backProp.setBatchMode(batchMode);
+						backProp.setLearnRate(learnRate);
+						backProp.setMomentum(momentum);
+						train = backProp;
+					}
 
 					// Start worker
 					TrainWorker trainWorker = new TrainWorker(net, train, trainingData);
@@ -563,10 +577,15 @@ public class TrainStrategyPanel extends JPanel {
 		 * update learnRate, momentum, batchTraiing
 		 */
 		NetConfig net = Settings.getInstance().getCurrentSession().getNetworkConfig();
-		BackPropagation train = (BackPropagation) net.getTrainingModule();
-		chbBatchMode.setSelected(train.isBatchMode());
-		spinnerLearnRate.setValue(train.getLearnRate());
-		spinnerMomentum.setValue(train.getMomentum());
+		if (net.getTrainingModule() instanceof BackPropagation) {
+			BackPropagation train = (BackPropagation) net.getTrainingModule();
+			comboBoxAlgorithm.setSelectedItem("Backpropagation");
+			chbBatchMode.setSelected(train.isBatchMode());
+			spinnerLearnRate.setValue(train.getLearnRate());
+			spinnerMomentum.setValue(train.getMomentum());
+		} else if (net.getTrainingModule() instanceof ResilientPropagation) {
+			comboBoxAlgorithm.setSelectedItem("RPROP");
+		}
 
 		// "MaxIteration", "MinError", "RestartError","RestartImprovement"
 		String selectedStrategy = (String) comboBoxTypStrategien.getSelectedItem();
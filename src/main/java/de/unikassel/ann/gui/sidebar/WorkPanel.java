@@ -120,8 +120,8 @@ public class WorkPanel extends JPanel implements PropertyChangeListener, ChangeL
 				testData.addPair(new DataPair(input, new Double[] { Double.NaN }));
 
 				// Validate test data
-				int trainInLenght = testData.getPairs().get(0).getInput().length;
-				int trainOutLenght = testData.getPairs().get(0).getIdeal().length;
+				int trainInLenght = testData.getInputSize();
+				int trainOutLenght = testData.getIdealSize();
 				int netInLenght = net.getNetwork().getInputSizeIgnoringBias();
 				int netOutLength = net.getNetwork().getOutputSize();
 				if (trainInLenght != netInLenght || trainOutLenght != netOutLength) {
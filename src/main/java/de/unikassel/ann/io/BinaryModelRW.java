@@ -0,0 +1,284 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.io.beans.SynapseBean;
+import de.unikassel.ann.io.beans.TopologyBean;
+import de.unikassel.ann.model.Synapse;
+import de.unikassel.ann.model.SynapseMatrix;
+
+/**
+ * Binary snapshot of a network (topology and synapses), little endian:
+ *
+ * <pre>
+ * int    magic      0x4A414E4D, stored little endian like all values, so the file starts with the bytes 'MNAJ'
+ * short  version    1
+ * short  reserved
+ * int    function count
+ * int    neuron count
+ * int    synapse count
+ * int    reserved
+ * function count * (short length, UTF-8 name)     names of the activation functions, the id is the index
+ * neuron count * int    id
+ * neuron count * int    layer (-1 input, -2 output, hidden index otherwise)
+ * neuron count * short  function id
+ * neuron count * byte   bias (0 / 1)
+ * synapse count * int   from id
+ * synapse count * int   to id
+ * synapse count * double weight, NaN for a random weight
+ * </pre>
+ *
+ * Each block starts at a multiple of 8 bytes. The file is the binary counterpart of the topology and synapses sections of the CSV
+ * format: both produce the same beans for {@link de.unikassel.ann.model.Network#createTopology(List, List)}.
+ */
+public class BinaryModelRW {
+
+	static final int MAGIC = 0x4A414E4D;
+
+	static final short VERSION = 1;
+
+	static final int HEADER_SIZE = 24;
+
+	static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	private static final String CHARSET = "UTF-8";
+
+	/**
+	 * Beans of a snapshot
+	 */
+	public static class Model {
+
+		private final List<TopologyBean> topology;
+		private final List<SynapseBean> synapses;
+
+		Model(final List<TopologyBean> topology, final List<SynapseBean> synapses) {
+			this.topology = topology;
+			this.synapses = synapses;
+		}
+
+		public List<TopologyBean> getTopology() {
+			return topology;
+		}
+
+		public List<SynapseBean> getSynapses() {
+			return synapses;
+		}
+	}
+
+	/**
+	 * Writes the network of the config into a new file, an existing file is replaced
+	 *
+	 * @param netConfig
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(final NetConfig netConfig, final File file) throws IOException {
+		List<TopologyBean> topology = TopologyBeanRW.convertToBeanList(netConfig);
+
+		// function names to ids
+		Map<String, Integer> functionIds = new HashMap<String, Integer>();
+		List<byte[]> functionNames = new ArrayList<byte[]>();
+		int tableBytes = 0;
+		for (TopologyBean b : topology) {
+			if (functionIds.containsKey(b.getFunction()) == false) {
+				byte[] name = b.getFunction().getBytes(CHARSET);
+				functionIds.put(b.getFunction(), functionNames.size());
+				functionNames.add(name);
+				tableBytes += 2 + name.length;
+			}
+		}
+
+		// synapses packed into arrays
+		SynapseMatrix matrix = netConfig.getNetwork().getSynapseMatrix();
+		int synapseCount = matrix.getSynapseCount();
+		int[] from = new int[synapseCount];
+		int[] to = new int[synapseCount];
+		double[] weights = new double[synapseCount];
+		int k = 0;
+		for (int i = 0; i < matrix.getFromSize(); i++) {
+			for (int j = 0; j < matrix.getOutDegree(i); j++) {
+				Synapse s = matrix.getOutgoingSynapse(i, j);
+				from[k] = i;
+				to[k] = matrix.getOutgoingTarget(i, j);
+				weights[k] = s.hasWeight() ? s.getWeight() : Double.NaN;
+				k++;
+			}
+		}
+
+		int neuronCount = topology.size();
+		int topologyBytes = align(HEADER_SIZE + tableBytes) + align(neuronCount * 11);
+		ByteBuffer buffer = ByteBuffer.allocate(topologyBytes).order(ORDER);
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.putShort((short) 0);
+		buffer.putInt(functionNames.size());
+		buffer.putInt(neuronCount);
+		buffer.putInt(synapseCount);
+		buffer.putInt(0);
+		for (byte[] name : functionNames) {
+			buffer.putShort((short) name.length);
+			buffer.put(name);
+		}
+		pad(buffer);
+		for (TopologyBean b : topology) {
+			buffer.putInt(b.getId());
+		}
+		for (TopologyBean b : topology) {
+			buffer.putInt(b.getLayer());
+		}
+		for (TopologyBean b : topology) {
+			buffer.putShort(functionIds.get(b.getFunction()).shortValue());
+		}
+		for (TopologyBean b : topology) {
+			buffer.put((byte) (b.getBias() ? 1 : 0));
+		}
+		pad(buffer);
+
+		ByteBuffer synapseBuffer = ByteBuffer.allocate(synapseCount * 16).order(ORDER);
+		synapseBuffer.asIntBuffer().put(from).put(to);
+		synapseBuffer.position(synapseCount * 8);
+		synapseBuffer.asDoubleBuffer().put(weights);
+		synapseBuffer.position(0);
+
+		buffer.flip();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			FileChannel channel = out.getChannel();
+			ByteBuffer[] buffers = { buffer, synapseBuffer };
+			while (buffer.hasRemaining() || synapseBuffer.hasRemaining()) {
+				channel.write(buffers);
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Maps a file written by {@link #write(NetConfig, File)} into memory and reads the beans
+	 *
+	 * @param file
+	 * @return the beans, ordered by id
+	 * @throws IOException
+	 *             if the file cannot be read or is not a valid snapshot
+	 */
+	public static Model read(final File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			if (size < HEADER_SIZE) {
+				throw new IOException("file is too short for the header: " + file);
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			buffer.order(ORDER);
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("not a binary model file: " + file);
+			}
+			short version = buffer.getShort();
+			if (version != VERSION) {
+				throw new IOException("unsupported version " + version + ": " + file);
+			}
+			buffer.getShort();
+			int functionCount = buffer.getInt();
+			int neuronCount = buffer.getInt();
+			int synapseCount = buffer.getInt();
+			buffer.getInt();
+			if (functionCount < 0 || neuronCount < 0 || synapseCount < 0) {
+				throw new IOException("invalid header: " + file);
+			}
+			try {
+				String[] functions = new String[functionCount];
+				for (int f = 0; f < functionCount; f++) {
+					byte[] name = new byte[buffer.getShort() & 0xFFFF];
+					buffer.get(name);
+					functions[f] = new String(name, CHARSET);
+				}
+				skipPadding(buffer);
+				int[] ids = new int[neuronCount];
+				int[] layers = new int[neuronCount];
+				short[] functionIds = new short[neuronCount];
+				byte[] bias = new byte[neuronCount];
+				getInts(buffer, ids);
+				getInts(buffer, layers);
+				buffer.asShortBuffer().get(functionIds);
+				buffer.position(buffer.position() + neuronCount * 2);
+				buffer.get(bias);
+				skipPadding(buffer);
+				if (buffer.remaining() != (long) synapseCount * 16) {
+					throw new IOException("file size does not match to " + synapseCount + " synapses: " + file);
+				}
+				int[] from = new int[synapseCount];
+				int[] to = new int[synapseCount];
+				double[] weights = new double[synapseCount];
+				getInts(buffer, from);
+				getInts(buffer, to);
+				buffer.asDoubleBuffer().get(weights);
+
+				List<TopologyBean> topology = new ArrayList<TopologyBean>(neuronCount);
+				for (int n = 0; n < neuronCount; n++) {
+					if (functionIds[n] < 0 || functionIds[n] >= functionCount) {
+						throw new IOException("invalid function id " + functionIds[n] + ": " + file);
+					}
+					TopologyBean b = new TopologyBean();
+					b.setId(ids[n]);
+					b.setLayer(layers[n]);
+					b.setFunction(functions[functionIds[n]]);
+					b.setBias(bias[n] != 0);
+					topology.add(b);
+				}
+				List<SynapseBean> synapses = new ArrayList<SynapseBean>(synapseCount);
+				for (int s = 0; s < synapseCount; s++) {
+					SynapseBean b = new SynapseBean();
+					b.setFrom(from[s]);
+					b.setTo(to[s]);
+					b.setValue(weights[s]);
+					b.setRandom(Double.isNaN(weights[s]));
+					synapses.add(b);
+				}
+				return new Model(topology, synapses);
+			} catch (RuntimeException e) {
+				// BufferUnderflowException and IndexOutOfBoundsException of a truncated file
+				throw new IOException("corrupt binary model file: " + file, e);
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static void getInts(final ByteBuffer buffer, final int[] values) {
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + values.length * 4);
+	}
+
+	private static int align(final int bytes) {
+		return (bytes + 7) & ~7;
+	}
+
+	private static void pad(final ByteBuffer buffer) {
+		while ((buffer.position() & 7) != 0) {
+			buffer.put((byte) 0);
+		}
+	}
+
+	private static void skipPadding(final ByteBuffer buffer) {
+		buffer.position(align(buffer.position()));
+	}
+
+}
@@ -0,0 +1,158 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+import de.unikassel.ann.model.DataPairSet;
+
+/**
+ * Compact binary format for training data, little endian:
+ *
+ * <pre>
+ * int    magic      0x4A414E4E, stored little endian like all values, so the file starts with the bytes 'NNAJ'
+ * short  version    1
+ * short  data type  {@link DataType#getCode()}
+ * int    input size
+ * int    ideal size
+ * long   rows
+ * rows * (input size + ideal size) values, each row is the input followed by the ideal values
+ * </pre>
+ *
+ * The file is read with {@link MappedTrainingData}, which maps it into memory instead of parsing it.
+ */
+public class BinaryTrainingRW {
+
+	static final int MAGIC = 0x4A414E4E;
+
+	static final short VERSION = 1;
+
+	static final int HEADER_SIZE = 24;
+
+	static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	/**
+	 * Bytes which are written at once
+	 */
+	private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Type of the stored values
+	 */
+	public enum DataType {
+		FLOAT64(1, 8), FLOAT32(2, 4);
+
+		private final short code;
+		private final int bytes;
+
+		private DataType(final int code, final int bytes) {
+			this.code = (short) code;
+			this.bytes = bytes;
+		}
+
+		public short getCode() {
+			return code;
+		}
+
+		/**
+		 * @return bytes of one value
+		 */
+		public int getBytes() {
+			return bytes;
+		}
+
+		static DataType fromCode(final short code) {
+			for (DataType t : values()) {
+				if (t.code == code) {
+					return t;
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Writes the set with 64 bit values, see {@link #write(DataPairSet, File, DataType)}
+	 */
+	public static void write(final DataPairSet set, final File file) throws IOException {
+		write(set, file, DataType.FLOAT64);
+	}
+
+	/**
+	 * Writes the rows of the set (in the order of a view) into a new file, an existing file is replaced
+	 *
+	 * @param set
+	 * @param file
+	 * @param type
+	 *            FLOAT32 halves the file size but rounds the values
+	 * @throws IOException
+	 */
+	public static void write(final DataPairSet set, final File file, final DataType type) throws IOException {
+		int inputSize = set.getInputSize();
+		int idealSize = set.getIdealSize();
+		int rowBytes = (inputSize + idealSize) * type.getBytes();
+		int rowsPerBuffer = Math.max(1, WRITE_BUFFER_SIZE / Math.max(1, rowBytes));
+		ByteBuffer buffer = ByteBuffer.allocate(Math.max(HEADER_SIZE, rowsPerBuffer * rowBytes)).order(ORDER);
+
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			FileChannel channel = out.getChannel();
+			buffer.putInt(MAGIC);
+			buffer.putShort(VERSION);
+			buffer.putShort(type.getCode());
+			buffer.putInt(inputSize);
+			buffer.putInt(idealSize);
+			buffer.putLong(set.getRows());
+			writeBuffer(channel, buffer);
+
+			double[] input = set.getInputData();
+			double[] ideal = set.getIdealData();
+			for (int r = 0; r < set.getRows(); r++) {
+				if (buffer.remaining() < rowBytes) {
+					writeBuffer(channel, buffer);
+				}
+				put(buffer, input, set.getInputOffset(r), inputSize, type);
+				put(buffer, ideal, set.getIdealOffset(r), idealSize, type);
+			}
+			writeBuffer(channel, buffer);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Maps a file written by {@link #write(DataPairSet, File, DataType)}
+	 */
+	public static MappedTrainingData open(final File file) throws IOException {
+		return new MappedTrainingData(file);
+	}
+
+	private static void put(final ByteBuffer buffer, final double[] data, final int offset, final int length, final DataType type) {
+		if (type == DataType.FLOAT32) {
+			for (int i = 0; i < length; i++) {
+				buffer.putFloat((float) data[offset + i]);
+			}
+		} else {
+			for (int i = 0; i < length; i++) {
+				buffer.putDouble(data[offset + i]);
+			}
+		}
+	}
+
+	private static void writeBuffer(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
@@ -0,0 +1,187 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.io;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Single pass parser for config files with sections:
+ *
+ * <pre>
+ * # comment
+ * #&lt;name
+ * content
+ * #&gt;
+ * </pre>
+ *
+ * The file is streamed once through one buffer. For every section the {@link SectionHandler} gets a reader which ends before the
+ * close tag, so a section can have any size. Lines outside of sections are ignored.
+ */
+public class ConfigSectionParser {
+
+	/**
+	 * Receives the sections in the order of the file
+	 */
+	public interface SectionHandler {
+
+		/**
+		 * @param name
+		 *            text after the open tag, e.g. "training"
+		 * @param content
+		 *            lines of the section without the tags, the part which is not read is skipped afterwards
+		 */
+		void section(String name, Reader content) throws IOException;
+	}
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Reader reader;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int position;
+
+	private int limit;
+
+	private boolean endOfStream;
+
+	public ConfigSectionParser(final Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the whole stream and passes each section to the handler
+	 *
+	 * @param handler
+	 * @throws IOException
+	 *             if the stream cannot be read or the handler fails
+	 */
+	public void parse(final SectionHandler handler) throws IOException {
+		String line;
+		while ((line = readLine()) != null) {
+			if (line.startsWith(NetIO.OPEN_TAG)) {
+				Section section = new Section();
+				handler.section(line.substring(NetIO.OPEN_TAG.length()).trim(), section);
+				section.skipRest();
+			}
+		}
+	}
+
+	/**
+	 * @return next line outside of a section, null at the end of the stream
+	 */
+	private String readLine() throws IOException {
+		StringBuilder sb = null;
+		while (true) {
+			if (position == limit && fill() == false) {
+				return sb == null ? null : trimLineBreak(sb.toString());
+			}
+			for (int i = position; i < limit; i++) {
+				if (buffer[i] == '\n') {
+					String part = new String(buffer, position, i - position);
+					position = i + 1;
+					return trimLineBreak(sb == null ? part : sb.append(part).toString());
+				}
+			}
+			if (sb == null) {
+				sb = new StringBuilder();
+			}
+			sb.append(buffer, position, limit - position);
+			position = limit;
+		}
+	}
+
+	private static String trimLineBreak(final String line) {
+		return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+	}
+
+	/**
+	 * Moves the unread chars to the front and reads more
+	 *
+	 * @return false if no char was read
+	 */
+	private boolean fill() throws IOException {
+		if (endOfStream) {
+			return false;
+		}
+		int count = limit - position;
+		System.arraycopy(buffer, position, buffer, 0, count);
+		position = 0;
+		limit = count;
+		int read = reader.read(buffer, limit, buffer.length - limit);
+		if (read < 0) {
+			endOfStream = true;
+			return false;
+		}
+		limit += read;
+		return true;
+	}
+
+	/**
+	 * Content of one section, reads directly from the buffer of the parser until a line starts with the close tag
+	 */
+	private class Section extends Reader {
+
+		private boolean lineStart = true;
+
+		private boolean ended;
+
+		/**
+		 * Copies as many chars as fit, line by line, up to the close tag. The stream is only read again if nothing was copied yet.
+		 */
+		@Override
+		public int read(final char[] cbuf, final int off, final int len) throws IOException {
+			if (ended) {
+				return -1;
+			}
+			int count = 0;
+			while (count < len) {
+				if (lineStart) {
+					// the tag needs two chars
+					while (count == 0 && limit - position < 2 && fill()) {
+					}
+					if (limit - position < 2 && count > 0) {
+						break;
+					}
+					if (limit - position >= 2 && buffer[position] == '#' && buffer[position + 1] == '>') {
+						ended = true;
+						// the rest of the close tag line does not belong to any section
+						readLine();
+						break;
+					}
+				}
+				if (position == limit && (count > 0 || fill() == false)) {
+					if (count == 0) {
+						ended = true;
+					}
+					break;
+				}
+				int end = Math.min(limit, position + len - count);
+				int next = position;
+				while (next < end && buffer[next++] != '\n') {
+				}
+				lineStart = buffer[next - 1] == '\n';
+				System.arraycopy(buffer, position, cbuf, off + count, next - position);
+				count += next - position;
+				position = next;
+			}
+			return count == 0 && len > 0 ? -1 : count;
+		}
+
+		void skipRest() throws IOException {
+			char[] skip = new char[1024];
+			while (read(skip, 0, skip.length) >= 0) {
+			}
+		}
+
+		@Override
+		public void close() {
+			// the stream belongs to the parser
+		}
+	}
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.io;
+
+/**
+ * Locale independent parser for decimal numbers in a char array, without creating strings.<br>
+ * Point and comma are both accepted as decimal separator. Numbers with at most 18 significant digits and a small exponent are
+ * calculated exactly from a long mantissa and a power of ten (Clinger's fast path), everything else is passed to
+ * {@link Double#parseDouble(String)} so the result is always correctly rounded.<br>
+ * An empty cell and "null" are read as Double.NaN.
+ */
+public final class DoubleParser {
+
+	private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14,
+			1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Mantissas up to 2^53 are exact as double
+	 */
+	private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+	private static final int MAX_DIGITS = 18;
+
+	private DoubleParser() {
+	}
+
+	/**
+	 * @param c
+	 * @param start
+	 *            first char of the number
+	 * @param end
+	 *            end of the number (exclusive), whitespace around the number is ignored
+	 * @return the number
+	 * @throws NumberFormatException
+	 *             if the chars are not a number
+	 */
+	public static double parse(final char[] c, final int start, final int end) {
+		int i = start;
+		int e = end;
+		while (i < e && c[i] <= ' ') {
+			i++;
+		}
+		while (e > i && c[e - 1] <= ' ') {
+			e--;
+		}
+		if (i == e) {
+			return Double.NaN;
+		}
+		int first = i;
+		boolean negative = false;
+		if (c[i] == '-' || c[i] == '+') {
+			negative = c[i] == '-';
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean anyDigit = false;
+		for (; i < e && c[i] >= '0' && c[i] <= '9'; i++) {
+			anyDigit = true;
+			if (mantissa != 0 || c[i] != '0') {
+				if (++digits > MAX_DIGITS) {
+					return parseSlow(c, first, e);
+				}
+				mantissa = mantissa * 10 + (c[i] - '0');
+			}
+		}
+		if (i < e && (c[i] == '.' || c[i] == ',')) {
+			for (i++; i < e && c[i] >= '0' && c[i] <= '9'; i++) {
+				anyDigit = true;
+				if (mantissa != 0 || c[i] != '0') {
+					if (++digits > MAX_DIGITS) {
+						return parseSlow(c, first, e);
+					}
+					mantissa = mantissa * 10 + (c[i] - '0');
+				}
+				exponent--;
+			}
+		}
+		if (anyDigit == false) {
+			return parseSlow(c, first, e);
+		}
+		if (i < e && (c[i] == 'e' || c[i] == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < e && (c[i] == '-' || c[i] == '+')) {
+				negativeExponent = c[i] == '-';
+				i++;
+			}
+			if (i == e) {
+				return parseSlow(c, first, e);
+			}
+			int value = 0;
+			for (; i < e && c[i] >= '0' && c[i] <= '9'; i++) {
+				if (value < 10000) {
+					value = value * 10 + (c[i] - '0');
+				}
+			}
+			exponent += negativeExponent ? -value : value;
+		}
+		if (i != e) {
+			return parseSlow(c, first, e);
+		}
+		double result;
+		if (mantissa == 0) {
+			result = 0.0d;
+		} else if (mantissa <= MAX_EXACT_MANTISSA && exponent >= -22 && exponent <= 22) {
+			result = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+		} else {
+			return parseSlow(c, first, e);
+		}
+		return negative ? -result : result;
+	}
+
+	/**
+	 * {@link #parse(char[], int, int)} for a string
+	 */
+	public static double parse(final String s) {
+		return parse(s.toCharArray(), 0, s.length());
+	}
+
+	private static double parseSlow(final char[] c, final int start, final int end) {
+		String s = new String(c, start, end - start);
+		if ("null".equals(s)) {
+			return Double.NaN;
+		}
+		return Double.parseDouble(s.replace(',', '.'));
+	}
+
+}
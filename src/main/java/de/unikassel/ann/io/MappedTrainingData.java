@@ -0,0 +1,202 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import de.unikassel.ann.io.BinaryTrainingRW.DataType;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.DataPairSource;
+
+/**
+ * Training data of a file in the format of {@link BinaryTrainingRW}, mapped into memory.<br>
+ * Nothing is parsed, the rows are copied from the page cache by {@link #read(int, int, double[], int, double[], int)} (e.g. block by
+ * block for streaming, see {@link de.unikassel.ann.algo.BackPropagation#train(DataPairSource, int)}) or {@link #load()}.
+ * Files larger than 2 GB are mapped in several segments, each holding whole rows.<br>
+ * Reading is thread safe. {@link #close()} closes the file, the mapping itself is released by the garbage collector.
+ */
+public class MappedTrainingData implements DataPairSource, Closeable {
+
+	/**
+	 * Largest segment which can be mapped at once
+	 */
+	private static final long MAX_SEGMENT_BYTES = Integer.MAX_VALUE;
+
+	private final RandomAccessFile file;
+
+	private final DataType type;
+
+	private final int inputSize;
+
+	private final int idealSize;
+
+	private final int rows;
+
+	private final int rowsPerSegment;
+
+	/**
+	 * Mapped rows of each segment, either {@link DoubleBuffer} or {@link FloatBuffer}
+	 */
+	private final Buffer[] segments;
+
+	MappedTrainingData(final File f) throws IOException {
+		file = new RandomAccessFile(f, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(BinaryTrainingRW.HEADER_SIZE).order(BinaryTrainingRW.ORDER);
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					throw new IOException("file is too short for the header: " + f);
+				}
+			}
+			header.flip();
+			if (header.getInt() != BinaryTrainingRW.MAGIC) {
+				throw new IOException("not a binary training data file: " + f);
+			}
+			short version = header.getShort();
+			if (version != BinaryTrainingRW.VERSION) {
+				throw new IOException("unsupported version " + version + ": " + f);
+			}
+			short code = header.getShort();
+			type = DataType.fromCode(code);
+			if (type == null) {
+				throw new IOException("unknown data type " + code + ": " + f);
+			}
+			inputSize = header.getInt();
+			idealSize = header.getInt();
+			long rowCount = header.getLong();
+			if (inputSize < 0 || idealSize < 0 || rowCount < 0 || rowCount > Integer.MAX_VALUE) {
+				throw new IOException("invalid header: " + f);
+			}
+			rows = (int) rowCount;
+
+			long rowBytes = (long) (inputSize + idealSize) * type.getBytes();
+			if (channel.size() != BinaryTrainingRW.HEADER_SIZE + rows * rowBytes) {
+				throw new IOException("file size does not match to " + rows + " rows: " + f);
+			}
+			if (rowBytes > MAX_SEGMENT_BYTES) {
+				throw new IOException("rows are too large to be mapped: " + f);
+			}
+			rowsPerSegment = rowBytes == 0 ? Math.max(1, rows) : (int) Math.min(Math.max(1, rows), MAX_SEGMENT_BYTES / rowBytes);
+			int segmentCount = rows == 0 ? 0 : (rows + rowsPerSegment - 1) / rowsPerSegment;
+			segments = new Buffer[segmentCount];
+			for (int s = 0; s < segmentCount; s++) {
+				int segmentRows = Math.min(rowsPerSegment, rows - s * rowsPerSegment);
+				long position = BinaryTrainingRW.HEADER_SIZE + (long) s * rowsPerSegment * rowBytes;
+				MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, segmentRows * rowBytes);
+				mapped.order(BinaryTrainingRW.ORDER);
+				segments[s] = type == DataType.FLOAT32 ? mapped.asFloatBuffer() : mapped.asDoubleBuffer();
+			}
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Copies rows into row-major arrays
+	 *
+	 * @param from
+	 *            first row
+	 * @param count
+	 *            amount of rows
+	 * @param input
+	 *            receives count * input size values
+	 * @param inputOffset
+	 * @param ideal
+	 *            receives count * ideal size values
+	 * @param idealOffset
+	 */
+	@Override
+	public void read(final int from, final int count, final double[] input, final int inputOffset, final double[] ideal,
+			final int idealOffset) {
+		if (from < 0 || count < 0 || from + count > rows) {
+			throw new IndexOutOfBoundsException("rows " + from + " - " + (from + count) + " for " + rows + " rows");
+		}
+		int rowValues = inputSize + idealSize;
+		int k = 0;
+		while (k < count) {
+			int r = from + k;
+			int s = r / rowsPerSegment;
+			int segmentEnd = (int) Math.min(count, k + ((long) (s + 1) * rowsPerSegment - r));
+			// duplicated, so parallel readers do not share the position
+			if (type == DataType.FLOAT32) {
+				FloatBuffer values = ((FloatBuffer) segments[s]).duplicate();
+				values.position((r % rowsPerSegment) * rowValues);
+				for (; k < segmentEnd; k++) {
+					for (int i = 0; i < inputSize; i++) {
+						input[inputOffset + k * inputSize + i] = values.get();
+					}
+					for (int i = 0; i < idealSize; i++) {
+						ideal[idealOffset + k * idealSize + i] = values.get();
+					}
+				}
+			} else {
+				DoubleBuffer values = ((DoubleBuffer) segments[s]).duplicate();
+				values.position((r % rowsPerSegment) * rowValues);
+				for (; k < segmentEnd; k++) {
+					values.get(input, inputOffset + k * inputSize, inputSize);
+					values.get(ideal, idealOffset + k * idealSize, idealSize);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return all rows in a new set
+	 */
+	public DataPairSet load() {
+		return load(0, rows);
+	}
+
+	/**
+	 * @return rows from (inclusive) until to (exclusive) in a new set
+	 */
+	public DataPairSet load(final int from, final int to) {
+		if (from < 0 || to > rows || from > to) {
+			throw new IndexOutOfBoundsException("range " + from + " - " + to + " for " + rows + " rows");
+		}
+		int count = to - from;
+		double[] input = new double[count * inputSize];
+		double[] ideal = new double[count * idealSize];
+		read(from, count, input, 0, ideal, 0);
+		return new DataPairSet(input, ideal, count, inputSize, idealSize);
+	}
+
+	@Override
+	public int getRows() {
+		return rows;
+	}
+
+	@Override
+	public int getInputSize() {
+		return inputSize;
+	}
+
+	@Override
+	public int getIdealSize() {
+		return idealSize;
+	}
+
+	public DataType getDataType() {
+		return type;
+	}
+
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+
+}
@@ -1,12 +1,13 @@
 package de.unikassel.ann.io;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
@@ -16,10 +17,9 @@ import org.supercsv.cellprocessor.ift.CellProcessor;
 import org.supercsv.prefs.CsvPreference;
 
 import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.io.ConfigSectionParser.SectionHandler;
 import de.unikassel.ann.io.beans.SynapseBean;
 import de.unikassel.ann.io.beans.TopologyBean;
-import de.unikassel.ann.io.beans.TrainingBean;
-import de.unikassel.ann.model.DataPair;
 import de.unikassel.ann.model.DataPairSet;
 
 public class NetIO {
@@ -32,23 +32,27 @@ public class NetIO {
 	public final static String DATASET = "dataset";
 	static Logger log = Logger.getAnonymousLogger();
 
-	static final int MAX_BUFFER_SIZE = 1024 * 1024;
-
 	static CsvPreference pref = new CsvPreference('\"', ';', "\r\n");
 	static String[] header2beanMapping;
 	static CellProcessor[] processor;
 
-	public List<TrainingBean> trainigBeanList = null;
+	public DataPairSet trainingSet = null;
 	public List<TopologyBean> topoBeanList = null;
 	public List<SynapseBean> synapsesBanList = null;
 
 	public void readTraininData(final InputStream inputStream) throws Exception {
 
 		InputStreamReader inputStremReader = new InputStreamReader(inputStream);
-		BufferedReader bufferedReader = new BufferedReader(inputStremReader);
-		trainigBeanList = TrainingRW.readData(bufferedReader);
-		bufferedReader.close();
+		trainingSet = new TrainingCsvReader(inputStremReader).read();
+		inputStremReader.close();
+
+	}
 
+	/**
+	 * Reads a (large) training CSV file with a header line on all processors, see {@link ParallelCsvImporter}
+	 */
+	public void readTrainingFile(final File file) throws IOException {
+		trainingSet = new ParallelCsvImporter().read(file);
 	}
 
 	public void readConfigFile(final File file) throws Exception {
@@ -60,34 +64,41 @@ public class NetIO {
 			log.warning("could not open file " + file);
 			throw e;
 		}
-		final InputStream fileInputStream = new BufferedInputStream(fis);
-
-		if (fileInputStream.markSupported() == false) {
-			log.warning("mark/reset not supported!");
-			System.exit(0);
-		}
-		InputStreamReader inputStremReader = new InputStreamReader(fileInputStream);
-		BufferedReader bufferedReader = new BufferedReader(inputStremReader);
-
-		String line;
-
-		while ((line = bufferedReader.readLine()) != null) {
-			if (line != null && line.startsWith(OPEN_TAG + TRAINING_TAG)) {
-				bufferedReader.mark(MAX_BUFFER_SIZE);
-				trainigBeanList = TrainingRW.readData(bufferedReader);
-				bufferedReader.reset();
-			} else if (line != null && line.startsWith(OPEN_TAG + TOPOLOGY_TAG)) {
-				bufferedReader.mark(MAX_BUFFER_SIZE);
-				topoBeanList = TopologyBeanRW.readData(bufferedReader);
-				bufferedReader.reset();
-			} else if (line != null && line.startsWith(OPEN_TAG + SYNAPSE_TAG)) {
-				bufferedReader.mark(MAX_BUFFER_SIZE);
-				synapsesBanList = SynapseBeanRW.readData(bufferedReader);
-				bufferedReader.reset();
-			}
+		Reader fileReader = new InputStreamReader(fis);
+		try {
+			new ConfigSectionParser(fileReader).parse(new SectionHandler() {
+				@Override
+				public void section(final String name, final Reader content) throws IOException {
+					if (name.startsWith(TRAINING_TAG)) {
+						trainingSet = new TrainingCsvReader(content).read();
+					} else if (name.startsWith(TOPOLOGY_TAG)) {
+						topoBeanList = TopologyBeanRW.readData(new BufferedReader(content));
+					} else if (name.startsWith(SYNAPSE_TAG)) {
+						synapsesBanList = SynapseBeanRW.readData(new BufferedReader(content));
+					}
+				}
+			});
+		} finally {
+			fileReader.close();
 		}
-		bufferedReader.close();
 
+		checkTopology();
+	}
+
+	/**
+	 * Reads a network written by {@link #writeBinaryNet(File, NetConfig)}, use {@link #generateNetwork()} afterwards
+	 */
+	public void readBinaryNet(final File file) throws IOException {
+		BinaryModelRW.Model model = BinaryModelRW.read(file);
+		topoBeanList = model.getTopology();
+		synapsesBanList = model.getSynapses();
+		checkTopology();
+	}
+
+	/**
+	 * Sorts the neurons by id and checks that the ids are 0 to n-1
+	 */
+	private void checkTopology() {
 		if (CollectionUtils.isNotEmpty(topoBeanList)) {
 			Collections.sort(topoBeanList);
 			int firstId = topoBeanList.get(0).getId();
@@ -102,7 +113,6 @@ public class NetIO {
 				}
 			}
 		}
-
 	}
 
 	public NetConfig generateNetwork() {
@@ -129,13 +139,8 @@ public class NetIO {
 	}
 
 	public DataPairSet getTrainingSet() {
-		if (CollectionUtils.isNotEmpty(trainigBeanList)) {
-			DataPairSet set = new DataPairSet();
-			for (TrainingBean b : trainigBeanList) {
-				DataPair pair = new DataPair(b.getInput(), b.getOutput());
-				set.addPair(pair);
-			}
-			return set;
+		if (trainingSet != null && trainingSet.getRows() > 0) {
+			return trainingSet;
 		}
 		return null;
 	}
@@ -144,10 +149,50 @@ public class NetIO {
 		TrainingRW.writeData(dataSet, file, title, training);
 	}
 
+	/**
+	 * Converts the training section (#&lt;training) of a config file into the binary format of {@link BinaryTrainingRW}
+	 *
+	 * @param configFile
+	 * @param binaryFile
+	 * @throws Exception
+	 *             if the file could not be read or contains no training data
+	 */
+	public static void convertTrainingData(final File configFile, final File binaryFile) throws Exception {
+		NetIO io = new NetIO();
+		io.readConfigFile(configFile);
+		DataPairSet set = io.getTrainingSet();
+		if (set == null) {
+			throw new IllegalArgumentException("no training data found in " + configFile);
+		}
+		BinaryTrainingRW.write(set, binaryFile);
+	}
+
+	/**
+	 * Reads a training set written by {@link BinaryTrainingRW}, the file is mapped instead of parsed. All rows are copied into the
+	 * set, large files can be trained from the mapping with {@link BinaryTrainingRW#open(File)} and
+	 * {@link de.unikassel.ann.algo.BackPropagation#train(de.unikassel.ann.model.DataPairSource, int)}.
+	 */
+	public static DataPairSet readBinaryTrainingData(final File binaryFile) throws IOException {
+		MappedTrainingData data = BinaryTrainingRW.open(binaryFile);
+		try {
+			return data.load();
+		} finally {
+			data.close();
+		}
+	}
+
 	public void writeNet(final File file, final String title, final NetConfig netConfig) {
 		TopologyBeanRW.writeData(netConfig, file, title);
 		SynapseBeanRW.writeData(netConfig, file);
 
 	}
 
+	/**
+	 * Writes topology and synapses in the binary format of {@link BinaryModelRW}, which is smaller and faster than
+	 * {@link #writeNet(File, String, NetConfig)}
+	 */
+	public void writeBinaryNet(final File file, final NetConfig netConfig) throws IOException {
+		BinaryModelRW.write(netConfig, file);
+	}
+
 }
@@ -0,0 +1,347 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.DataPairSetBuilder;
+
+/**
+ * Imports a large training CSV file (same format as {@link TrainingCsvReader}) on several threads.<br>
+ * The rows after the header are split into byte ranges which start and end at line breaks. Each range is parsed by a worker into its
+ * own primitive block, afterwards the blocks are copied into one set in the order of the file. Rows after a close tag are ignored.<br>
+ * The encoding has to use single bytes for line breaks and digits (e.g. UTF-8 or ISO-8859-1).
+ */
+public class ParallelCsvImporter {
+
+	/**
+	 * Smallest range of a worker, smaller files are parsed by fewer workers
+	 */
+	static final long MIN_CHUNK_BYTES = 1024 * 1024;
+
+	/**
+	 * Largest range of a worker, so a block does not exceed the size of an array
+	 */
+	static final long MAX_CHUNK_BYTES = 256 * 1024 * 1024;
+
+	private final int threads;
+
+	private final Charset charset;
+
+	private long minChunkBytes = MIN_CHUNK_BYTES;
+
+	/**
+	 * Uses all processors and the default charset
+	 */
+	public ParallelCsvImporter() {
+		this(Runtime.getRuntime().availableProcessors(), Charset.defaultCharset());
+	}
+
+	/**
+	 * @param threads
+	 *            amount of chunks which are parsed at the same time
+	 * @param charset
+	 */
+	public ParallelCsvImporter(final int threads, final Charset charset) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be positive: " + threads);
+		}
+		this.threads = threads;
+		this.charset = charset;
+	}
+
+	/**
+	 * For tests: splits small files into several chunks
+	 */
+	void setMinChunkBytes(final long minChunkBytes) {
+		this.minChunkBytes = minChunkBytes;
+	}
+
+	/**
+	 * @param file
+	 *            CSV file with a header line
+	 * @return the rows, null if the file has no header
+	 * @throws IOException
+	 *             if the file cannot be read or a cell is not a number
+	 */
+	public DataPairSet read(final File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long size = channel.size();
+			long dataStart = findHeaderEnd(channel, size);
+			if (dataStart < 0) {
+				return null;
+			}
+			String header = readString(channel, 0, dataStart);
+			int[] columns = new TrainingCsvReader(new StringReader(header)).readHeader();
+			if (columns == null) {
+				return null;
+			}
+			long[] bounds = split(channel, dataStart, size);
+			List<ChunkParser> chunks = new ArrayList<ChunkParser>(bounds.length - 1);
+			for (int c = 0; c + 1 < bounds.length; c++) {
+				chunks.add(new ChunkParser(channel, bounds[c], bounds[c + 1], columns, charset));
+			}
+			parse(chunks);
+			return stitch(chunks, TrainingCsvReader.inputSize(columns), TrainingCsvReader.idealSize(columns));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * @return boundaries of the chunks, each boundary except the first and the last follows a line break
+	 */
+	private long[] split(final FileChannel channel, final long start, final long end) throws IOException {
+		long length = end - start;
+		long chunkBytes = Math.max(minChunkBytes, (length + threads - 1) / threads);
+		chunkBytes = Math.min(chunkBytes, MAX_CHUNK_BYTES);
+		int count = (int) Math.max(1, (length + chunkBytes - 1) / chunkBytes);
+		long[] bounds = new long[count + 1];
+		bounds[0] = start;
+		bounds[count] = end;
+		for (int c = 1; c < count; c++) {
+			long nominal = start + length * c / count;
+			bounds[c] = Math.max(bounds[c - 1], nextLineStart(channel, nominal, end));
+		}
+		return bounds;
+	}
+
+	private void parse(final List<ChunkParser> chunks) throws IOException {
+		if (threads == 1 || chunks.size() == 1) {
+			for (ChunkParser chunk : chunks) {
+				chunk.call();
+			}
+			return;
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, chunks.size()), new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				Thread t = new Thread(r, "CSV import worker");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>(chunks.size());
+			for (ChunkParser chunk : chunks) {
+				futures.add(pool.submit(chunk));
+			}
+			for (Future<Void> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("import interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IOException("import worker failed", e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Copies the blocks into one set, until the first chunk which contains the close tag. Chunks after it are not part of the
+	 * training data, so their errors are ignored.
+	 */
+	private static DataPairSet stitch(final List<ChunkParser> chunks, final int inputSize, final int idealSize) throws IOException {
+		long total = 0;
+		for (ChunkParser chunk : chunks) {
+			if (chunk.error != null) {
+				throw chunk.error;
+			}
+			total += chunk.rows.getRows();
+			if (chunk.closed) {
+				break;
+			}
+		}
+		if (total * Math.max(inputSize, idealSize) > Integer.MAX_VALUE) {
+			throw new IllegalStateException("too many values for one set: " + total + " rows");
+		}
+		int rows = (int) total;
+		double[] input = new double[rows * inputSize];
+		double[] ideal = new double[rows * idealSize];
+		int row = 0;
+		for (ChunkParser chunk : chunks) {
+			DataPairSet block = chunk.rows;
+			int count = block.getRows();
+			System.arraycopy(block.getInputData(), 0, input, row * inputSize, count * inputSize);
+			System.arraycopy(block.getIdealData(), 0, ideal, row * idealSize, count * idealSize);
+			row += count;
+			if (chunk.closed) {
+				break;
+			}
+		}
+		return new DataPairSet(input, ideal, rows, inputSize, idealSize);
+	}
+
+	/**
+	 * @return position after the line break which ends the first line that is not blank, -1 without such a line
+	 */
+	private static long findHeaderEnd(final FileChannel channel, final long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		boolean content = false;
+		long position = 0;
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				byte b = buffer.get(i);
+				if (b == '\n') {
+					if (content) {
+						return position + i + 1;
+					}
+				} else if (b > ' ' || b < 0) {
+					content = true;
+				}
+			}
+			position += read;
+		}
+		return content ? size : -1;
+	}
+
+	/**
+	 * @return position after the first line break at or after position - 1, the end if there is none
+	 */
+	private static long nextLineStart(final FileChannel channel, final long position, final long end) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long p = position - 1;
+		while (p < end) {
+			buffer.clear();
+			int read = channel.read(buffer, p);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return p + i + 1;
+				}
+			}
+			p += read;
+		}
+		return end;
+	}
+
+	private String readString(final FileChannel channel, final long from, final long to) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, from + buffer.position()) < 0) {
+				throw new IOException("unexpected end of file");
+			}
+		}
+		buffer.flip();
+		return charset.decode(buffer).toString();
+	}
+
+	/**
+	 * Parses the rows of one byte range into its own block
+	 */
+	private static class ChunkParser implements Callable<Void> {
+
+		private final FileChannel channel;
+		private final long from;
+		private final long to;
+		private final int[] columns;
+		private final Charset charset;
+
+		private DataPairSet rows;
+		private boolean closed;
+		private IOException error;
+
+		ChunkParser(final FileChannel channel, final long from, final long to, final int[] columns, final Charset charset) {
+			this.channel = channel;
+			this.from = from;
+			this.to = to;
+			this.columns = columns;
+			this.charset = charset;
+		}
+
+		@Override
+		public Void call() {
+			int inputSize = TrainingCsvReader.inputSize(columns);
+			int idealSize = TrainingCsvReader.idealSize(columns);
+			// a row has at least two chars per value
+			int expectedRows = (int) Math.min(Integer.MAX_VALUE, (to - from) / Math.max(2, 2 * (inputSize + idealSize)));
+			DataPairSetBuilder builder = new DataPairSetBuilder(inputSize, idealSize, Math.min(expectedRows, 1024 * 1024));
+			TrainingCsvReader reader = new TrainingCsvReader(new InputStreamReader(new RangeInputStream(channel, from, to), charset));
+			try {
+				closed = reader.readRows(columns, builder);
+				rows = builder.build();
+			} catch (IOException e) {
+				error = new IOException(e.getMessage() + " of the chunk at byte " + from, e);
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a byte range of the channel with positional reads, so several streams can share the channel
+	 */
+	private static class RangeInputStream extends InputStream {
+
+		private final FileChannel channel;
+		private final long end;
+		private long position;
+		private final ByteBuffer single = ByteBuffer.allocate(1);
+
+		RangeInputStream(final FileChannel channel, final long from, final long to) {
+			this.channel = channel;
+			position = from;
+			end = to;
+		}
+
+		@Override
+		public int read() throws IOException {
+			single.clear();
+			return read(single) < 0 ? -1 : single.get(0) & 0xFF;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			return read(ByteBuffer.wrap(b, off, (int) Math.min(len, Math.max(0, end - position))));
+		}
+
+		private int read(final ByteBuffer buffer) throws IOException {
+			if (position >= end) {
+				return -1;
+			}
+			int count = buffer.remaining();
+			if (count > end - position) {
+				buffer.limit(buffer.position() + (int) (end - position));
+			}
+			int read = channel.read(buffer, position);
+			if (read > 0) {
+				position += read;
+			}
+			return read;
+		}
+	}
+
+}
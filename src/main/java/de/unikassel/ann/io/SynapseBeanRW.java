@@ -94,21 +94,16 @@ public class SynapseBeanRW extends BasicCsvReader {
 		Network net = netConfig.getNetwork();
 
 		SynapseMatrix sm = net.getSynapseMatrix();
-		Synapse[][] fs = sm.getSynapses();
-		if (fs == null) {
-			return list;
-		}
-		for (int i = 0; i < fs.length; i++) {
-			for (int j = 0; j < fs[i].length; j++) {
-				Synapse s = fs[i][j];
-				if (s != null) {
-					SynapseBean b = new SynapseBean();
-					b.setFrom(i);
-					b.setTo(j);
-					b.setRandom(false);
-					b.setValue(s.getWeight());
-					list.add(b);
-				}
+		for (int i = 0; i < sm.getFromSize(); i++) {
+			for (int k = 0; k < sm.getOutDegree(i); k++) {
+				Synapse s = sm.getOutgoingSynapse(i, k);
+				SynapseBean b = new SynapseBean();
+				b.setFrom(i);
+				b.setTo(sm.getOutgoingTarget(i, k));
+				// weights which are not set yet stay random
+				b.setRandom(s.hasWeight() == false);
+				b.setValue(s.getWeight());
+				list.add(b);
 			}
 		}
 		return list;
@@ -88,7 +88,7 @@ public class TopologyBeanRW extends BasicCsvReader {
 
 	}
 
-	private static List<TopologyBean> convertToBeanList(final NetConfig netConfig) {
+	static List<TopologyBean> convertToBeanList(final NetConfig netConfig) {
 		List<TopologyBean> list = new ArrayList<TopologyBean>();
 		Network net = netConfig.getNetwork();
 		if (net.getFlatNet().isEmpty()) {
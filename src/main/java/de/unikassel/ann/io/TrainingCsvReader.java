@@ -0,0 +1,339 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.io;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.DataPairSetBuilder;
+
+/**
+ * Streaming reader for a training or data set section:
+ *
+ * <pre>
+ * i;i;o          (or i0;i1;o0)
+ * 0;0,5;1
+ * ...
+ * #&gt;
+ * </pre>
+ *
+ * The text is read in large chunks into one char buffer, each cell is parsed in place by {@link DoubleParser} and each row is copied
+ * into a {@link DataPairSetBuilder}, so no objects are created per row or cell.<br>
+ * Reading stops at the close tag or the end of the stream. The chars which were read ahead can be continued with
+ * {@link #getRemaining()}.
+ */
+public class TrainingCsvReader {
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	private static final char SEPARATOR = ';';
+
+	private static final char QUOTE = '"';
+
+	/**
+	 * Column which is neither input nor ideal value
+	 */
+	private static final int IGNORED = Integer.MIN_VALUE;
+
+	private final Reader reader;
+
+	private char[] buffer = new char[CHUNK_SIZE];
+
+	/**
+	 * Start of the unread chars
+	 */
+	private int position;
+
+	/**
+	 * End of the valid chars
+	 */
+	private int limit;
+
+	private boolean endOfStream;
+
+	private int lineStart;
+
+	private int lineEnd;
+
+	private int lineNumber;
+
+	public TrainingCsvReader(final Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads the header and all rows until the close tag or the end of the stream
+	 *
+	 * @return the rows, null if the section has no header
+	 * @throws IOException
+	 *             if the stream cannot be read or a cell is not a number
+	 */
+	public DataPairSet read() throws IOException {
+		int[] columns = readHeader();
+		if (columns == null) {
+			return null;
+		}
+		DataPairSetBuilder builder = new DataPairSetBuilder(inputSize(columns), idealSize(columns), 1024);
+		readRows(columns, builder);
+		return builder.build();
+	}
+
+	/**
+	 * @return column targets of the first line which is not blank, null at the close tag or the end of the stream
+	 */
+	int[] readHeader() throws IOException {
+		if (nextContentLine() == false || isCloseTag()) {
+			return null;
+		}
+		return parseHeader();
+	}
+
+	/**
+	 * Adds all rows until the close tag or the end of the stream
+	 *
+	 * @param columns
+	 *            from {@link #readHeader()}
+	 * @param builder
+	 * @return true if reading stopped at the close tag
+	 */
+	boolean readRows(final int[] columns, final DataPairSetBuilder builder) throws IOException {
+		double[] input = new double[inputSize(columns)];
+		double[] ideal = new double[idealSize(columns)];
+		while (nextContentLine()) {
+			if (isCloseTag()) {
+				return true;
+			}
+			int column = 0;
+			int cellStart = lineStart;
+			for (int i = lineStart; i <= lineEnd; i++) {
+				if (i < lineEnd && buffer[i] != SEPARATOR) {
+					continue;
+				}
+				if (column >= columns.length) {
+					throw new IOException("too many cells in line " + lineNumber);
+				}
+				int target = columns[column++];
+				if (target != IGNORED) {
+					double value = parseCell(cellStart, i);
+					if (target >= 0) {
+						input[target] = value;
+					} else {
+						ideal[-target - 1] = value;
+					}
+				}
+				cellStart = i + 1;
+			}
+			if (column != columns.length) {
+				throw new IOException("expected " + columns.length + " cells in line " + lineNumber + " but was " + column);
+			}
+			builder.addRow(input, ideal);
+		}
+		return false;
+	}
+
+	static int inputSize(final int[] columns) {
+		int size = 0;
+		for (int column : columns) {
+			if (column != IGNORED && column >= 0) {
+				size = Math.max(size, column + 1);
+			}
+		}
+		return size;
+	}
+
+	static int idealSize(final int[] columns) {
+		int size = 0;
+		for (int column : columns) {
+			if (column != IGNORED && column < 0) {
+				size = Math.max(size, -column);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return the chars read ahead followed by the rest of the stream
+	 */
+	public Reader getRemaining() throws IOException {
+		int count = limit - position;
+		PushbackReader remaining = new PushbackReader(reader, Math.max(1, count));
+		remaining.unread(buffer, position, count);
+		position = limit;
+		return remaining;
+	}
+
+	/**
+	 * @return column targets: input index, -(ideal index + 1) or {@link #IGNORED}
+	 */
+	private int[] parseHeader() throws IOException {
+		String[] names = new String(buffer, lineStart, lineEnd - lineStart).split(String.valueOf(SEPARATOR), -1);
+		boolean withoutIndex = true;
+		for (int i = 0; i < names.length; i++) {
+			names[i] = unquote(names[i].trim());
+			withoutIndex = withoutIndex && names[i].length() == 1;
+		}
+		int[] columns = new int[names.length];
+		int inputCount = 0;
+		int idealCount = 0;
+		for (int i = 0; i < names.length; i++) {
+			String name = names[i];
+			char type = name.length() == 0 ? ' ' : Character.toLowerCase(name.charAt(0));
+			if (type != 'i' && type != 'o') {
+				columns[i] = IGNORED;
+				continue;
+			}
+			int index;
+			if (withoutIndex) {
+				index = type == 'i' ? inputCount++ : idealCount++;
+			} else {
+				try {
+					index = Integer.parseInt(name.substring(1));
+				} catch (NumberFormatException e) {
+					throw new IOException("invalid column name " + name + " in line " + lineNumber);
+				}
+			}
+			columns[i] = type == 'i' ? index : -index - 1;
+		}
+		if (withoutIndex == false) {
+			rank(columns);
+		}
+		return columns;
+	}
+
+	/**
+	 * Replaces the indices of each type by their rank, e.g. i0;i1;o2 becomes i0;i1;o0
+	 */
+	private void rank(final int[] columns) throws IOException {
+		int[] ranked = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i] == IGNORED) {
+				ranked[i] = IGNORED;
+				continue;
+			}
+			boolean input = columns[i] >= 0;
+			int rank = 0;
+			for (int j = 0; j < columns.length; j++) {
+				if (j == i || columns[j] == IGNORED || columns[j] >= 0 != input) {
+					continue;
+				}
+				if (columns[j] == columns[i]) {
+					throw new IOException("duplicate column in line " + lineNumber);
+				}
+				// ideal values are stored negative
+				if (input ? columns[j] < columns[i] : columns[j] > columns[i]) {
+					rank++;
+				}
+			}
+			ranked[i] = input ? rank : -rank - 1;
+		}
+		System.arraycopy(ranked, 0, columns, 0, columns.length);
+	}
+
+	private double parseCell(final int start, final int end) throws IOException {
+		int s = start;
+		int e = end;
+		while (s < e && buffer[s] <= ' ') {
+			s++;
+		}
+		while (e > s && buffer[e - 1] <= ' ') {
+			e--;
+		}
+		if (e - s >= 2 && buffer[s] == QUOTE && buffer[e - 1] == QUOTE) {
+			s++;
+			e--;
+		}
+		try {
+			return DoubleParser.parse(buffer, s, e);
+		} catch (NumberFormatException ex) {
+			throw new IOException("invalid number " + new String(buffer, s, e - s) + " in line " + lineNumber);
+		}
+	}
+
+	private static String unquote(final String s) {
+		if (s.length() >= 2 && s.charAt(0) == QUOTE && s.charAt(s.length() - 1) == QUOTE) {
+			return s.substring(1, s.length() - 1).trim();
+		}
+		return s;
+	}
+
+	private boolean isCloseTag() {
+		return lineEnd - lineStart >= 2 && buffer[lineStart] == '#' && buffer[lineStart + 1] == '>';
+	}
+
+	/**
+	 * Moves to the next line which is not blank
+	 */
+	private boolean nextContentLine() throws IOException {
+		while (nextLine()) {
+			for (int i = lineStart; i < lineEnd; i++) {
+				if (buffer[i] > ' ') {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Sets {@link #lineStart} and {@link #lineEnd} (without line break) to the next line in the buffer, reads the next chunk if
+	 * needed
+	 *
+	 * @return false at the end of the stream
+	 */
+	private boolean nextLine() throws IOException {
+		int searchFrom = position;
+		while (true) {
+			for (int i = searchFrom; i < limit; i++) {
+				if (buffer[i] == '\n') {
+					setLine(position, i);
+					position = i + 1;
+					return true;
+				}
+			}
+			if (endOfStream) {
+				if (position == limit) {
+					return false;
+				}
+				setLine(position, limit);
+				position = limit;
+				return true;
+			}
+			searchFrom = limit - position;
+			fill();
+		}
+	}
+
+	private void setLine(final int start, final int end) {
+		lineStart = start;
+		lineEnd = end > start && buffer[end - 1] == '\r' ? end - 1 : end;
+		lineNumber++;
+	}
+
+	/**
+	 * Moves the unread chars to the front, grows the buffer for long lines and reads the next chunk
+	 */
+	private void fill() throws IOException {
+		int count = limit - position;
+		if (count == buffer.length) {
+			char[] larger = new char[buffer.length * 2];
+			System.arraycopy(buffer, position, larger, 0, count);
+			buffer = larger;
+		} else {
+			System.arraycopy(buffer, position, buffer, 0, count);
+		}
+		position = 0;
+		limit = count;
+		int read = reader.read(buffer, limit, buffer.length - limit);
+		if (read < 0) {
+			endOfStream = true;
+		} else {
+			limit += read;
+		}
+	}
+
+}
@@ -1,6 +1,5 @@
 package de.unikassel.ann.io;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
@@ -10,9 +9,7 @@ import java.util.List;
 
 import org.supercsv.cellprocessor.ConvertNullTo;
 import org.supercsv.cellprocessor.ift.CellProcessor;
-import org.supercsv.io.CsvBeanReader;
 import org.supercsv.io.CsvBeanWriter;
-import org.supercsv.io.ICsvBeanReader;
 import org.supercsv.io.ICsvBeanWriter;
 
 import de.unikassel.ann.io.beans.TrainingBean;
@@ -38,90 +35,12 @@ public class TrainingRW extends BasicCsvReader {
 	 */
 	public static boolean WRITE_INDEX_IN_HEADER = true;
 
-	public static Class<?> generateBean(final int inputSize, final int outputSize) {
-		String className = null;
-		try {
-			className = DynamicBeanCreator.createAndWriteClass(inputSize, outputSize, null);
-		} catch (FileNotFoundException e1) {
-			e1.printStackTrace();
-		} catch (IOException e1) {
-			e1.printStackTrace();
-		}
-		// load class file
-		ClassLoader classLoader = TrainingRW.class.getClassLoader();
-
-		Class<?> loadedClass = null;
-		try {
-			loadedClass = classLoader.loadClass(className);
-			Object dynamicBean = loadedClass.newInstance();
-			TrainingBean bean = (TrainingBean) dynamicBean;
-			bean.setStaticSize(inputSize, outputSize);
-		} catch (ClassNotFoundException e) {
-			System.err.println("could not load class: " + className);
-			e.printStackTrace();
-		} catch (InstantiationException e) {
-			e.printStackTrace();
-		} catch (IllegalAccessException e) {
-			e.printStackTrace();
-		}
-
-		return loadedClass;
-	}
-
-	public static List<TrainingBean> readData(final BufferedReader bufferedReader) throws Exception {
-
-		final List<TrainingBean> list = new ArrayList<TrainingBean>();
-
-		final ICsvBeanReader reader = new CsvBeanReader(bufferedReader, pref);
-		String[] header2beanMapping = reader.getCSVHeader(true);
-
-		boolean wihtoutIndex = true;
-		for (String s : header2beanMapping) {
-			s = s.trim();
-			wihtoutIndex = wihtoutIndex && s.length() == 1;
-		}
-
-		int inputSize = 0;
-		int outputSize = 0;
-		int index = 0;
-		for (String i_o : header2beanMapping) {
-			if (i_o.charAt(0) == 'i' || i_o.charAt(0) == 'I') {
-				header2beanMapping[index] = wihtoutIndex ? i_o + inputSize : i_o;
-				inputSize++;
-			} else if (i_o.charAt(0) == 'o' || i_o.charAt(0) == 'O') {
-				header2beanMapping[index] = wihtoutIndex ? i_o + outputSize : i_o;
-				outputSize++;
-			}
-			index++;
-		}
-
-		CellProcessor[] processor = new CellProcessor[inputSize + outputSize];
-		for (int i = 0; i < inputSize + outputSize; i++) {
-			processor[i] = new ParseDoubleUni();
-		}
-
-		Class<?> loadedClass = generateBean(inputSize, outputSize);
-		TrainingBean instance;
-
-		try {
-			while ((instance = (TrainingBean) reader.read(loadedClass, header2beanMapping, processor)) != null) {
-				list.add(instance);
-			}
-		} catch (Exception e) {
-			boolean ok = checkEndOfFile(e, bufferedReader);
-			if (ok == false) {
-				throw e;
-			}
-		}
-		return list;
-	}
-
 	public static void writeData(final DataPairSet set, final File f, final String title, final boolean training) {
 
 		List<TrainingBean> traininBeanList = convertToTrainingBeanList(set);
 
-		int inputSize = set.getPairs().get(0).getInput().length;
-		int outputSize = set.getPairs().get(0).getIdeal().length;
+		int inputSize = set.getInputSize();
+		int outputSize = set.getIdealSize();
 		CellProcessor[] processor = new CellProcessor[inputSize + outputSize];
 		String[] header2beanMapping = new String[inputSize + outputSize];
 		String[] header2Write = new String[inputSize + outputSize];
@@ -168,8 +87,8 @@ public class TrainingRW extends BasicCsvReader {
 	}
 
 	private static List<TrainingBean> convertToTrainingBeanList(final DataPairSet set) {
-		int inputSize = set.getPairs().get(0).getInput().length;
-		int outputSize = set.getPairs().get(0).getIdeal().length;
+		int inputSize = set.getInputSize();
+		int outputSize = set.getIdealSize();
 
 		List<TrainingBean> trainingBeanList = new ArrayList<TrainingBean>();
 
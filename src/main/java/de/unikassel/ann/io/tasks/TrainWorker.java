@@ -5,7 +5,7 @@
  */
 package de.unikassel.ann.io.tasks;
 
-import java.util.Collections;
+import java.util.Random;
 
 import javax.swing.SwingWorker;
 
@@ -34,10 +34,12 @@ public class TrainWorker extends SwingWorker<Void, Double> {
 		Main.instance.switchBottomPanel(Panel.TRAINERROR_CHART);
 		Thread.sleep(100);
 		Logger.info(this.getClass(), "training started");
-		Collections.shuffle(trainingData.getPairs());
-		train.train(new DataPairSet(trainingData));
+		// random order through a view, the rows are not copied
+		train.train(trainingData.shuffle(new Random()));
 		Logger.debug(this.getClass(), trainingData.toString());
-		net.getWorkingModule().work(net.getNetwork(), trainingData);
+		// neurons show the values of the last row, working on the training data itself would overwrite its ideal values
+		int rows = trainingData.getRows();
+		net.getWorkingModule().work(net.getNetwork(), new DataPairSet(trainingData.view(rows - 1, rows)));
 
 		return null;
 	}
@@ -0,0 +1,667 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.model;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.unikassel.ann.model.func.ActivationFunction;
+
+/**
+ * Flat view of a layered {@link Network} for the training and working modules.<br>
+ * Each layer gets a contiguous row-major weight matrix, a bias vector and buffers for the values and deltas of its neurons, so forward
+ * and backward passes only touch primitive arrays instead of walking Layer -> Neuron -> Synapse.<br>
+ * Bias neurons are not part of the buffers, their synapses are stored in the bias vector of the next layer.<br>
+ * Synapses which skip layers get extra columns: the input of a layer are the values of the previous layer followed by the skip
+ * sources, see {@link #getInputs(int)}. Without skip synapses the input is the value buffer of the previous layer.<br>
+ * The {@link Synapse} and {@link Neuron} objects are only updated when calling {@link #syncToNetwork()}.
+ *
+ * <pre>
+ * weights[layer][to * inputs[layer].length + from]
+ * biasWeights[layer][to]
+ * </pre>
+ */
+public class CompiledNetwork {
+
+	private final Network network;
+
+	private final int layerCount;
+
+	/**
+	 * Amount of neurons for each layer, ignoring the bias
+	 */
+	private final int[] units;
+
+	/**
+	 * True if the layer contains a bias neuron
+	 */
+	private final boolean[] bias;
+
+	/**
+	 * Incoming weights for each layer, empty for the input layer
+	 */
+	private final double[][] weights;
+
+	/**
+	 * Weights from the bias neuron of the previous layer
+	 */
+	private final double[][] biasWeights;
+
+	/**
+	 * Last weight changes, needed for the momentum
+	 */
+	private final double[][] deltaWeights;
+
+	private final double[][] deltaBiasWeights;
+
+	private final double[][] values;
+
+	/**
+	 * Input of each layer, the values of the previous layer followed by the skip sources
+	 */
+	private final double[][] inputs;
+
+	/**
+	 * Layer and unit of the skip sources of each layer, the unit -1 stands for a bias neuron
+	 */
+	private final int[][] skipLayers;
+
+	private final int[][] skipUnits;
+
+	/**
+	 * Skip columns fed by each layer, as triples of target layer, column and unit
+	 */
+	private final int[][] skipTargets;
+
+	private final double[][] deltas;
+
+	private final ActivationFunction[][] functions;
+
+	/**
+	 * Start index of each run of neurons with the same function class, the last entry is the amount of neurons.<br>
+	 * Each run is evaluated with one call of the array form.
+	 */
+	private final int[][] functionRuns;
+
+	/**
+	 * Buffer for the derivations of the values
+	 */
+	private final double[][] derivatives;
+
+	private final Synapse[][] synapses;
+
+	private final Synapse[][] biasSynapses;
+
+	/**
+	 * Indices of the weight matrix without synapse, they will be kept on zero
+	 */
+	private final int[][] missing;
+
+	private final int[][] missingBias;
+
+	private final Neuron[][] neurons;
+
+	/**
+	 * Creates the flat arrays from the layers and synapses of the network.<br>
+	 * Synapses have to point to a later layer.
+	 *
+	 * @param net
+	 */
+	public CompiledNetwork(final Network net) {
+		if (net.isTrainable() == false) {
+			throw new IllegalArgumentException("net not finalized yet");
+		}
+		network = net;
+		List<Layer> layers = net.getLayers();
+		layerCount = layers.size();
+		units = new int[layerCount];
+		bias = new boolean[layerCount];
+		weights = new double[layerCount][];
+		biasWeights = new double[layerCount][];
+		deltaWeights = new double[layerCount][];
+		deltaBiasWeights = new double[layerCount][];
+		values = new double[layerCount][];
+		deltas = new double[layerCount][];
+		functions = new ActivationFunction[layerCount][];
+		functionRuns = new int[layerCount][];
+		derivatives = new double[layerCount][];
+		synapses = new Synapse[layerCount][];
+		biasSynapses = new Synapse[layerCount][];
+		missing = new int[layerCount][];
+		missingBias = new int[layerCount][];
+		neurons = new Neuron[layerCount][];
+		skipLayers = new int[layerCount][];
+		skipUnits = new int[layerCount][];
+		skipTargets = new int[layerCount][];
+
+		// local index of each neuron inside its layer buffers
+		Map<Neuron, Integer> unitIndex = new IdentityHashMap<Neuron, Integer>();
+		Map<Neuron, Integer> layerIndex = new IdentityHashMap<Neuron, Integer>();
+		for (int l = 0; l < layerCount; l++) {
+			List<Neuron> layerNeurons = new ArrayList<Neuron>();
+			for (Neuron n : layers.get(l).getNeurons()) {
+				layerIndex.put(n, l);
+				if (n.isBias()) {
+					bias[l] = true;
+				} else {
+					unitIndex.put(n, layerNeurons.size());
+					layerNeurons.add(n);
+				}
+			}
+			units[l] = layerNeurons.size();
+			neurons[l] = layerNeurons.toArray(new Neuron[units[l]]);
+			values[l] = new double[units[l]];
+			deltas[l] = new double[units[l]];
+			functions[l] = new ActivationFunction[units[l]];
+			for (int j = 0; j < units[l]; j++) {
+				functions[l][j] = neurons[l][j].getActivationFunction();
+				values[l][j] = neurons[l][j].getValue();
+			}
+			functionRuns[l] = findRuns(functions[l]);
+			derivatives[l] = new double[units[l]];
+		}
+
+		weights[0] = new double[0];
+		biasWeights[0] = new double[0];
+		deltaWeights[0] = new double[0];
+		deltaBiasWeights[0] = new double[0];
+		synapses[0] = new Synapse[0];
+		biasSynapses[0] = new Synapse[0];
+		skipLayers[0] = new int[0];
+		skipUnits[0] = new int[0];
+		List<List<Integer>> targets = new ArrayList<List<Integer>>();
+		for (int l = 0; l < layerCount; l++) {
+			targets.add(new ArrayList<Integer>());
+		}
+		for (int l = 1; l < layerCount; l++) {
+			// one column for each neuron of an earlier layer, in the order of the synapses
+			Map<Neuron, Integer> skipColumn = new IdentityHashMap<Neuron, Integer>();
+			List<Neuron> skipNeurons = new ArrayList<Neuron>();
+			for (int j = 0; j < units[l]; j++) {
+				for (Synapse s : neurons[l][j].getIncomingSynapses()) {
+					Neuron from = s.getFromNeuron();
+					Integer fromLayer = layerIndex.get(from);
+					if (fromLayer == null || fromLayer >= l) {
+						throw new IllegalArgumentException("synapse does not point to a later layer: " + s);
+					}
+					if (fromLayer < l - 1 && skipColumn.containsKey(from) == false) {
+						skipColumn.put(from, units[l - 1] + skipNeurons.size());
+						skipNeurons.add(from);
+					}
+				}
+			}
+			skipLayers[l] = new int[skipNeurons.size()];
+			skipUnits[l] = new int[skipNeurons.size()];
+			for (int k = 0; k < skipNeurons.size(); k++) {
+				Neuron from = skipNeurons.get(k);
+				skipLayers[l][k] = layerIndex.get(from);
+				skipUnits[l][k] = from.isBias() ? -1 : unitIndex.get(from);
+				if (from.isBias() == false) {
+					List<Integer> t = targets.get(skipLayers[l][k]);
+					t.add(l);
+					t.add(units[l - 1] + k);
+					t.add(skipUnits[l][k]);
+				}
+			}
+			int fromSize = units[l - 1] + skipNeurons.size();
+
+			weights[l] = new double[units[l] * fromSize];
+			deltaWeights[l] = new double[weights[l].length];
+			synapses[l] = new Synapse[weights[l].length];
+			biasWeights[l] = new double[units[l]];
+			deltaBiasWeights[l] = new double[units[l]];
+			biasSynapses[l] = new Synapse[units[l]];
+
+			for (int j = 0; j < units[l]; j++) {
+				for (Synapse s : neurons[l][j].getIncomingSynapses()) {
+					Neuron from = s.getFromNeuron();
+					double weight = s.hasWeight() ? s.getWeight() : 0.0d;
+					double deltaWeight = s.getDeltaWeight();
+					if (layerIndex.get(from) < l - 1) {
+						int index = j * fromSize + skipColumn.get(from);
+						weights[l][index] = weight;
+						deltaWeights[l][index] = deltaWeight;
+						synapses[l][index] = s;
+					} else if (from.isBias()) {
+						biasWeights[l][j] = weight;
+						deltaBiasWeights[l][j] = deltaWeight;
+						biasSynapses[l][j] = s;
+					} else {
+						int index = j * fromSize + unitIndex.get(from);
+						weights[l][index] = weight;
+						deltaWeights[l][index] = deltaWeight;
+						synapses[l][index] = s;
+					}
+				}
+			}
+			missing[l] = findMissing(synapses[l]);
+			missingBias[l] = findMissing(biasSynapses[l]);
+		}
+		missing[0] = new int[0];
+		missingBias[0] = new int[0];
+		for (int l = 0; l < layerCount; l++) {
+			List<Integer> t = targets.get(l);
+			skipTargets[l] = new int[t.size()];
+			for (int k = 0; k < t.size(); k++) {
+				skipTargets[l][k] = t.get(k);
+			}
+		}
+		inputs = createInputs();
+	}
+
+	/**
+	 * Shares the weights with the given network, but has its own values and deltas
+	 */
+	private CompiledNetwork(final CompiledNetwork shared) {
+		network = shared.network;
+		layerCount = shared.layerCount;
+		units = shared.units;
+		bias = shared.bias;
+		weights = shared.weights;
+		biasWeights = shared.biasWeights;
+		deltaWeights = shared.deltaWeights;
+		deltaBiasWeights = shared.deltaBiasWeights;
+		functions = shared.functions;
+		functionRuns = shared.functionRuns;
+		synapses = shared.synapses;
+		biasSynapses = shared.biasSynapses;
+		missing = shared.missing;
+		missingBias = shared.missingBias;
+		neurons = shared.neurons;
+		skipLayers = shared.skipLayers;
+		skipUnits = shared.skipUnits;
+		skipTargets = shared.skipTargets;
+		values = new double[layerCount][];
+		deltas = new double[layerCount][];
+		derivatives = new double[layerCount][];
+		for (int l = 0; l < layerCount; l++) {
+			values[l] = new double[units[l]];
+			deltas[l] = new double[units[l]];
+			derivatives[l] = new double[units[l]];
+		}
+		inputs = createInputs();
+	}
+
+	/**
+	 * @return the value buffer of the previous layer for layers without skip sources, own buffers for the others
+	 */
+	private double[][] createInputs() {
+		double[][] result = new double[layerCount][];
+		result[0] = new double[0];
+		for (int l = 1; l < layerCount; l++) {
+			result[l] = skipUnits[l].length == 0 ? values[l - 1] : new double[units[l - 1] + skipUnits[l].length];
+		}
+		return result;
+	}
+
+	/**
+	 * Creates a view for another thread, which shares the weights with this network but has its own values and deltas
+	 *
+	 * @return
+	 */
+	public CompiledNetwork createView() {
+		return new CompiledNetwork(this);
+	}
+
+	private static int[] findRuns(final ActivationFunction[] f) {
+		List<Integer> starts = new ArrayList<Integer>();
+		for (int j = 0; j < f.length; j++) {
+			if (j == 0 || f[j].getClass() != f[j - 1].getClass()) {
+				starts.add(j);
+			}
+		}
+		int[] runs = new int[starts.size() + 1];
+		for (int i = 0; i < starts.size(); i++) {
+			runs[i] = starts.get(i);
+		}
+		runs[starts.size()] = f.length;
+		return runs;
+	}
+
+	private static int[] findMissing(final Synapse[] synapseArray) {
+		int count = 0;
+		for (Synapse s : synapseArray) {
+			if (s == null) {
+				count++;
+			}
+		}
+		int[] result = new int[count];
+		count = 0;
+		for (int i = 0; i < synapseArray.length; i++) {
+			if (synapseArray[i] == null) {
+				result[count++] = i;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sets the values of the input layer.<br>
+	 * Lenght of array must match to input layer neuron count (ignoring bias)!
+	 *
+	 * @param input
+	 */
+	public void setInput(final Double[] input) {
+		double[] in = values[0];
+		if (input.length != in.length) {
+			throw new IllegalArgumentException("input layer count != input.lenght");
+		}
+		for (int i = 0; i < in.length; i++) {
+			in[i] = input[i];
+		}
+	}
+
+	/**
+	 * Copies the input values from a row-major array
+	 *
+	 * @param data
+	 * @param offset
+	 *            start of the row, input size values are read
+	 */
+	public void setInput(final double[] data, final int offset) {
+		double[] in = values[0];
+		if (offset < 0 || offset + in.length > data.length) {
+			throw new IllegalArgumentException("input row is out of the data array");
+		}
+		System.arraycopy(data, offset, in, 0, in.length);
+	}
+
+	/**
+	 * Calculates the values of all layers with the current input values
+	 */
+	public void forward() {
+		for (int l = 1; l < layerCount; l++) {
+			forward(l);
+		}
+	}
+
+	/**
+	 * {@link #setInput(Double[])} and {@link #forward()}
+	 */
+	public void forward(final Double[] input) {
+		setInput(input);
+		forward();
+	}
+
+	/**
+	 * {@link #setInput(double[], int)} and {@link #forward()}
+	 */
+	public void forward(final double[] data, final int offset) {
+		setInput(data, offset);
+		forward();
+	}
+
+	private void forward(final int l) {
+		final double[] w = weights[l];
+		final double[] b = biasWeights[l];
+		final double[] in = inputs[l];
+		if (in != values[l - 1]) {
+			gatherInputs(l);
+		}
+		final double[] out = values[l];
+		final boolean withBias = bias[l - 1];
+		final int fromSize = in.length;
+		for (int j = 0; j < out.length; j++) {
+			double sum = withBias ? b[j] : 0.0d;
+			int offset = j * fromSize;
+			for (int i = 0; i < fromSize; i++) {
+				sum += w[offset + i] * in[i];
+			}
+			out[j] = sum;
+		}
+		activate(l, out, 0);
+	}
+
+	/**
+	 * Copies the values of the previous layer and the skip sources into the input of a layer
+	 */
+	private void gatherInputs(final int l) {
+		double[] in = inputs[l];
+		int previous = units[l - 1];
+		System.arraycopy(values[l - 1], 0, in, 0, previous);
+		for (int k = 0; k < skipUnits[l].length; k++) {
+			int unit = skipUnits[l][k];
+			in[previous + k] = unit < 0 ? 1.0d : values[skipLayers[l][k]][unit];
+		}
+	}
+
+	/**
+	 * Adds the deltas of the later layers, weighted by the skip synapses, to the error sums of a layer. The deltas of the later
+	 * layers have to be calculated before.
+	 *
+	 * @param l
+	 *            layer index
+	 * @param sums
+	 *            error sums of the neurons of the layer
+	 */
+	public void addSkipErrors(final int l, final double[] sums) {
+		final int[] t = skipTargets[l];
+		for (int k = 0; k < t.length; k += 3) {
+			int target = t[k];
+			int column = t[k + 1];
+			double[] w = weights[target];
+			double[] d = deltas[target];
+			int fromSize = inputs[target].length;
+			double sum = 0.0d;
+			for (int j = 0; j < d.length; j++) {
+				sum += w[j * fromSize + column] * d[j];
+			}
+			sums[t[k + 2]] += sum;
+		}
+	}
+
+	/**
+	 * Applies the activation functions of a layer in place
+	 *
+	 * @param l
+	 *            layer index
+	 * @param buffer
+	 *            weighted sums of the neurons, replaced by their values
+	 * @param offset
+	 *            index of the first neuron inside the buffer
+	 */
+	public void activate(final int l, final double[] buffer, final int offset) {
+		final ActivationFunction[] f = functions[l];
+		final int[] runs = functionRuns[l];
+		for (int r = 0; r < runs.length - 1; r++) {
+			f[runs[r]].activate(buffer, buffer, offset + runs[r], offset + runs[r + 1]);
+		}
+	}
+
+	/**
+	 * Calculates the derivations of the current values of a layer
+	 *
+	 * @param l
+	 *            layer index
+	 * @return buffer with the derivations, overwritten by the next call for this layer
+	 */
+	public double[] derivate(final int l) {
+		final ActivationFunction[] f = functions[l];
+		final int[] runs = functionRuns[l];
+		final double[] d = derivatives[l];
+		for (int r = 0; r < runs.length - 1; r++) {
+			f[runs[r]].derivate(values[l], d, runs[r], runs[r + 1]);
+		}
+		return d;
+	}
+
+	/**
+	 * Copies the values of the output layer into the given array
+	 *
+	 * @param output
+	 */
+	public void readOutput(final Double[] output) {
+		double[] out = values[layerCount - 1];
+		if (output.length != out.length) {
+			throw new IllegalArgumentException("output layer count != ouput.length");
+		}
+		for (int i = 0; i < out.length; i++) {
+			output[i] = out[i];
+		}
+	}
+
+	/**
+	 * Resets the weights without synapse back to zero, should be called after updating the weights of a layer
+	 *
+	 * @param l
+	 *            layer index
+	 */
+	public void clearMissing(final int l) {
+		for (int i : missing[l]) {
+			weights[l][i] = 0.0d;
+			deltaWeights[l][i] = 0.0d;
+		}
+		for (int i : missingBias[l]) {
+			biasWeights[l][i] = 0.0d;
+			deltaBiasWeights[l][i] = 0.0d;
+		}
+	}
+
+	/**
+	 * @return new zero array for each layer with the same shape as the weight matrices
+	 */
+	public double[][] createWeightBuffer() {
+		double[][] buffer = new double[layerCount][];
+		for (int l = 0; l < layerCount; l++) {
+			buffer[l] = new double[weights[l].length];
+		}
+		return buffer;
+	}
+
+	/**
+	 * @return new zero array for each layer with the same shape as the bias vectors
+	 */
+	public double[][] createBiasBuffer() {
+		double[][] buffer = new double[layerCount][];
+		for (int l = 0; l < layerCount; l++) {
+			buffer[l] = new double[biasWeights[l].length];
+		}
+		return buffer;
+	}
+
+	/**
+	 * Writes the weights back to the synapses and the values back to the neurons.<br>
+	 * Needed before repainting the graph or exporting the net.
+	 */
+	public void syncToNetwork() {
+		syncWeights();
+		syncValues();
+	}
+
+	/**
+	 * Writes the weights and the last weight changes back to the synapses
+	 */
+	public void syncWeights() {
+		for (int l = 1; l < layerCount; l++) {
+			Synapse[] s = synapses[l];
+			for (int i = 0; i < s.length; i++) {
+				if (s[i] != null) {
+					s[i].setWeight(weights[l][i]);
+					s[i].setDeltaWeight(deltaWeights[l][i]);
+				}
+			}
+			Synapse[] bs = biasSynapses[l];
+			for (int j = 0; j < bs.length; j++) {
+				if (bs[j] != null) {
+					bs[j].setWeight(biasWeights[l][j]);
+					bs[j].setDeltaWeight(deltaBiasWeights[l][j]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the values of the last forward pass back to the neurons
+	 */
+	public void syncValues() {
+		for (int l = 0; l < layerCount; l++) {
+			for (int j = 0; j < units[l]; j++) {
+				neurons[l][j].setValue(values[l][j]);
+			}
+		}
+	}
+
+	public Network getNetwork() {
+		return network;
+	}
+
+	public int getLayerCount() {
+		return layerCount;
+	}
+
+	/**
+	 * @return amount of neurons of the layer, ignoring the bias
+	 */
+	public int getUnits(final int l) {
+		return units[l];
+	}
+
+	public boolean hasBias(final int l) {
+		return bias[l];
+	}
+
+	public int getInputSize() {
+		return units[0];
+	}
+
+	public int getOutputSize() {
+		return units[layerCount - 1];
+	}
+
+	public double[] getWeights(final int l) {
+		return weights[l];
+	}
+
+	public double[] getBiasWeights(final int l) {
+		return biasWeights[l];
+	}
+
+	public double[] getDeltaWeights(final int l) {
+		return deltaWeights[l];
+	}
+
+	public double[] getDeltaBiasWeights(final int l) {
+		return deltaBiasWeights[l];
+	}
+
+	public double[] getValues(final int l) {
+		return values[l];
+	}
+
+	/**
+	 * @return input of the layer after the last forward pass, one value per column of the weight matrix
+	 */
+	public double[] getInputs(final int l) {
+		return inputs[l];
+	}
+
+	/**
+	 * @return true if a synapse skips a layer
+	 */
+	public boolean hasSkipSynapses() {
+		for (int l = 1; l < layerCount; l++) {
+			if (skipUnits[l].length > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public double[] getOutput() {
+		return values[layerCount - 1];
+	}
+
+	public double[] getDeltas(final int l) {
+		return deltas[l];
+	}
+
+	public ActivationFunction[] getFunctions(final int l) {
+		return functions[l];
+	}
+
+}
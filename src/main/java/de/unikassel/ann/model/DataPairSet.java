@@ -3,7 +3,9 @@ package de.unikassel.ann.model;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.lang.ArrayUtils;
 
@@ -15,24 +17,60 @@ import de.unikassel.ann.controller.Settings;
  *         Klasse um ein Datensatz von Ein- und Ausgaben für das KNN zu strukturieren.<br>
  *         Kann sowohl für als Trainingdata set, als auch als Testdata set verwendet werden.<br>
  *         Anzahl an Eingabe- und Ausgabedaten bzw. Datensätzen (äußere Dimension) muss gleich sein.<br>
- *         Die innere Dimension (Anzahl der Neuronen) kann sich unterscheiden
+ *         Die innere Dimension (Anzahl der Neuronen) kann sich unterscheiden<br>
+ *         Die Werte liegen zeilenweise in zwei primitiven Arrays mit fester Zeilenlänge. Trainings- und Arbeitsmodule lesen diese über
+ *         {@link #getInputData()}, {@link #getIdealData()} oder {@link #getInputRow(int)} ohne Kopie, die Methoden mit Double
+ *         (z.B. {@link #getInput()}) liefern Kopien für die GUI.<br>
+ *         Sichten ({@link #view(int, int)}, {@link #shuffle(Random)}, {@link #split(double...)}, {@link #fold(int, int)}) teilen sich
+ *         die Arrays mit dieser Instanz, Änderungen der Werte sind in beiden sichtbar. Später hinzugefügte Zeilen sind in bestehenden
+ *         Sichten nicht sichtbar, zu Sichten können keine Zeilen hinzugefügt werden.
  * 
  */
 public class DataPairSet {
 
+	private static final int INITIAL_CAPACITY = 16;
+
+	/**
+	 * Eingaben für das KNN, zeilenweise hintereinander<br>
+	 * Zeile r beginnt bei r * {@link #inputSize}
+	 */
+	private double[] input = new double[0];
+
+	/**
+	 * Ausgaben für das KNN, zeilenweise hintereinander<br>
+	 * Zeile r beginnt bei r * {@link #idealSize}
+	 */
+	private double[] ideal = new double[0];
+
 	/**
-	 * Eingaben für das KNN<br>
-	 * Äußere Dimension entspricht einem Datensatz<br>
-	 * Innere Dimension entspricht einer Neuronenzuordnung
+	 * Länge einer Eingabezeile, -1 solange noch keine Zeile hinzugefügt wurde
 	 */
-	private Double[][] input;
+	private int inputSize = -1;
 
 	/**
-	 * Ausgaben für das KNN<br>
-	 * Äußere Dimension entspricht einem Datensatz<br>
-	 * Innere Dimension entspricht einer Neuronenzuordnung
+	 * Länge einer Ausgabezeile, -1 solange noch keine Zeile hinzugefügt wurde
 	 */
-	private Double[][] ideal;
+	private int idealSize = -1;
+
+	/**
+	 * Anzahl der Datensätze, die Arrays können größer sein
+	 */
+	private int rows;
+
+	/**
+	 * Erste Zeile in den Arrays (bzw. in {@link #rowIndex}), nur bei Sichten ungleich 0
+	 */
+	private int rowStart;
+
+	/**
+	 * Zeilennummern in den Arrays bei gemischten oder ausgewählten Sichten, null wenn die Zeilen hintereinander liegen
+	 */
+	private int[] rowIndex;
+
+	/**
+	 * true wenn die Arrays mit einer anderen Instanz geteilt werden
+	 */
+	private boolean view;
 
 	/**
 	 * Erzeugt eine neue Instanz von Datensätzen für Ein- und Ausgaben<br>
@@ -43,48 +81,86 @@ public class DataPairSet {
 	 */
 	public DataPairSet(final Double[][] input, final Double[][] ideal) {
 		if (isNotEmptyNested(input, ideal) && sameOuterSize(input, ideal)) {
-			this.input = input;
-			this.ideal = ideal;
+			DataPairSetBuilder builder = new DataPairSetBuilder(input[0].length, ideal[0].length, input.length);
+			for (int i = 0; i < input.length; i++) {
+				builder.addRow(input[i], ideal[i]);
+			}
+			adopt(builder.build());
 		} else {
 			System.err.println("could not set empty data");
 		}
 	}
 
-	// not tested
-	// public DataPairSet(final List<DataPair> pairs) {
-	// int i = 0;
-	// int rows = pairs.size();
-	// input = new Double[rows][0];
-	// ideal = new Double[rows][0];
-	//
-	// for (DataPair p : pairs) {
-	// input[i] = p.getInput();
-	// ideal[i] = p.getIdeal();
-	// i++;
-	// }
-	// }
-
 	public DataPairSet() {
 	}
 
+	/**
+	 * Empty set with fixed row sizes
+	 * 
+	 * @param inputSize
+	 * @param idealSize
+	 */
+	public DataPairSet(final int inputSize, final int idealSize) {
+		if (inputSize < 0 || idealSize < 0) {
+			throw new IllegalArgumentException("row size cannot be negative");
+		}
+		this.inputSize = inputSize;
+		this.idealSize = idealSize;
+	}
+
+	/**
+	 * Wraps row-major arrays without copying them
+	 * 
+	 * @param input
+	 *            at least rows * inputSize values
+	 * @param ideal
+	 *            at least rows * idealSize values
+	 * @param rows
+	 * @param inputSize
+	 * @param idealSize
+	 */
+	public DataPairSet(final double[] input, final double[] ideal, final int rows, final int inputSize, final int idealSize) {
+		this(inputSize, idealSize);
+		if (rows < 0 || input.length < rows * inputSize || ideal.length < rows * idealSize) {
+			throw new IllegalArgumentException("arrays are too small for " + rows + " rows");
+		}
+		this.input = input;
+		this.ideal = ideal;
+		this.rows = rows;
+	}
+
+	/**
+	 * Deep copy, the rows of a view are copied in their order
+	 */
 	public DataPairSet(final DataPairSet copy) {
-		if (copy == null || ArrayUtils.isEmpty(copy.ideal) || ArrayUtils.isEmpty(copy.input)) {
+		if (copy == null || copy.rows == 0) {
 			throw new NullPointerException("dataset cannot be null");
 		}
-		input = new Double[copy.input.length][copy.input[0].length];
-		ideal = new Double[copy.ideal.length][copy.ideal[0].length];
-		for (int i = 0; i < copy.input.length; i++) {
-			for (int j = 0; j < copy.input[i].length; j++) {
-				input[i][j] = copy.input[i][j];
-			}
-		}
-		for (int i = 0; i < copy.ideal.length; i++) {
-			for (int j = 0; j < copy.ideal[i].length; j++) {
-				ideal[i][j] = copy.ideal[i][j];
-			}
+		inputSize = copy.inputSize;
+		idealSize = copy.idealSize;
+		rows = copy.rows;
+		input = new double[rows * inputSize];
+		ideal = new double[rows * idealSize];
+		for (int r = 0; r < rows; r++) {
+			System.arraycopy(copy.input, copy.getInputOffset(r), input, r * inputSize, inputSize);
+			System.arraycopy(copy.ideal, copy.getIdealOffset(r), ideal, r * idealSize, idealSize);
 		}
 	}
 
+	/**
+	 * View on the arrays of another set
+	 */
+	private DataPairSet(final DataPairSet source, final int rowStart, final int rows, final int[] rowIndex) {
+		input = source.input;
+		ideal = source.ideal;
+		inputSize = source.inputSize;
+		idealSize = source.idealSize;
+		this.rowStart = rowStart;
+		this.rows = rows;
+		this.rowIndex = rowIndex;
+		view = true;
+	}
+
 	/**
 	 * Fügt zu den bestehenden Datensätzen neue hinzu<br>
 	 * Arrrays müssen außen gleich lang und nicht nicht leer sein<br>
@@ -95,15 +171,17 @@ public class DataPairSet {
 	public void addRows(final Double[][] inputRows, final Double[][] idealRows) {
 		if (sameOuterSize(inputRows, idealRows)) {
 			if (isNotEmptyNested(inputRows, idealRows)) {
-				if (sameSize(inputRows[0], idealRows[0])) {
-					input = (Double[][]) ArrayUtils.addAll(input, inputRows);
-					ideal = (Double[][]) ArrayUtils.addAll(ideal, idealRows);
+				if (sameSize(inputRows[0].length, idealRows[0].length)) {
+					checkNotView();
+					inputSize = inputRows[0].length;
+					idealSize = idealRows[0].length;
+					ensureCapacity(rows + inputRows.length);
+					for (int i = 0; i < inputRows.length; i++) {
+						addRow(inputRows[i], idealRows[i]);
+					}
 				} else {
 					throw new IllegalArgumentException("inner array size does not match to");
 				}
-			} else {
-				input = inputRows;
-				ideal = idealRows;
 			}
 		} else {
 			throw new IllegalArgumentException("size of input and ideal must be equal");
@@ -111,17 +189,17 @@ public class DataPairSet {
 	}
 
 	/**
-	 * Fügt einzelnen Datensatz zu den bisherigen hinzu
+	 * Fügt einzelnen Datensatz zu den bisherigen hinzu, null wird als Double.NaN gespeichert
 	 * 
 	 * @param inputRow
 	 * @param idealRow
 	 */
 	public void addRow(final Double[] inputRow, final Double[] idealRow) {
-		if (sameSize(inputRow, idealRow)) {
-			input = (Double[][]) ArrayUtils.add(input, inputRow);
-			ideal = (Double[][]) ArrayUtils.add(ideal, idealRow);
+		if (sameSize(inputRow.length, idealRow.length)) {
+			int row = appendRow(inputRow.length, idealRow.length);
+			DataPairSetBuilder.unbox(inputRow, 0, input, row * inputSize, inputSize);
+			DataPairSetBuilder.unbox(idealRow, 0, ideal, row * idealSize, idealSize);
 		}
-
 	}
 
 	/**
@@ -134,27 +212,258 @@ public class DataPairSet {
 	}
 
 	/**
-	 * @return Äußere Länge von {@link #input} bzw. {@link #ideal}
+	 * Copies one row to the end of the set
+	 * 
+	 * @param inputRow
+	 * @param idealRow
 	 */
-	public Integer getRows() {
-		if (input.length == ideal.length) {
-			return input.length;
+	public void addRow(final double[] inputRow, final double[] idealRow) {
+		if (sameSize(inputRow.length, idealRow.length) == false) {
+			throw new IllegalArgumentException("row size does not match to the set");
 		}
-		throw new IllegalAccessError("input and ideal size is different");
+		addRow(inputRow, 0, idealRow, 0);
 	}
 
-	public Double[][] getInput() {
+	/**
+	 * Copies one row from row-major arrays to the end of the set
+	 * 
+	 * @param inputData
+	 * @param inputOffset
+	 *            start of the input row, {@link #getInputSize()} values are read
+	 * @param idealData
+	 * @param idealOffset
+	 *            start of the ideal row, {@link #getIdealSize()} values are read
+	 */
+	public void addRow(final double[] inputData, final int inputOffset, final double[] idealData, final int idealOffset) {
+		int inSize = inputSize < 0 ? inputData.length - inputOffset : inputSize;
+		int outSize = idealSize < 0 ? idealData.length - idealOffset : idealSize;
+		if (inputOffset < 0 || idealOffset < 0 || inputOffset + inSize > inputData.length || idealOffset + outSize > idealData.length) {
+			throw new IllegalArgumentException("row is out of the data array");
+		}
+		int row = appendRow(inSize, outSize);
+		System.arraycopy(inputData, inputOffset, input, row * inputSize, inputSize);
+		System.arraycopy(idealData, idealOffset, ideal, row * idealSize, idealSize);
+	}
+
+	/**
+	 * @return Anzahl der Datensätze
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return length of one input row, 0 for an empty set without fixed size
+	 */
+	public int getInputSize() {
+		return Math.max(inputSize, 0);
+	}
+
+	/**
+	 * @return length of one ideal row, 0 for an empty set without fixed size
+	 */
+	public int getIdealSize() {
+		return Math.max(idealSize, 0);
+	}
+
+	/**
+	 * Backing array of the inputs, row r starts at {@link #getInputOffset(int)}. The array may contain more rows than this set (unused
+	 * capacity or rows outside of a view), it is replaced when the set grows.
+	 */
+	public double[] getInputData() {
 		return input;
 	}
 
-	public Double[][] getIdeal() {
+	/**
+	 * Backing array of the ideal values, row r starts at {@link #getIdealOffset(int)}
+	 * 
+	 * @see #getInputData()
+	 */
+	public double[] getIdealData() {
 		return ideal;
 	}
 
+	/**
+	 * @return start of the input row in {@link #getInputData()}
+	 */
+	public int getInputOffset(final int row) {
+		return physicalRow(row) * inputSize;
+	}
+
+	/**
+	 * @return start of the ideal row in {@link #getIdealData()}
+	 */
+	public int getIdealOffset(final int row) {
+		return physicalRow(row) * idealSize;
+	}
+
+	/**
+	 * @return true if the rows lie one after another in the arrays, starting at {@link #getInputOffset(int)} of row 0
+	 */
+	public boolean isContiguous() {
+		return rowIndex == null;
+	}
+
+	/**
+	 * @return true if this set shares its arrays with another set
+	 */
+	public boolean isView() {
+		return view;
+	}
+
+	/**
+	 * View of the rows from (inclusive) until to (exclusive), sharing the arrays of this set
+	 */
+	public DataPairSet view(final int from, final int to) {
+		if (from < 0 || to > rows || from > to) {
+			throw new IndexOutOfBoundsException("range " + from + " - " + to + " for " + rows + " rows");
+		}
+		return new DataPairSet(this, rowStart + from, to - from, rowIndex);
+	}
+
+	/**
+	 * View of the given rows in the given order, sharing the arrays of this set
+	 * 
+	 * @param rowNumbers
+	 *            rows of this set
+	 */
+	public DataPairSet select(final int[] rowNumbers) {
+		int[] index = new int[rowNumbers.length];
+		for (int i = 0; i < index.length; i++) {
+			checkRow(rowNumbers[i]);
+			index[i] = physicalRow(rowNumbers[i]);
+		}
+		return new DataPairSet(this, 0, index.length, index);
+	}
+
+	/**
+	 * View with a random order of the rows (Fisher-Yates), only the row numbers are stored
+	 */
+	public DataPairSet shuffle(final Random random) {
+		int[] index = new int[rows];
+		for (int r = 0; r < rows; r++) {
+			index[r] = physicalRow(r);
+		}
+		for (int i = index.length - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = index[i];
+			index[i] = index[j];
+			index[j] = tmp;
+		}
+		return new DataPairSet(this, 0, rows, index);
+	}
+
+	/**
+	 * Splits the rows into consecutive views, e.g. split(0.7, 0.15) returns training, validation and test set with 70%, 15% and the
+	 * remaining 15% of the rows. Shuffle first for random splits.
+	 * 
+	 * @param fractions
+	 *            share of each part except the last one, the sum must not exceed 1
+	 * @return fractions.length + 1 views
+	 */
+	public DataPairSet[] split(final double... fractions) {
+		DataPairSet[] parts = new DataPairSet[fractions.length + 1];
+		double sum = 0;
+		int from = 0;
+		for (int i = 0; i < fractions.length; i++) {
+			if (fractions[i] < 0) {
+				throw new IllegalArgumentException("fraction cannot be negative");
+			}
+			sum += fractions[i];
+			if (sum > 1 + 1e-9) {
+				throw new IllegalArgumentException("sum of the fractions is greater than 1");
+			}
+			int to = Math.min(rows, (int) Math.round(sum * rows));
+			parts[i] = view(from, to);
+			from = to;
+		}
+		parts[fractions.length] = view(from, rows);
+		return parts;
+	}
+
+	/**
+	 * Partition for k-fold cross validation
+	 * 
+	 * @param folds
+	 *            amount of partitions
+	 * @param k
+	 *            index of the validation partition
+	 * @return views of the training rows (all other partitions) and the validation rows
+	 */
+	public DataPairSet[] fold(final int folds, final int k) {
+		if (folds < 2 || folds > rows) {
+			throw new IllegalArgumentException("folds must be between 2 and the amount of rows");
+		}
+		if (k < 0 || k >= folds) {
+			throw new IndexOutOfBoundsException("fold " + k + " for " + folds + " folds");
+		}
+		int from = (int) ((long) rows * k / folds);
+		int to = (int) ((long) rows * (k + 1) / folds);
+		int[] training = new int[rows - (to - from)];
+		int i = 0;
+		for (int r = 0; r < rows; r++) {
+			if (r < from || r >= to) {
+				training[i++] = physicalRow(r);
+			}
+		}
+		return new DataPairSet[] { new DataPairSet(this, 0, training.length, training), view(from, to) };
+	}
+
+	public double getInput(final int row, final int i) {
+		return input[index(row, i, inputSize)];
+	}
+
+	public void setInput(final int row, final int i, final double value) {
+		input[index(row, i, inputSize)] = value;
+	}
+
+	public double getIdeal(final int row, final int i) {
+		return ideal[index(row, i, idealSize)];
+	}
+
+	public void setIdeal(final int row, final int i, final double value) {
+		ideal[index(row, i, idealSize)] = value;
+	}
+
+	/**
+	 * @return view of an input row on the backing array
+	 */
+	public DataRow getInputRow(final int row) {
+		checkRow(row);
+		return new DataRow(input, getInputOffset(row), inputSize);
+	}
+
+	/**
+	 * @return view of an ideal row on the backing array
+	 */
+	public DataRow getIdealRow(final int row) {
+		checkRow(row);
+		return new DataRow(ideal, getIdealOffset(row), idealSize);
+	}
+
+	/**
+	 * Boxed copy of the inputs, changes are not written back
+	 */
+	public Double[][] getInput() {
+		return box(input, true);
+	}
+
+	/**
+	 * Boxed copy of the ideal values, changes are not written back, see {@link #setIdeal(int, int, double)}
+	 */
+	public Double[][] getIdeal() {
+		return box(ideal, false);
+	}
+
 	public Double[][] getInputAndIdeal() {
-		Double[][] mixed = new Double[input.length][input[0].length + ideal[0].length];
-		for (int i = 0; i < input.length; i++) {
-			mixed[i] = (Double[]) ArrayUtils.addAll(input[i], ideal[i]);
+		Double[][] mixed = new Double[rows][inputSize + idealSize];
+		for (int r = 0; r < rows; r++) {
+			for (int i = 0; i < inputSize; i++) {
+				mixed[r][i] = input[getInputOffset(r) + i];
+			}
+			for (int i = 0; i < idealSize; i++) {
+				mixed[r][inputSize + i] = ideal[getIdealOffset(r) + i];
+			}
 		}
 		return mixed;
 	}
@@ -166,21 +475,24 @@ public class DataPairSet {
 		if (inAndOut[0].length != inputLenght + outputLength) {
 			return;
 		}
-		input = null;
-		ideal = null;
+		DataPairSetBuilder builder = new DataPairSetBuilder(inputLenght, outputLength, inAndOut.length);
 		for (int i = 0; i < inAndOut.length; i++) {
-			addRow((Double[]) ArrayUtils.subarray(inAndOut[i], 0, inputLenght),
-					(Double[]) ArrayUtils.subarray(inAndOut[i], inputLenght, inputLenght + outputLength));
+			builder.addRow(inAndOut[i]);
 		}
+		adopt(builder.build());
 	}
 
+	/**
+	 * @return boxed copy of one row
+	 */
 	public DataPair getPair(final Integer index) {
-		return new DataPair(input[index], ideal[index]);
+		checkRow(index);
+		return new DataPair(box(input, getInputOffset(index), inputSize), box(ideal, getIdealOffset(index), idealSize));
 	}
 
 	public List<DataPair> getPairs() {
-		List<DataPair> list = new ArrayList<DataPair>();
-		for (int i = 0; i < input.length; i++) {
+		List<DataPair> list = new ArrayList<DataPair>(rows);
+		for (int i = 0; i < rows; i++) {
 			list.add(getPair(i));
 		}
 		return list;
@@ -191,18 +503,18 @@ public class DataPairSet {
 	}
 
 	/**
-	 * Prüfe ob die Arrays <b>nicht</b> miteinander gleich lang sind, sondern mit jeweils mit der inneren Länge von {@link #input} und
+	 * Prüfe ob die Längen <b>nicht</b> miteinander gleich sind, sondern mit jeweils mit der Zeilenlänge von {@link #input} und
 	 * {@link #ideal}
 	 * 
-	 * @param inputRows
-	 * @param idealRows
-	 * @return true wenn innere Länge gleich, sonst false
+	 * @param inputLength
+	 * @param idealLength
+	 * @return true wenn Länge gleich oder noch keine Zeile vorhanden, sonst false
 	 */
-	private boolean sameSize(final Double[] inputRows, final Double[] idealRows) {
-		if (input == null && ideal == null) {
+	private boolean sameSize(final int inputLength, final int idealLength) {
+		if (inputSize < 0 && idealSize < 0) {
 			return true;
 		}
-		return inputRows.length == input[0].length && idealRows.length == ideal[0].length;
+		return inputLength == inputSize && idealLength == idealSize;
 	}
 
 	/**
@@ -220,6 +532,92 @@ public class DataPairSet {
 		return result;
 	}
 
+	/**
+	 * Makes room for one more row, the arrays grow by doubling
+	 * 
+	 * @return index of the new row
+	 */
+	private int appendRow(final int inputLength, final int idealLength) {
+		if (sameSize(inputLength, idealLength) == false) {
+			throw new IllegalArgumentException("row size does not match to the set");
+		}
+		checkNotView();
+		inputSize = inputLength;
+		idealSize = idealLength;
+		ensureCapacity(rows + 1);
+		return rows++;
+	}
+
+	/**
+	 * Grows the arrays at least to the doubled size, the row sizes must be known
+	 */
+	private void ensureCapacity(final int capacity) {
+		int newCapacity = Math.max(capacity, rows < INITIAL_CAPACITY ? INITIAL_CAPACITY : rows * 2);
+		if (input.length < capacity * inputSize) {
+			input = Arrays.copyOf(input, newCapacity * inputSize);
+		}
+		if (ideal.length < capacity * idealSize) {
+			ideal = Arrays.copyOf(ideal, newCapacity * idealSize);
+		}
+	}
+
+	/**
+	 * Takes over the arrays of another set
+	 */
+	private void adopt(final DataPairSet other) {
+		input = other.input;
+		ideal = other.ideal;
+		inputSize = other.inputSize;
+		idealSize = other.idealSize;
+		rows = other.rows;
+		rowStart = other.rowStart;
+		rowIndex = other.rowIndex;
+		view = other.view;
+	}
+
+	private int index(final int row, final int i, final int size) {
+		checkRow(row);
+		if (i < 0 || i >= size) {
+			throw new IndexOutOfBoundsException("index " + i + " for row size " + size);
+		}
+		return physicalRow(row) * size + i;
+	}
+
+	/**
+	 * @return row in the arrays
+	 */
+	private int physicalRow(final int row) {
+		return rowIndex == null ? rowStart + row : rowIndex[rowStart + row];
+	}
+
+	private void checkNotView() {
+		if (view) {
+			throw new UnsupportedOperationException("rows cannot be added to a view");
+		}
+	}
+
+	private void checkRow(final int row) {
+		if (row < 0 || row >= rows) {
+			throw new IndexOutOfBoundsException("row " + row + " for " + rows + " rows");
+		}
+	}
+
+	private Double[][] box(final double[] data, final boolean inputData) {
+		Double[][] boxed = new Double[rows][];
+		for (int r = 0; r < rows; r++) {
+			boxed[r] = inputData ? box(data, getInputOffset(r), inputSize) : box(data, getIdealOffset(r), idealSize);
+		}
+		return boxed;
+	}
+
+	private static Double[] box(final double[] data, final int offset, final int size) {
+		Double[] boxed = new Double[size];
+		for (int i = 0; i < size; i++) {
+			boxed[i] = data[offset + i];
+		}
+		return boxed;
+	}
+
 	public void addPair(final DataPair pair) {
 		addRow(pair.getInput(), pair.getIdeal());
 	}
@@ -228,9 +626,11 @@ public class DataPairSet {
 	 * Resets every ideal value in the set to Double.NaN
 	 */
 	public void resetIdeal() {
-		for (int i = 0; i < ideal.length; i++) {
-			for (int j = 0; j < ideal[i].length; j++) {
-				ideal[i][j] = Double.NaN;
+		if (rowIndex == null) {
+			Arrays.fill(ideal, rowStart * getIdealSize(), (rowStart + rows) * getIdealSize(), Double.NaN);
+		} else {
+			for (int r = 0; r < rows; r++) {
+				Arrays.fill(ideal, getIdealOffset(r), getIdealOffset(r) + idealSize, Double.NaN);
 			}
 		}
 	}
@@ -239,23 +639,63 @@ public class DataPairSet {
 	public boolean equals(final Object other) {
 		if (other instanceof DataPairSet) {
 			DataPairSet o = (DataPairSet) other;
-			return ArrayUtils.isEquals(input, o.input) && ArrayUtils.isEquals(ideal, o.ideal);
+			if (rows != o.rows || getInputSize() != o.getInputSize() || getIdealSize() != o.getIdealSize()) {
+				return false;
+			}
+			for (int r = 0; r < rows; r++) {
+				if (equalRange(input, getInputOffset(r), o.input, o.getInputOffset(r), inputSize) == false
+						|| equalRange(ideal, getIdealOffset(r), o.ideal, o.getIdealOffset(r), idealSize) == false) {
+					return false;
+				}
+			}
+			return true;
 		}
 		return false;
 	}
 
+	@Override
+	public int hashCode() {
+		int hash = rows;
+		for (int r = 0; r < rows; r++) {
+			hash = hash(hash, input, getInputOffset(r), inputSize);
+			hash = hash(hash, ideal, getIdealOffset(r), idealSize);
+		}
+		return hash;
+	}
+
+	/**
+	 * Compares like {@link Double#equals(Object)}, NaN equals NaN
+	 */
+	private static boolean equalRange(final double[] a, final int aOffset, final double[] b, final int bOffset, final int length) {
+		for (int i = 0; i < length; i++) {
+			if (Double.doubleToLongBits(a[aOffset + i]) != Double.doubleToLongBits(b[bOffset + i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int hash(final int hash, final double[] data, final int offset, final int length) {
+		int result = hash;
+		for (int i = 0; i < length; i++) {
+			long bits = Double.doubleToLongBits(data[offset + i]);
+			result = 31 * result + (int) (bits ^ bits >>> 32);
+		}
+		return result;
+	}
+
 	@Override
 	public String toString() {
 		NumberFormat fmt = new DecimalFormat("#.####", Settings.decimalSymbols);
 		StringBuilder sb = new StringBuilder();
-		for (DataPair p : getPairs()) {
-			for (Double d : p.getInput()) {
-				sb.append(fmt.format(d));
+		for (int r = 0; r < rows; r++) {
+			for (int i = 0; i < inputSize; i++) {
+				sb.append(fmt.format(input[getInputOffset(r) + i]));
 				sb.append(" ");
 			}
 			sb.append(" --> ");
-			for (Double d : p.getIdeal()) {
-				sb.append(fmt.format(d));
+			for (int i = 0; i < idealSize; i++) {
+				sb.append(fmt.format(ideal[getIdealOffset(r) + i]));
 				sb.append(" ");
 			}
 			sb.append("\n");
@@ -0,0 +1,160 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.model;
+
+import java.util.Arrays;
+
+/**
+ * Collects rows for a {@link DataPairSet} in row-major arrays which grow by doubling, so adding n rows copies each value only a
+ * constant number of times on average.<br>
+ * {@link #build()} hands the arrays over to the set without copying them again (except for cutting off unused capacity), afterwards
+ * the builder starts empty.
+ */
+public class DataPairSetBuilder {
+
+	private static final int MIN_CAPACITY = 16;
+
+	private final int inputSize;
+
+	private final int idealSize;
+
+	private double[] input;
+
+	private double[] ideal;
+
+	private int rows;
+
+	/**
+	 * @param inputSize
+	 *            length of one input row
+	 * @param idealSize
+	 *            length of one ideal row
+	 */
+	public DataPairSetBuilder(final int inputSize, final int idealSize) {
+		this(inputSize, idealSize, MIN_CAPACITY);
+	}
+
+	/**
+	 * @param inputSize
+	 *            length of one input row
+	 * @param idealSize
+	 *            length of one ideal row
+	 * @param expectedRows
+	 *            rows to reserve, e.g. the amount of lines of a file
+	 */
+	public DataPairSetBuilder(final int inputSize, final int idealSize, final int expectedRows) {
+		if (inputSize < 0 || idealSize < 0) {
+			throw new IllegalArgumentException("row size cannot be negative");
+		}
+		if (expectedRows < 0) {
+			throw new IllegalArgumentException("expected rows cannot be negative");
+		}
+		this.inputSize = inputSize;
+		this.idealSize = idealSize;
+		reset(expectedRows);
+	}
+
+	/**
+	 * Copies one row
+	 */
+	public DataPairSetBuilder addRow(final double[] inputRow, final double[] idealRow) {
+		if (inputRow.length != inputSize || idealRow.length != idealSize) {
+			throw new IllegalArgumentException("row size does not match to the builder");
+		}
+		return addRow(inputRow, 0, idealRow, 0);
+	}
+
+	/**
+	 * Copies one row from row-major arrays
+	 *
+	 * @param inputData
+	 * @param inputOffset
+	 *            start of the input row
+	 * @param idealData
+	 * @param idealOffset
+	 *            start of the ideal row
+	 */
+	public DataPairSetBuilder addRow(final double[] inputData, final int inputOffset, final double[] idealData, final int idealOffset) {
+		ensureCapacity(rows + 1);
+		System.arraycopy(inputData, inputOffset, input, rows * inputSize, inputSize);
+		System.arraycopy(idealData, idealOffset, ideal, rows * idealSize, idealSize);
+		rows++;
+		return this;
+	}
+
+	/**
+	 * Copies one boxed row, null is stored as Double.NaN
+	 */
+	public DataPairSetBuilder addRow(final Double[] inputRow, final Double[] idealRow) {
+		if (inputRow.length != inputSize || idealRow.length != idealSize) {
+			throw new IllegalArgumentException("row size does not match to the builder");
+		}
+		ensureCapacity(rows + 1);
+		unbox(inputRow, 0, input, rows * inputSize, inputSize);
+		unbox(idealRow, 0, ideal, rows * idealSize, idealSize);
+		rows++;
+		return this;
+	}
+
+	/**
+	 * Copies one boxed row which contains the input followed by the ideal values
+	 */
+	public DataPairSetBuilder addRow(final Double[] inputAndIdeal) {
+		if (inputAndIdeal.length != inputSize + idealSize) {
+			throw new IllegalArgumentException("row size does not match to the builder");
+		}
+		ensureCapacity(rows + 1);
+		unbox(inputAndIdeal, 0, input, rows * inputSize, inputSize);
+		unbox(inputAndIdeal, inputSize, ideal, rows * idealSize, idealSize);
+		rows++;
+		return this;
+	}
+
+	/**
+	 * Reserves space for at least the given amount of rows
+	 */
+	public void ensureCapacity(final int capacity) {
+		int current = inputSize > 0 ? input.length / inputSize : idealSize > 0 ? ideal.length / idealSize : Integer.MAX_VALUE;
+		if (capacity <= current) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, Math.max(MIN_CAPACITY, current * 2));
+		input = Arrays.copyOf(input, newCapacity * inputSize);
+		ideal = Arrays.copyOf(ideal, newCapacity * idealSize);
+	}
+
+	/**
+	 * @return amount of rows added since the last {@link #build()}
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return new set with all added rows, the builder is empty afterwards
+	 */
+	public DataPairSet build() {
+		double[] in = input.length == rows * inputSize ? input : Arrays.copyOf(input, rows * inputSize);
+		double[] out = ideal.length == rows * idealSize ? ideal : Arrays.copyOf(ideal, rows * idealSize);
+		DataPairSet set = new DataPairSet(in, out, rows, inputSize, idealSize);
+		reset(MIN_CAPACITY);
+		return set;
+	}
+
+	private void reset(final int capacity) {
+		input = new double[capacity * inputSize];
+		ideal = new double[capacity * idealSize];
+		rows = 0;
+	}
+
+	static void unbox(final Double[] values, final int from, final double[] target, final int offset, final int length) {
+		for (int i = 0; i < length; i++) {
+			Double d = values[from + i];
+			target[offset + i] = d == null ? Double.NaN : d;
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.model;
+
+/**
+ * Rows of training data which are read block by block instead of being held in a {@link DataPairSet}, e.g. a mapped file
+ */
+public interface DataPairSource {
+
+	int getRows();
+
+	int getInputSize();
+
+	int getIdealSize();
+
+	/**
+	 * Copies rows into row-major arrays
+	 *
+	 * @param from
+	 *            first row
+	 * @param count
+	 *            amount of rows
+	 * @param input
+	 *            receives count * input size values
+	 * @param inputOffset
+	 * @param ideal
+	 *            receives count * ideal size values
+	 * @param idealOffset
+	 */
+	void read(int from, int count, double[] input, int inputOffset, double[] ideal, int idealOffset);
+
+}
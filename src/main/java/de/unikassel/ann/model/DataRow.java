@@ -0,0 +1,73 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.model;
+
+/**
+ * View of one row of a {@link DataPairSet} without copying.<br>
+ * Reads and writes go directly to the backing array of the set. A view becomes stale when the set grows and replaces its array, so it
+ * should not be kept across {@link DataPairSet#addRow(double[], double[])}.
+ */
+public class DataRow {
+
+	private final double[] data;
+
+	private final int offset;
+
+	private final int length;
+
+	public DataRow(final double[] data, final int offset, final int length) {
+		if (offset < 0 || length < 0 || offset + length > data.length) {
+			throw new IllegalArgumentException("row is out of the data array");
+		}
+		this.data = data;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	public double get(final int i) {
+		checkIndex(i);
+		return data[offset + i];
+	}
+
+	public void set(final int i, final double value) {
+		checkIndex(i);
+		data[offset + i] = value;
+	}
+
+	/**
+	 * @return amount of values in this row
+	 */
+	public int size() {
+		return length;
+	}
+
+	/**
+	 * @return the backing array, the row starts at {@link #getOffset()}
+	 */
+	public double[] getData() {
+		return data;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return copy of the values
+	 */
+	public double[] toArray() {
+		double[] copy = new double[length];
+		System.arraycopy(data, offset, copy, 0, length);
+		return copy;
+	}
+
+	private void checkIndex(final int i) {
+		if (i < 0 || i >= length) {
+			throw new IndexOutOfBoundsException("index " + i + " for row size " + length);
+		}
+	}
+
+}
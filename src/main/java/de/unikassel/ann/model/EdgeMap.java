@@ -1,49 +1,215 @@
 /**
- * Projekt ANNtool 
+ * Projekt ANNtool
  *
  * Copyright (c) 2011 github.com/timaschew/jANN
- * 
+ *
  * anton
  */
 package de.unikassel.ann.model;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
+ * Map of edges (from id -> to id) to values.<br>
+ * The edges are stored in an entry pool and found by an open addressing hash table with the ids packed into a long, so no key
+ * objects are created. Each entry is linked into a forward list of its from id and a reverse list of its to id, so neighbour queries
+ * cost O(degree) and {@link #remove(int, int)} costs O(1).<br>
+ * The query methods return read-only views which reflect later changes, they must not be iterated while the map is modified. Ids
+ * must not be negative or null.<br>
+ * Before the index the map was a HashMap: {@link #getMap()} returned it for modification, the query methods returned modifiable
+ * copies and {@link #getSynapsesFromForTo(Integer)} was declared with {@link FromTo} keys, although its keys were always the from
+ * ids. Modify the map with {@link #put(int, int, Object)} and {@link #remove(int, int)}, and copy a view to change it.
+ *
  * @author anton
  * @param <T>
- * 
+ *
  */
 public class EdgeMap<T> {
 
+	private static final int NONE = -1;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	/* entry pool, a removed entry has the from id NONE and is linked into the free list by nextOut */
+	private int[] entryFrom;
+	private int[] entryTo;
+	private Object[] values;
+	private int[] nextOut;
+	private int[] prevOut;
+	private int[] nextIn;
+	private int[] prevIn;
+	private int used;
+	private int free = NONE;
+	private int size;
+
 	/**
-	 * A synapse which have a connection from neuron id 2 to neuron id 6 and the weight value 1.23 can put into the map this way: <code>
-	 * synapseMap.put(new FromTo(2,6), 1.23);
-	 * </code
+	 * Hash table of entry index + 1, 0 is empty (linear probing)
 	 */
-	private Map<FromTo, T> edgeMap;
+	private int[] table;
+
+	/* first entry and degree of each id */
+	private int[] outHead;
+	private int[] inHead;
+	private int[] outDegree;
+	private int[] inDegree;
 
 	public EdgeMap() {
-		edgeMap = new HashMap<FromTo, T>();
+		clear();
 	}
 
+	/**
+	 * Removes all edges
+	 */
+	public void clear() {
+		entryFrom = new int[INITIAL_CAPACITY];
+		entryTo = new int[INITIAL_CAPACITY];
+		values = new Object[INITIAL_CAPACITY];
+		nextOut = new int[INITIAL_CAPACITY];
+		prevOut = new int[INITIAL_CAPACITY];
+		nextIn = new int[INITIAL_CAPACITY];
+		prevIn = new int[INITIAL_CAPACITY];
+		table = new int[INITIAL_CAPACITY * 2];
+		outHead = new int[0];
+		inHead = new int[0];
+		outDegree = new int[0];
+		inDegree = new int[0];
+		used = 0;
+		free = NONE;
+		size = 0;
+	}
+
+	/**
+	 * @return all edges as read-only view, it is no longer the backing map
+	 */
 	public Map<FromTo, T> getMap() {
-		return edgeMap;
+		return new EdgeView(NONE, true);
+	}
+
+	public int size() {
+		return size;
 	}
 
 	public void put(final FromTo key, final T value) {
-		edgeMap.put(key, value);
+		put(key.from, key.to, value);
+	}
+
+	/**
+	 * @return the previous value
+	 * @throws IllegalArgumentException
+	 *             if an id is negative
+	 */
+	public T put(final int from, final int to, final T value) {
+		if (from < 0 || to < 0) {
+			throw new IllegalArgumentException("ids must not be negative: " + from + "->" + to);
+		}
+		int e = find(from, to);
+		if (e != NONE) {
+			T old = value(e);
+			values[e] = value;
+			return old;
+		}
+		e = newEntry();
+		entryFrom[e] = from;
+		entryTo[e] = to;
+		values[e] = value;
+		ensureId(Math.max(from, to));
+		// link at the head of both lists
+		prevOut[e] = NONE;
+		nextOut[e] = outHead[from];
+		if (outHead[from] != NONE) {
+			prevOut[outHead[from]] = e;
+		}
+		outHead[from] = e;
+		outDegree[from]++;
+		prevIn[e] = NONE;
+		nextIn[e] = inHead[to];
+		if (inHead[to] != NONE) {
+			prevIn[inHead[to]] = e;
+		}
+		inHead[to] = e;
+		inDegree[to]++;
+		size++;
+		if (size * 2 > table.length) {
+			rehash(table.length * 2);
+		} else {
+			insert(e);
+		}
+		return null;
 	}
 
 	public T get(final FromTo key) {
-		return edgeMap.get(key);
+		return get(key.from, key.to);
+	}
+
+	public T get(final int from, final int to) {
+		int e = find(from, to);
+		return e == NONE ? null : value(e);
+	}
+
+	public boolean containsKey(final int from, final int to) {
+		return find(from, to) != NONE;
 	}
 
 	public T remove(final FromTo key) {
-		return edgeMap.remove(key);
+		return remove(key.from, key.to);
+	}
+
+	/**
+	 * @return the removed value
+	 */
+	public T remove(final int from, final int to) {
+		int slot = findSlot(from, to);
+		if (slot == NONE) {
+			return null;
+		}
+		int e = table[slot] - 1;
+		deleteSlot(slot);
+		// unlink from both lists
+		if (prevOut[e] == NONE) {
+			outHead[from] = nextOut[e];
+		} else {
+			nextOut[prevOut[e]] = nextOut[e];
+		}
+		if (nextOut[e] != NONE) {
+			prevOut[nextOut[e]] = prevOut[e];
+		}
+		outDegree[from]--;
+		if (prevIn[e] == NONE) {
+			inHead[to] = nextIn[e];
+		} else {
+			nextIn[prevIn[e]] = nextIn[e];
+		}
+		if (nextIn[e] != NONE) {
+			prevIn[nextIn[e]] = prevIn[e];
+		}
+		inDegree[to]--;
+		T old = value(e);
+		values[e] = null;
+		entryFrom[e] = NONE;
+		entryTo[e] = NONE;
+		nextOut[e] = free;
+		free = e;
+		size--;
+		return old;
+	}
+
+	/**
+	 * @return amount of edges starting at from
+	 */
+	public int getOutDegree(final int from) {
+		return from >= 0 && from < outDegree.length ? outDegree[from] : 0;
+	}
+
+	/**
+	 * @return amount of edges ending at to
+	 */
+	public int getInDegree(final int to) {
+		return to >= 0 && to < inDegree.length ? inDegree[to] : 0;
 	}
 
 	/**
@@ -51,16 +217,15 @@ public class EdgeMap<T> {
 	 * from->to
 	 * key => value
 	 * {1->2 => 1.23}
-	 * 
+	 *
 	 * <pre>
 	 * getToForFrom(1) returns [2]
-	 * 
+	 *
 	 * @param from
 	 * @return
 	 */
 	public Set<Integer> getToForFrom(final Integer from) {
-		Map map = getSynapseMap(from, false, true);
-		return map.keySet();
+		return new EdgeView(from, true).idSet();
 	}
 
 	/**
@@ -68,15 +233,14 @@ public class EdgeMap<T> {
 	 * from->to
 	 * key => value
 	 * {1->2 => 1.23}
-	 * 
+	 *
 	 * <pre>
 	 * getFromForTo(2) returns [1]
 	 * @param to
 	 * @return
 	 */
 	public Set<Integer> getFromForTo(final Integer to) {
-		Map map = getSynapseMap(to, false, false);
-		return map.keySet();
+		return new EdgeView(to, false).idSet();
 	}
 
 	/**
@@ -84,15 +248,15 @@ public class EdgeMap<T> {
 	 * from->to
 	 * key => value
 	 * {1->2 => 1.23}
-	 * 
+	 *
 	 * <pre>
 	 * getSynapsesToForFrom(1) returns {2 => 1.23}
-	 * 
+	 *
 	 * @param from
 	 * @return
 	 */
 	public Map<Integer, T> getSynapsesToForFrom(final Integer from) {
-		return getSynapseMap(from, false, true);
+		return new EdgeView(from, true).idMap();
 	}
 
 	/**
@@ -100,15 +264,15 @@ public class EdgeMap<T> {
 	 * from->to
 	 * key => value
 	 * {1->2 => 1.23}
-	 * 
+	 *
 	 * <pre>
 	 * getSynapsesFromToForFrom(1) returns {1->2 => 1.23}
-	 * 
+	 *
 	 * @param from
 	 * @return
 	 */
 	public Map<FromTo, T> getSynapsesFromToForFrom(final Integer from) {
-		return getSynapseMap(from, true, true);
+		return new EdgeView(from, true);
 	}
 
 	/**
@@ -116,15 +280,17 @@ public class EdgeMap<T> {
 	 * from->to
 	 * key => value
 	 * {1->2 => 1.23}
-	 * 
+	 *
 	 * <pre>
 	 * getSynapsesFromForTo(2) returns {1 => 1.23}
-	 * 
+	 *
+	 * The keys are the from ids, formerly the return type wrongly declared {@link FromTo} keys.
+	 *
 	 * @param to
 	 * @return
 	 */
-	public Map<FromTo, T> getSynapsesFromForTo(final Integer to) {
-		return getSynapseMap(to, false, false);
+	public Map<Integer, T> getSynapsesFromForTo(final Integer to) {
+		return new EdgeView(to, false).idMap();
 	}
 
 	/**
@@ -132,60 +298,345 @@ public class EdgeMap<T> {
 	 * from->to
 	 * key => value
 	 * {1->2 => 1.23}
-	 * 
+	 *
 	 * <pre>
 	 * getSynapsesFromToForTo(2) returns {1->2 => 1.23}
-	 * 
+	 *
 	 * @param to
 	 * @return
 	 */
 	public Map<FromTo, T> getSynapsesFromToForTo(final Integer to) {
-		return getSynapseMap(to, true, false);
-	}
-
-	/**
-	 * Returns multiple values for the searching index, which can be the 'from' or 'to'
-	 * 
-	 * @param searchFor
-	 * @param both
-	 *            returning only the opposite of what you searching for or both (from and to)
-	 * @param forward
-	 *            searching for as 'from' if true, otherwise searching as 'to'
-	 */
-	private Map getSynapseMap(final Integer searchFor, final boolean both, final boolean forward) {
-		Map<Integer, T> from2toMap = new HashMap<Integer, T>();
-		Map<FromTo, T> from2fromToMap = new HashMap<FromTo, T>();
-		Map<Integer, T> to2fromMap = new HashMap<Integer, T>();
-		Map<FromTo, T> to2fromToMap = new HashMap<FromTo, T>();
-
-		for (Entry<FromTo, T> e : edgeMap.entrySet()) {
-			FromTo ft = e.getKey();
-			T value = e.getValue();
-			if (forward) {
-				if (ft.from.equals(searchFor)) {
-					from2toMap.put(ft.to, value);
-					from2fromToMap.put(ft, value);
-				}
-			} else {
-				if (ft.to.equals(searchFor)) {
-					to2fromMap.put(ft.from, value);
-					to2fromToMap.put(ft, value);
+		return new EdgeView(to, false);
+	}
+
+	@SuppressWarnings("unchecked")
+	private T value(final int e) {
+		return (T) values[e];
+	}
+
+	private static long key(final int from, final int to) {
+		return ((long) from << 32) | (to & 0xFFFFFFFFL);
+	}
+
+	private int hash(final int from, final int to) {
+		long h = key(from, to) * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & (table.length - 1);
+	}
+
+	private int find(final int from, final int to) {
+		int slot = findSlot(from, to);
+		return slot == NONE ? NONE : table[slot] - 1;
+	}
+
+	private int findSlot(final int from, final int to) {
+		if (from < 0 || to < 0) {
+			return NONE;
+		}
+		int mask = table.length - 1;
+		for (int slot = hash(from, to);; slot = (slot + 1) & mask) {
+			int e = table[slot] - 1;
+			if (e == NONE) {
+				return NONE;
+			}
+			if (entryFrom[e] == from && entryTo[e] == to) {
+				return slot;
+			}
+		}
+	}
+
+	private void insert(final int e) {
+		int mask = table.length - 1;
+		int slot = hash(entryFrom[e], entryTo[e]);
+		while (table[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = e + 1;
+	}
+
+	/**
+	 * Empties the slot and moves following entries back, so no tombstones are needed
+	 */
+	private void deleteSlot(final int slot) {
+		int mask = table.length - 1;
+		int hole = slot;
+		int next = slot;
+		table[hole] = 0;
+		while (true) {
+			next = (next + 1) & mask;
+			int e = table[next] - 1;
+			if (e == NONE) {
+				return;
+			}
+			int home = hash(entryFrom[e], entryTo[e]);
+			// move the entry if its home is not between the hole and its slot (cyclic)
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				table[hole] = table[next];
+				table[next] = 0;
+				hole = next;
+			}
+		}
+	}
+
+	private void rehash(final int length) {
+		table = new int[length];
+		for (int e = 0; e < used; e++) {
+			if (entryFrom[e] != NONE) {
+				insert(e);
+			}
+		}
+	}
+
+	private int newEntry() {
+		if (free != NONE) {
+			int e = free;
+			free = nextOut[e];
+			return e;
+		}
+		if (used == entryFrom.length) {
+			int capacity = used * 2;
+			entryFrom = copy(entryFrom, capacity);
+			entryTo = copy(entryTo, capacity);
+			nextOut = copy(nextOut, capacity);
+			prevOut = copy(prevOut, capacity);
+			nextIn = copy(nextIn, capacity);
+			prevIn = copy(prevIn, capacity);
+			Object[] larger = new Object[capacity];
+			System.arraycopy(values, 0, larger, 0, used);
+			values = larger;
+		}
+		return used++;
+	}
+
+	private void ensureId(final int id) {
+		if (id < outHead.length) {
+			return;
+		}
+		int length = Math.max(id + 1, outHead.length * 2);
+		int old = outHead.length;
+		outHead = copy(outHead, length);
+		inHead = copy(inHead, length);
+		outDegree = copy(outDegree, length);
+		inDegree = copy(inDegree, length);
+		for (int i = old; i < length; i++) {
+			outHead[i] = NONE;
+			inHead[i] = NONE;
+		}
+	}
+
+	private static int[] copy(final int[] a, final int length) {
+		int[] larger = new int[length];
+		System.arraycopy(a, 0, larger, 0, Math.min(a.length, length));
+		return larger;
+	}
+
+	/**
+	 * Edges of one id (or all edges for {@link #NONE}) as map with {@link FromTo} keys
+	 */
+	private class EdgeView extends AbstractMap<FromTo, T> {
+
+		private final int id;
+		private final boolean forward;
+
+		EdgeView(final int id, final boolean forward) {
+			this.id = id;
+			this.forward = forward;
+		}
+
+		boolean contains(final int from, final int to) {
+			if (id != NONE && (forward ? from : to) != id) {
+				return false;
+			}
+			return EdgeMap.this.containsKey(from, to);
+		}
+
+		/**
+		 * @return index of the first entry
+		 */
+		int first() {
+			if (id == NONE) {
+				return nextUsed(0);
+			}
+			int[] head = forward ? outHead : inHead;
+			return id >= 0 && id < head.length ? head[id] : NONE;
+		}
+
+		int next(final int e) {
+			if (id == NONE) {
+				return nextUsed(e + 1);
+			}
+			return forward ? nextOut[e] : nextIn[e];
+		}
+
+		private int nextUsed(final int start) {
+			for (int e = start; e < used; e++) {
+				if (entryFrom[e] != NONE) {
+					return e;
 				}
 			}
+			return NONE;
+		}
 
+		/**
+		 * @return the opposite id of the entry
+		 */
+		int other(final int e) {
+			return forward ? entryTo[e] : entryFrom[e];
 		}
-		if (forward) {
-			if (both) {
-				return from2fromToMap;
+
+		@Override
+		public int size() {
+			if (id == NONE) {
+				return EdgeMap.this.size;
 			}
-			return from2toMap;
+			return forward ? getOutDegree(id) : getInDegree(id);
+		}
+
+		@Override
+		public boolean containsKey(final Object key) {
+			if (key instanceof FromTo) {
+				FromTo ft = (FromTo) key;
+				return contains(ft.from, ft.to);
+			}
+			return false;
+		}
+
+		@Override
+		public T get(final Object key) {
+			return containsKey(key) ? EdgeMap.this.get((FromTo) key) : null;
+		}
+
+		@Override
+		public Set<Map.Entry<FromTo, T>> entrySet() {
+			return new AbstractSet<Map.Entry<FromTo, T>>() {
+				@Override
+				public int size() {
+					return EdgeView.this.size();
+				}
+
+				@Override
+				public Iterator<Map.Entry<FromTo, T>> iterator() {
+					return new EntryIterator<Map.Entry<FromTo, T>>(EdgeView.this) {
+						@Override
+						Map.Entry<FromTo, T> create(final int e) {
+							return new SimpleImmutableEntry<FromTo, T>(new FromTo(entryFrom[e], entryTo[e]), value(e));
+						}
+					};
+				}
+			};
+		}
+
+		/**
+		 * @return the opposite ids as view
+		 */
+		Set<Integer> idSet() {
+			return new AbstractSet<Integer>() {
+				@Override
+				public int size() {
+					return EdgeView.this.size();
+				}
+
+				@Override
+				public boolean contains(final Object o) {
+					return o instanceof Integer && containsOther((Integer) o);
+				}
+
+				@Override
+				public Iterator<Integer> iterator() {
+					return new EntryIterator<Integer>(EdgeView.this) {
+						@Override
+						Integer create(final int e) {
+							return other(e);
+						}
+					};
+				}
+			};
+		}
+
+		/**
+		 * @return the values by the opposite id as view
+		 */
+		Map<Integer, T> idMap() {
+			return new AbstractMap<Integer, T>() {
+				@Override
+				public int size() {
+					return EdgeView.this.size();
+				}
+
+				@Override
+				public boolean containsKey(final Object key) {
+					return key instanceof Integer && containsOther((Integer) key);
+				}
+
+				@Override
+				public T get(final Object key) {
+					if (containsKey(key) == false) {
+						return null;
+					}
+					int other = (Integer) key;
+					return forward ? EdgeMap.this.get(id, other) : EdgeMap.this.get(other, id);
+				}
+
+				@Override
+				public Set<Map.Entry<Integer, T>> entrySet() {
+					return new AbstractSet<Map.Entry<Integer, T>>() {
+						@Override
+						public int size() {
+							return EdgeView.this.size();
+						}
+
+						@Override
+						public Iterator<Map.Entry<Integer, T>> iterator() {
+							return new EntryIterator<Map.Entry<Integer, T>>(EdgeView.this) {
+								@Override
+								Map.Entry<Integer, T> create(final int e) {
+									return new SimpleImmutableEntry<Integer, T>(other(e), value(e));
+								}
+							};
+						}
+					};
+				}
+			};
+		}
+
+		private boolean containsOther(final int other) {
+			return forward ? contains(id, other) : contains(other, id);
+		}
+	}
+
+	/**
+	 * Walks the entries of a view
+	 */
+	private abstract class EntryIterator<E> implements Iterator<E> {
+
+		private final EdgeView view;
+		private int next;
+
+		EntryIterator(final EdgeView view) {
+			this.view = view;
+			next = view.first();
 		}
-		// backward
-		if (both) {
-			return to2fromToMap;
+
+		abstract E create(int e);
+
+		@Override
+		public boolean hasNext() {
+			return next != NONE;
 		}
-		return to2fromMap;
 
+		@Override
+		public E next() {
+			if (next == NONE) {
+				throw new NoSuchElementException();
+			}
+			int e = next;
+			next = view.next(e);
+			return create(e);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("views are read only");
+		}
 	}
 
 }
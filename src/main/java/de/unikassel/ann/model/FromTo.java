@@ -13,14 +13,14 @@ package de.unikassel.ann.model;
  */
 public class FromTo {
 
-	public Integer from;
-	public Integer to;
+	public int from;
+	public int to;
 
 	public FromTo() {
 
 	}
 
-	public FromTo(final Integer from, final Integer to) {
+	public FromTo(final int from, final int to) {
 		this.from = from;
 		this.to = to;
 	}
@@ -34,7 +34,7 @@ public class FromTo {
 	public boolean equals(final Object o) {
 		if (o instanceof FromTo) {
 			FromTo other = (FromTo) o;
-			if (from.equals(other.from) && to.equals(other.to)) {
+			if (from == other.from && to == other.to) {
 				return true;
 			}
 		}
@@ -43,7 +43,9 @@ public class FromTo {
 
 	@Override
 	public int hashCode() {
-		return 7 * from.hashCode() + 11 * to.hashCode();
+		// mixes both ids, 7 * from + 11 * to collided for many neighbouring edges
+		long h = (((long) from << 32) | (to & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
 	}
 
 }
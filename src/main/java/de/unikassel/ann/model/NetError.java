@@ -54,6 +54,16 @@ public class NetError {
 		}
 	}
 
+	/**
+	 * Adds the collected errors of another instance, e.g. from a parallel worker
+	 *
+	 * @param other
+	 */
+	public final void add(final NetError other) {
+		errorSum += other.errorSum;
+		size += other.size;
+	}
+
 	/**
 	 * Calculate the error with RMSE.
 	 * 
@@ -408,10 +408,28 @@ public class Network extends BasicNetwork {
 
 	public void addSynapse(final Synapse synapse) {
 		synapseSet.add(synapse);
+		int from = synapse.getFromNeuron().getId();
+		int to = synapse.getToNeuron().getId();
+		if (from >= 0 && to >= 0 && from < synapseMatrix.getFromSize() && to < synapseMatrix.getToSize()) {
+			synapseMatrix.addOrUpdateSynapse(synapse, from, to);
+		}
 	}
 
 	public void removeSynapse(final Synapse synapse) {
 		synapseSet.remove(synapse);
+		int from = synapse.getFromNeuron().getId();
+		int to = synapse.getToNeuron().getId();
+		if (synapseMatrix.getSynapse(from, to) == synapse) {
+			synapseMatrix.removeSynapse(from, to);
+		}
+	}
+
+	/**
+	 * Removes all synapses from the {@link #synapseSet} and the {@link #synapseMatrix}
+	 */
+	public void removeAllSynapses() {
+		synapseSet.clear();
+		synapseMatrix.clear();
 	}
 
 	/**
@@ -608,7 +626,7 @@ public class Network extends BasicNetwork {
 	private void neuronRangeCheck(final Neuron fromNeuron, final Neuron toNeuron) {
 		if (fromNeuron.getId() < 0) {
 			throw new IllegalArgumentException("invalid neuron id, negative value not permitted\n" + fromNeuron);
-		} else if (toNeuron.getId() >= synapseMatrix.getSynapses().length) {
+		} else if (toNeuron.getId() >= synapseMatrix.getToSize()) {
 			throw new IllegalArgumentException("invalid neuron id, don't fit into flat synapse array \n" + toNeuron);
 		}
 
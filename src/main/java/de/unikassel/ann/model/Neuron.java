@@ -20,9 +20,9 @@ public class Neuron {
 
 	private ActivationFunction activationFunction;
 
-	private Double value;
+	private double value;
 
-	private Double delta;
+	private double delta;
 
 	private List<Synapse> incomingSynapses;
 
@@ -80,14 +80,14 @@ public class Neuron {
 		return outgoingSynapses;
 	}
 
-	public void setValue(final Double val) {
+	public void setValue(final double val) {
 		if (bias) {
 			throw new IllegalAccessError("cannot set input value for bias neuron");
 		}
 		value = val;
 	}
 
-	public Double getValue() {
+	public double getValue() {
 		return value;
 	}
 
@@ -117,7 +117,7 @@ public class Neuron {
 	/**
 	 * Calculates the activation function with the value and set the result as outpuvalue<br> {@link #value} = f (val)
 	 */
-	public void activate(final Double val) {
+	public void activate(final double val) {
 		if (bias) {
 			value = 1.0d;
 		} else {
@@ -164,7 +164,7 @@ public class Neuron {
 		sb.append(bias ? " (B)" : "");
 
 		sb.append("output = ");
-		sb.append(value == null ? "N/A" : value);
+		sb.append(value);
 		sb.append("\n");
 		return sb.toString();
 	}
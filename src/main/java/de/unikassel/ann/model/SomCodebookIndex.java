@@ -0,0 +1,291 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.model;
+
+/**
+ * K-d tree over the codebook of a som for the best matching unit search. The tree only stores unit indices and a bounding box
+ * per node, the distances are computed on the live codebook. When the codebook moves, {@link #refit()} recomputes the boxes
+ * without changing the tree, after a refit the search is exact again (with an unlimited amount of checks). A new tree from
+ * {@link #rebuild()} gives better splits when the codebook has changed a lot.<br>
+ * The search may be limited to a maximal amount of compared units, the nearest leaves are visited first.
+ */
+public class SomCodebookIndex {
+
+	/**
+	 * Default for the maximal amount of units in a leaf
+	 */
+	public static final int LEAF_SIZE = 8;
+
+	private final double[] codebook;
+
+	private final int dims;
+
+	private final int units;
+
+	private final int leafSize;
+
+	/** units ordered by leaves, node n uses [begin[n], end[n]) */
+	private final int[] order;
+
+	private final int[] begin;
+
+	private final int[] end;
+
+	/** child nodes, -1 for leaves */
+	private final int[] left;
+
+	private final int[] right;
+
+	/** bounding box of node n: [n * dims, (n + 1) * dims) */
+	private final double[] boxMin;
+
+	private final double[] boxMax;
+
+	private int nodes;
+
+	/**
+	 * Builds the tree with {@link #LEAF_SIZE}
+	 *
+	 * @param codebook
+	 *            weights of all units, unit i uses [i * dims, (i + 1) * dims), changes are seen by the search
+	 * @param dims
+	 */
+	public SomCodebookIndex(final double[] codebook, final int dims) {
+		this(codebook, dims, LEAF_SIZE);
+	}
+
+	/**
+	 * @param codebook
+	 *            weights of all units, unit i uses [i * dims, (i + 1) * dims), changes are seen by the search
+	 * @param dims
+	 * @param leafSize
+	 *            maximal amount of units in a leaf
+	 */
+	public SomCodebookIndex(final double[] codebook, final int dims, final int leafSize) {
+		if (dims < 1 || codebook.length % dims != 0 || codebook.length == 0) {
+			throw new IllegalArgumentException("codebook length " + codebook.length + " does not fit to " + dims + " dimensions");
+		}
+		if (leafSize < 1) {
+			throw new IllegalArgumentException("leaf size must be positive: " + leafSize);
+		}
+		this.codebook = codebook;
+		this.dims = dims;
+		this.leafSize = leafSize;
+		units = codebook.length / dims;
+		order = new int[units];
+		int maxNodes = countNodes(units);
+		begin = new int[maxNodes];
+		end = new int[maxNodes];
+		left = new int[maxNodes];
+		right = new int[maxNodes];
+		boxMin = new double[maxNodes * dims];
+		boxMax = new double[maxNodes * dims];
+		rebuild();
+	}
+
+	private int countNodes(final int size) {
+		if (size <= leafSize) {
+			return 1;
+		}
+		return 1 + countNodes(size / 2) + countNodes(size - size / 2);
+	}
+
+	/**
+	 * Builds a new tree, every node is split at the median of the dimension with the largest extent
+	 */
+	public void rebuild() {
+		for (int i = 0; i < units; i++) {
+			order[i] = i;
+		}
+		nodes = 0;
+		build(0, units);
+	}
+
+	private int build(final int from, final int to) {
+		int node = nodes++;
+		begin[node] = from;
+		end[node] = to;
+		left[node] = -1;
+		right[node] = -1;
+		fitLeaf(node);
+		if (to - from > leafSize) {
+			int dim = 0;
+			double extent = -1;
+			for (int d = 0; d < dims; d++) {
+				double e = boxMax[node * dims + d] - boxMin[node * dims + d];
+				if (e > extent) {
+					extent = e;
+					dim = d;
+				}
+			}
+			int mid = (from + to) >>> 1;
+			select(from, to - 1, mid, dim);
+			left[node] = build(from, mid);
+			right[node] = build(mid, to);
+		}
+		return node;
+	}
+
+	/**
+	 * Quickselect: afterwards order[k] has the k-th smallest value of the dimension in [from, to]
+	 */
+	private void select(int from, int to, final int k, final int dim) {
+		while (from < to) {
+			double pivot = codebook[order[(from + to) >>> 1] * dims + dim];
+			int i = from;
+			int j = to;
+			while (i <= j) {
+				while (codebook[order[i] * dims + dim] < pivot) {
+					i++;
+				}
+				while (codebook[order[j] * dims + dim] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					int tmp = order[i];
+					order[i] = order[j];
+					order[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				to = j;
+			} else if (k >= i) {
+				from = i;
+			} else {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the bounding boxes from the current codebook, the tree stays the same
+	 */
+	public void refit() {
+		// children have higher numbers than their parent
+		for (int node = nodes - 1; node >= 0; node--) {
+			if (left[node] < 0) {
+				fitLeaf(node);
+			} else {
+				int l = left[node] * dims;
+				int r = right[node] * dims;
+				int n = node * dims;
+				for (int d = 0; d < dims; d++) {
+					boxMin[n + d] = Math.min(boxMin[l + d], boxMin[r + d]);
+					boxMax[n + d] = Math.max(boxMax[l + d], boxMax[r + d]);
+				}
+			}
+		}
+	}
+
+	private void fitLeaf(final int node) {
+		int n = node * dims;
+		for (int d = 0; d < dims; d++) {
+			boxMin[n + d] = Double.POSITIVE_INFINITY;
+			boxMax[n + d] = Double.NEGATIVE_INFINITY;
+		}
+		for (int k = begin[node]; k < end[node]; k++) {
+			int offset = order[k] * dims;
+			for (int d = 0; d < dims; d++) {
+				double value = codebook[offset + d];
+				if (value < boxMin[n + d]) {
+					boxMin[n + d] = value;
+				}
+				if (value > boxMax[n + d]) {
+					boxMax[n + d] = value;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return a stack for {@link #nearest(double[], int, int[])}, each thread needs its own
+	 */
+	public int[] createStack() {
+		return new int[nodes];
+	}
+
+	/**
+	 * Searches the unit with the smallest squared distance. The nearer child is visited first, subtrees whose box is farther away
+	 * than the best unit so far are skipped.
+	 *
+	 * @param input
+	 * @param maxChecks
+	 *            maximal amount of compared units, the search is exact (after a refit) with {@link Integer#MAX_VALUE}
+	 * @param stack
+	 *            from {@link #createStack()}
+	 * @return index of the unit, the lowest index on equal distances if the search is exact
+	 */
+	public int nearest(final double[] input, final int maxChecks, final int[] stack) {
+		int winner = -1;
+		double best = Double.POSITIVE_INFINITY;
+		int checks = 0;
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (boxDistance(node, input) > best) {
+				continue;
+			}
+			if (left[node] < 0) {
+				for (int k = begin[node]; k < end[node]; k++) {
+					int unit = order[k];
+					int offset = unit * dims;
+					double sum = 0.0d;
+					for (int d = 0; d < dims; d++) {
+						double diff = input[d] - codebook[offset + d];
+						sum += diff * diff;
+					}
+					if (sum < best || sum == best && unit < winner) {
+						best = sum;
+						winner = unit;
+					}
+				}
+				checks += end[node] - begin[node];
+				if (checks >= maxChecks) {
+					break;
+				}
+			} else {
+				// the nearer child on top of the stack
+				if (boxDistance(left[node], input) <= boxDistance(right[node], input)) {
+					stack[top++] = right[node];
+					stack[top++] = left[node];
+				} else {
+					stack[top++] = left[node];
+					stack[top++] = right[node];
+				}
+			}
+		}
+		return winner;
+	}
+
+	/**
+	 * @return squared distance from the input to the bounding box of the node
+	 */
+	private double boxDistance(final int node, final double[] input) {
+		int n = node * dims;
+		double sum = 0.0d;
+		for (int d = 0; d < dims; d++) {
+			double diff = 0.0d;
+			if (input[d] < boxMin[n + d]) {
+				diff = boxMin[n + d] - input[d];
+			} else if (input[d] > boxMax[n + d]) {
+				diff = input[d] - boxMax[n + d];
+			}
+			sum += diff * diff;
+		}
+		return sum;
+	}
+
+	/**
+	 * @return amount of units
+	 */
+	public int getUnits() {
+		return units;
+	}
+
+}
@@ -0,0 +1,186 @@
+/**
+ * Projekt ANNtool
+ *
+ * Copyright (c) 2011 github.com/timaschew/jANN
+ */
+package de.unikassel.ann.model;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed neighborhood of a som grid for one radius. Holds the offsets of all units with a grid distance up to the radius
+ * and their kernel weight. The grid distance is the sum of the differences per dimension, the neighborhood of
+ * {@link de.unikassel.mdda.MDDA#getNeighborForAllDims(int, int...)} plus the center (the MDDA misses units for radii above 3).
+ * Units are numbered like in the MDDA, the last dimension is the fastest.
+ */
+public class SomNeighborhood {
+
+	/**
+	 * Weight of a unit by its grid distance to the center
+	 */
+	public enum Kernel {
+		/** same weight for all units inside the radius */
+		BUBBLE {
+			@Override
+			public double weight(final int distance, final int radius) {
+				return 1.0d;
+			}
+		},
+		/** gaussian with a standard deviation of radius / 2 */
+		GAUSSIAN {
+			@Override
+			public double weight(final int distance, final int radius) {
+				double sigma = radius / 2.0d;
+				return Math.exp(-distance * distance / (2 * sigma * sigma));
+			}
+		},
+		/** gaussian with negative weights between radius / 2 and radius */
+		MEXICAN_HAT {
+			@Override
+			public double weight(final int distance, final int radius) {
+				double sigma = radius / 2.0d;
+				double q = distance * distance / (sigma * sigma);
+				return (1 - q) * Math.exp(-q / 2);
+			}
+		};
+
+		/**
+		 * @param distance
+		 *            grid distance to the center, at most the radius
+		 * @param radius
+		 *            positive radius
+		 * @return weight, 1 at the center
+		 */
+		public abstract double weight(int distance, int radius);
+	}
+
+	private final int[] size;
+
+	private final int radius;
+
+	private final Kernel kernel;
+
+	/** grid offsets, offset k uses [k * dimensions, (k + 1) * dimensions) */
+	private final int[] offsets;
+
+	/** offset in the one dimensional index */
+	private final int[] indexOffsets;
+
+	private final double[] weights;
+
+	private final int count;
+
+	/**
+	 * @param size
+	 *            grid size per dimension
+	 * @param radius
+	 *            maximal grid distance
+	 * @param kernel
+	 */
+	public SomNeighborhood(final int[] size, final int radius, final Kernel kernel) {
+		if (radius < 1) {
+			throw new IllegalArgumentException("radius must be positive: " + radius);
+		}
+		if (kernel == null) {
+			throw new IllegalArgumentException("kernel is null");
+		}
+		this.size = Arrays.copyOf(size, size.length);
+		this.radius = radius;
+		this.kernel = kernel;
+		int dims = size.length;
+		int[] strides = new int[dims];
+		int stride = 1;
+		for (int d = dims - 1; d >= 0; d--) {
+			strides[d] = stride;
+			stride *= size[d];
+		}
+
+		// offsets beyond the grid size never hit a unit
+		int[] offset = new int[dims];
+		count = enumerate(offset, 0, radius, null, null, null, 0);
+		offsets = new int[count * dims];
+		indexOffsets = new int[count];
+		weights = new double[count];
+		enumerate(offset, 0, radius, offsets, indexOffsets, strides, 0);
+		for (int k = 0; k < count; k++) {
+			int distance = 0;
+			for (int d = 0; d < dims; d++) {
+				distance += Math.abs(offsets[k * dims + d]);
+			}
+			weights[k] = kernel.weight(distance, radius);
+		}
+	}
+
+	/**
+	 * Counts or fills the offsets of the dimensions from dim on
+	 *
+	 * @return index of the next offset
+	 */
+	private int enumerate(final int[] offset, final int dim, final int remaining, final int[] offsets, final int[] indexOffsets,
+			final int[] strides, int k) {
+		if (dim == offset.length) {
+			if (offsets != null) {
+				int index = 0;
+				for (int d = 0; d < offset.length; d++) {
+					offsets[k * offset.length + d] = offset[d];
+					index += offset[d] * strides[d];
+				}
+				indexOffsets[k] = index;
+			}
+			return k + 1;
+		}
+		int max = Math.min(remaining, size[dim] - 1);
+		for (int o = -max; o <= max; o++) {
+			offset[dim] = o;
+			k = enumerate(offset, dim + 1, remaining - Math.abs(o), offsets, indexOffsets, strides, k);
+		}
+		return k;
+	}
+
+	/**
+	 * @return amount of offsets, the maximal amount of neighbors including the center
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	public int getRadius() {
+		return radius;
+	}
+
+	public Kernel getKernel() {
+		return kernel;
+	}
+
+	/**
+	 * Collects the units inside the grid around a center, without allocations
+	 *
+	 * @param coordinates
+	 *            grid coordinates of all units, unit i uses [i * dimensions, (i + 1) * dimensions)
+	 * @param center
+	 *            index of the center unit
+	 * @param units
+	 *            receives the unit indices, at least {@link #getCount()} long
+	 * @param unitWeights
+	 *            receives the kernel weights, at least {@link #getCount()} long
+	 * @return amount of units
+	 */
+	public int neighbors(final int[] coordinates, final int center, final int[] units, final double[] unitWeights) {
+		int dims = size.length;
+		int base = center * dims;
+		int n = 0;
+		next: for (int k = 0; k < count; k++) {
+			for (int d = 0; d < dims; d++) {
+				int c = coordinates[base + d] + offsets[k * dims + d];
+				if (c < 0 || c >= size[d]) {
+					continue next;
+				}
+			}
+			units[n] = center + indexOffsets[k];
+			unitWeights[n] = weights[k];
+			n++;
+		}
+		return n;
+	}
+
+}
@@ -1,13 +1,37 @@
 package de.unikassel.ann.model;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import de.unikassel.ann.model.func.SigmoidFunction;
 import de.unikassel.mdda.MDDA;
 
 public class SomNetwork extends BasicNetwork {
 
+	/**
+	 * Default for {@link #setParallelThreshold(int)}
+	 */
+	public static final int PARALLEL_THRESHOLD = 4096;
+
+	/**
+	 * Training rules
+	 */
+	public enum Algorithm {
+		/** Kohonen rule, one random vector after another */
+		ONLINE,
+		/** all vectors of an epoch at once, see {@link SomNetwork#setBatchSize(int)} */
+		BATCH
+	};
+
 	public long delay = 0;
 
 	private Layer inputLayer;
@@ -34,6 +58,56 @@ public class SomNetwork extends BasicNetwork {
 
 	private boolean square = true; // or false
 
+	/**
+	 * Weights of all output neurons, neuron i uses [i * inputLayerSize, (i + 1) * inputLayerSize)
+	 */
+	private double[] codebook;
+
+	/**
+	 * Synapse of each codebook entry, the training only writes the codebook and passes it to the synapses through this array
+	 */
+	private Synapse[] mirror;
+
+	private int parallelThreshold = PARALLEL_THRESHOLD;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private ExecutorService pool;
+
+	/** range searches of the training, see {@link #findBestMatchingUnit(double[], int[], BmuSearch[])} */
+	private BmuSearch[] searches;
+
+	private Algorithm algorithm = Algorithm.ONLINE;
+
+	private int batchSize = 1000;
+
+	private Random random = new Random();
+
+	private SomNeighborhood.Kernel kernel = SomNeighborhood.Kernel.BUBBLE;
+
+	/** grid coordinates of the output neurons, see {@link #getGridCoordinates()} */
+	private int[] grid;
+
+	/** the neighborhood of the last radius */
+	private SomNeighborhood neighborhood;
+
+	private int[] neighborUnits;
+
+	private double[] neighborWeights;
+
+	/** units compared by the indexed search, 0 for the exact search */
+	private int indexChecks = 0;
+
+	private double indexActivation = 0.5;
+
+	private int indexRefitInterval = 100;
+
+	private SomCodebookIndex index;
+
+	private int[] indexStack;
+
+	private int stepsSinceRefit;
+
 	// private Board3D listener;
 
 	public SomNetwork(final int inputSize, final int... outputDimension) {
@@ -100,6 +174,229 @@ public class SomNetwork extends BasicNetwork {
 		this.square = square;
 	}
 
+	/**
+	 * @return output neuron count from which the best matching unit is searched on several threads
+	 */
+	public int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * @param parallelThreshold
+	 *            output neuron count from which the best matching unit is searched on several threads
+	 */
+	public void setParallelThreshold(final int parallelThreshold) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * @param threads
+	 *            amount of threads for large maps, the calling thread is one of them
+	 */
+	public void setThreads(final int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be positive: " + threads);
+		}
+		shutdown();
+		this.threads = threads;
+	}
+
+	/**
+	 * @return the training rule
+	 */
+	public Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * @param algorithm
+	 *            the training rule used by {@link #train()}
+	 */
+	public void setAlgorithm(final Algorithm algorithm) {
+		if (algorithm == null) {
+			throw new IllegalArgumentException("algorithm is null");
+		}
+		this.algorithm = algorithm;
+	}
+
+	/**
+	 * @return amount of random vectors of the batch training
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @param batchSize
+	 *            amount of random vectors of the batch training, each epoch presents all of them. The epoch count is max
+	 *            iterations / batch size, so every vector is presented as often as in the online training.
+	 */
+	public void setBatchSize(final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batch size must be positive: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * @return random source of the training, used for the random vectors and the order of the rows
+	 */
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * @param random
+	 *            random source of the training, it is kept over several trainings
+	 */
+	public void setRandom(final Random random) {
+		if (random == null) {
+			throw new IllegalArgumentException("random is null");
+		}
+		this.random = random;
+	}
+
+	/**
+	 * Replaces the random source by a seeded one. The same seed, codebook and thread count give the same result.
+	 *
+	 * @param seed
+	 */
+	public void setSeed(final long seed) {
+		random = new Random(seed);
+	}
+
+	/**
+	 * @return weight of the neighbors by their grid distance
+	 */
+	public SomNeighborhood.Kernel getKernel() {
+		return kernel;
+	}
+
+	/**
+	 * @param kernel
+	 *            weight of the neighbors by their grid distance, {@link SomNeighborhood.Kernel#BUBBLE} updates all neighbors
+	 *            with the same rate. The batch training ignores negative weights.
+	 */
+	public void setKernel(final SomNeighborhood.Kernel kernel) {
+		if (kernel == null) {
+			throw new IllegalArgumentException("kernel is null");
+		}
+		this.kernel = kernel;
+	}
+
+	/**
+	 * @return maximal amount of compared units of the indexed search, 0 if the search is exact
+	 */
+	public int getIndexChecks() {
+		return indexChecks;
+	}
+
+	/**
+	 * Enables the approximate best matching unit search with a {@link SomCodebookIndex}. Fewer checks are faster but miss the best
+	 * unit more often, {@link Integer#MAX_VALUE} gives the exact result with the pruning of the tree.
+	 *
+	 * @param indexChecks
+	 *            maximal amount of compared units per search, 0 for the exact search (default)
+	 */
+	public void setIndexChecks(final int indexChecks) {
+		if (indexChecks < 0) {
+			throw new IllegalArgumentException("index checks cannot be negative: " + indexChecks);
+		}
+		this.indexChecks = indexChecks;
+		if (indexChecks == 0) {
+			index = null;
+		}
+	}
+
+	/**
+	 * @return share of the training after which the index is used
+	 */
+	public double getIndexActivation() {
+		return indexActivation;
+	}
+
+	/**
+	 * @param indexActivation
+	 *            share of the training (0 - 1) after which the index is used. Before, the learning rate is high and the codebook
+	 *            moves too fast for the index, so the search is exact.
+	 */
+	public void setIndexActivation(final double indexActivation) {
+		if (indexActivation < 0 || indexActivation > 1) {
+			throw new IllegalArgumentException("index activation must be in [0, 1]: " + indexActivation);
+		}
+		this.indexActivation = indexActivation;
+	}
+
+	/**
+	 * @return online steps between two refits of the index
+	 */
+	public int getIndexRefitInterval() {
+		return indexRefitInterval;
+	}
+
+	/**
+	 * @param indexRefitInterval
+	 *            online steps between two refits of the index, the batch training refits after every epoch
+	 */
+	public void setIndexRefitInterval(final int indexRefitInterval) {
+		if (indexRefitInterval < 1) {
+			throw new IllegalArgumentException("refit interval must be positive: " + indexRefitInterval);
+		}
+		this.indexRefitInterval = indexRefitInterval;
+	}
+
+	/**
+	 * Builds the index over the current codebook, e.g. to score vectors with a trained som. It is used by
+	 * {@link #findBestMatchingUnit(double[])} if the index checks are positive.
+	 */
+	public void buildIndex() {
+		index = new SomCodebookIndex(codebook, inputLayerSize);
+		indexStack = index.createStack();
+		stepsSinceRefit = 0;
+	}
+
+	/**
+	 * @return a copy of the weights of all output neurons, neuron i uses [i * input size, (i + 1) * input size)
+	 */
+	public double[] getCodebook() {
+		return codebook.clone();
+	}
+
+	/**
+	 * Replaces the weights of all output neurons, they are copied into the codebook and the synapses. An index is refitted to the
+	 * new weights.
+	 *
+	 * @param codebook
+	 *            neuron i uses [i * input size, (i + 1) * input size)
+	 */
+	public void setCodebook(final double[] codebook) {
+		if (codebook.length != this.codebook.length) {
+			throw new IllegalArgumentException("codebook length " + codebook.length + " != " + this.codebook.length);
+		}
+		System.arraycopy(codebook, 0, this.codebook, 0, codebook.length);
+		syncSynapses();
+		if (index != null) {
+			index.refit();
+		}
+	}
+
+	/**
+	 * Copies the codebook into the synapses. The training does this when it stops, and with a {@link #delay} also while it runs so
+	 * the views can follow.
+	 */
+	public void syncSynapses() {
+		for (int k = 0; k < codebook.length; k++) {
+			mirror[k].setWeight(codebook[k]);
+		}
+	}
+
+	/**
+	 * @return weight from input j to output neuron i
+	 */
+	public double getWeight(final int j, final int i) {
+		return codebook[i * inputLayerSize + j];
+	}
+
 	/**
 	 * Creates a som with a grid neighborhood relation.<br>
 	 * Input size can be used for visualisation: 2 inputs -> x,y coordinates,<br>
@@ -134,6 +431,8 @@ public class SomNetwork extends BasicNetwork {
 		neuronArrayWrapper = new MDDA<Neuron>(outputDimension);
 		Object[] multiDimArray = neuronArrayWrapper.getArray();
 		synapseMatrix = new SynapseMatrix(this, inputSize, multiDimArray.length);
+		codebook = new double[multiDimArray.length * inputSize];
+		mirror = new Synapse[codebook.length];
 		for (int i = 0; i < multiDimArray.length; i++) {
 			Neuron n = new Neuron(new SigmoidFunction(), false);
 			n.setId(neuronIdCounter++);
@@ -145,6 +444,8 @@ public class SomNetwork extends BasicNetwork {
 			for (Neuron fromNeuron : inputLayer.getNeurons()) {
 				Synapse s = new Synapse(fromNeuron, n);
 				s.setWeight(r.nextDouble() * patternRange - patternRange / 2);
+				codebook[i * inputSize + fromNeuron.getLayerIndex()] = s.getWeight();
+				mirror[i * inputSize + fromNeuron.getLayerIndex()] = s;
 				// for som DO NOT use glaobel id, only the index of the layer
 				synapseMatrix.addOrUpdateSynapse(s, fromNeuron.getLayerIndex(), n.getLayerIndex());
 			}
@@ -160,7 +461,91 @@ public class SomNetwork extends BasicNetwork {
 	}
 
 	public void train(final double min, final double max) {
-		trainExp(min, max);
+		if (algorithm == Algorithm.BATCH) {
+			double[] data = new double[batchSize * inputLayerSize];
+			for (int s = 0; s < batchSize; s++) {
+				System.arraycopy(createRandomVector(random, min, max), 0, data, s * inputLayerSize, inputLayerSize);
+			}
+			trainBatch(new DataPairSet(data, new double[0], batchSize, inputLayerSize, 0), Math.max(1, maxIterations / batchSize));
+		} else {
+			trainExp(min, max);
+		}
+	}
+
+	/**
+	 * Trains with the input rows of the set, the ideal rows are ignored. Each epoch presents every row once, the online rule in a
+	 * new random order (sampling without replacement). The rows are not copied, views work as well.
+	 *
+	 * @param set
+	 * @param epochs
+	 */
+	public void train(final DataPairSet set, final int epochs) {
+		if (set.getInputSize() != inputLayerSize) {
+			throw new IllegalArgumentException("input size " + set.getInputSize() + " != " + inputLayerSize);
+		}
+		if (epochs < 1) {
+			throw new IllegalArgumentException("epochs must be positive: " + epochs);
+		}
+		if (set.getRows() == 0) {
+			return;
+		}
+		if (algorithm == Algorithm.BATCH) {
+			trainBatch(set, epochs);
+		} else {
+			trainOnline(set, epochs);
+		}
+	}
+
+	/**
+	 * Trains with row-major vectors, see {@link #train(DataPairSet, int)}
+	 *
+	 * @param data
+	 *            at least rows * input size values
+	 * @param rows
+	 * @param epochs
+	 */
+	public void train(final double[] data, final int rows, final int epochs) {
+		train(new DataPairSet(data, new double[0], rows, inputLayerSize, 0), epochs);
+	}
+
+	/**
+	 * Trains with the online rule on a stream of vectors, e.g. rows read from a large file. The vectors are copied into a buffer,
+	 * a full buffer is presented in a random order, so only bufferSize vectors are in memory and the iterator may return the same
+	 * array again. Learning rate and radius decay over the max iterations and keep their final value on longer streams.
+	 *
+	 * @param vectors
+	 * @param bufferSize
+	 *            amount of vectors which are shuffled together
+	 * @return amount of presented vectors
+	 */
+	public long train(final Iterator<double[]> vectors, final int bufferSize) {
+		if (bufferSize < 1) {
+			throw new IllegalArgumentException("buffer size must be positive: " + bufferSize);
+		}
+		double[] buffer = new double[bufferSize * inputLayerSize];
+		int[] order = new int[bufferSize];
+		double[] inputVector = new double[inputLayerSize];
+		long step = 0;
+		boolean running = true;
+		while (running && vectors.hasNext()) {
+			int count = 0;
+			while (count < bufferSize && vectors.hasNext()) {
+				double[] v = vectors.next();
+				if (v.length != inputLayerSize) {
+					throw new IllegalArgumentException("input length " + v.length + " != " + inputLayerSize);
+				}
+				System.arraycopy(v, 0, buffer, count * inputLayerSize, inputLayerSize);
+				order[count] = count;
+				count++;
+			}
+			shuffle(order, count);
+			for (int k = 0; k < count && running; k++) {
+				System.arraycopy(buffer, order[k] * inputLayerSize, inputVector, 0, inputLayerSize);
+				running = step(inputVector, ++step, maxIterations);
+			}
+		}
+		trainingDone();
+		return step;
 	}
 
 	/**
@@ -168,21 +553,196 @@ public class SomNetwork extends BasicNetwork {
 	 * @param max
 	 */
 	private void trainExp(final double min, final double max) {
-
 		for (int i = 1; i <= maxIterations; i++) {
-			double factor = i / maxIterations;
-			double learnFactor = initalLearningRate * Math.exp(-factor);
-			System.out.println(learnFactor);
-			double[] inputVector = createRandomVector(min, max);
-			run(inputVector, learnFactor, (int) (initialNeighbor * (1 - factor)));
-			try {
-				Thread.sleep(delay);
-			} catch (InterruptedException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
+			double[] inputVector = createRandomVector(random, min, max);
+			if (step(inputVector, i, maxIterations) == false) {
+				break;
 			}
 		}
+		trainingDone();
+
+	}
+
+	private void trainOnline(final DataPairSet set, final int epochs) {
+		int rows = set.getRows();
+		int[] order = new int[rows];
+		for (int r = 0; r < rows; r++) {
+			order[r] = r;
+		}
+		double[] inputVector = new double[inputLayerSize];
+		long total = (long) epochs * rows;
+		long step = 0;
+		for (int epoch = 0; epoch < epochs; epoch++) {
+			shuffle(order, rows);
+			for (int k = 0; k < rows; k++) {
+				System.arraycopy(set.getInputData(), set.getInputOffset(order[k]), inputVector, 0, inputLayerSize);
+				if (step(inputVector, ++step, total) == false) {
+					trainingDone();
+					return;
+				}
+			}
+		}
+		trainingDone();
+	}
+
+	/**
+	 * One step of the online rule, learning rate and radius decay with step / total
+	 *
+	 * @return false if the thread was interrupted during the delay
+	 */
+	private boolean step(final double[] inputVector, final long step, final long total) {
+		double factor = Math.min(1.0d, (double) step / total);
+		double learnFactor = initalLearningRate * Math.exp(-factor);
+		updateIndex(factor, indexRefitInterval);
+		run(inputVector, learnFactor, (int) (initialNeighbor * (1 - factor)));
+		return pause();
+	}
+
+	/**
+	 * Uses the exact search in the first part of the training, afterwards the index which is refitted to the moving codebook
+	 *
+	 * @param factor
+	 *            share of the training
+	 * @param refitInterval
+	 *            calls between two refits
+	 */
+	private void updateIndex(final double factor, final int refitInterval) {
+		if (indexChecks == 0 || factor < indexActivation) {
+			index = null;
+		} else if (index == null) {
+			buildIndex();
+		} else if (++stepsSinceRefit >= refitInterval) {
+			index.refit();
+			stepsSinceRefit = 0;
+		}
+	}
 
+	/**
+	 * Stops the workers, the synapses and the index are updated to the final codebook
+	 */
+	private void trainingDone() {
+		shutdown();
+		syncSynapses();
+		if (index != null) {
+			index.refit();
+		}
+	}
+
+	/**
+	 * Sleeps for {@link #delay} ms, so the views can follow the training
+	 *
+	 * @return false if the thread was interrupted
+	 */
+	private boolean pause() {
+		if (delay <= 0) {
+			return true;
+		}
+		try {
+			Thread.sleep(delay);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	/**
+	 * Fisher-Yates shuffle of the first count values
+	 */
+	private void shuffle(final int[] values, final int count) {
+		for (int i = count - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			int tmp = values[i];
+			values[i] = values[j];
+			values[j] = tmp;
+		}
+	}
+
+	/**
+	 * Batch training: all rows are assigned to their best matching unit on several threads, each thread sums up the rows per unit
+	 * in its own buffers. Afterwards every codebook vector is replaced by the mean of the sums, weighted with the kernel of the
+	 * grid distance.
+	 *
+	 * @param set
+	 * @param epochs
+	 */
+	private void trainBatch(final DataPairSet set, final int epochs) {
+		int neurons = neuronArrayWrapper.getArray().length;
+		int rows = set.getRows();
+		int count = Math.min(threads, rows);
+		BatchAssign[] assigns = new BatchAssign[count];
+		for (int t = 0; t < count; t++) {
+			assigns[t] = new BatchAssign(set, rows * t / count, rows * (t + 1) / count, neurons);
+		}
+		BatchAssign total = assigns[0];
+		int[] hitUnits = new int[neurons];
+		int[] grid = getGridCoordinates();
+		count = Math.min(threads, neurons);
+		BatchUpdate[] updates = new BatchUpdate[count];
+		for (int t = 0; t < count; t++) {
+			updates[t] = new BatchUpdate(total, hitUnits, grid, neurons * t / count, neurons * (t + 1) / count);
+		}
+
+		for (int epoch = 0; epoch < epochs; epoch++) {
+			double factor = (double) epoch / epochs;
+			int radius = Math.max(1, (int) (initialNeighbor * (1 - factor)));
+			updateIndex(factor, 1);
+			runAll(assigns);
+			// merged in a fixed order, so the sums do not depend on the scheduling
+			for (int t = 1; t < assigns.length; t++) {
+				total.add(assigns[t]);
+			}
+			int hitCount = 0;
+			for (int i = 0; i < neurons; i++) {
+				if (total.hits[i] > 0) {
+					hitUnits[hitCount++] = i;
+				}
+			}
+			SomNeighborhood n = getNeighborhood(radius);
+			for (BatchUpdate update : updates) {
+				update.hitCount = hitCount;
+				update.neighborhood = n;
+			}
+			runAll(updates);
+
+			if (delay > 0) {
+				// the synapses are read by the views
+				syncSynapses();
+			}
+			if (pause() == false) {
+				break;
+			}
+		}
+		trainingDone();
+	}
+
+	/**
+	 * @return grid position of all output neurons, neuron i uses [i * grid dimensions, (i + 1) * grid dimensions)
+	 */
+	private int[] getGridCoordinates() {
+		if (grid == null) {
+			int dims = neuronArrayWrapper.getSize().length;
+			int neurons = neuronArrayWrapper.getArray().length;
+			grid = new int[neurons * dims];
+			for (int i = 0; i < neurons; i++) {
+				System.arraycopy(neuronArrayWrapper.getMultiDimIndices(i), 0, grid, i * dims, dims);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * @return the precomputed neighborhood of the radius and the current kernel, built again when one of them changes
+	 */
+	SomNeighborhood getNeighborhood(final int radius) {
+		if (neighborhood == null || neighborhood.getRadius() != radius || neighborhood.getKernel() != kernel) {
+			neighborhood = new SomNeighborhood(neuronArrayWrapper.getSize(), radius, kernel);
+			if (neighborUnits == null || neighborUnits.length < neighborhood.getCount()) {
+				neighborUnits = new int[neighborhood.getCount()];
+				neighborWeights = new double[neighborhood.getCount()];
+			}
+		}
+		return neighborhood;
 	}
 
 	public MDDA<Neuron> getMultiArray() {
@@ -193,51 +753,329 @@ public class SomNetwork extends BasicNetwork {
 		if (neighborRadius < 1) {
 			neighborRadius = 1;
 		}
-		int winnerOneDimIndex = -1;
-		double min = 0.0;
-		double max = Double.MAX_VALUE;
+		if (searches == null) {
+			searches = createSearches();
+		}
+		int winner = findBestMatchingUnit(inputVector, indexStack, searches);
+		SomNeighborhood n = getNeighborhood(neighborRadius);
+		int count = n.neighbors(getGridCoordinates(), winner, neighborUnits, neighborWeights);
+		boolean views = delay > 0;
 
-		Object[] multiDimArray = neuronArrayWrapper.getArray();
-		for (int i = 0; i < multiDimArray.length; i++) {
-			double sum = 0;
+		for (int k = 0; k < count; k++) {
+			int neighbor = neighborUnits[k];
+			double rate = factor * neighborWeights[k];
+			int offset = neighbor * inputLayerSize;
 			for (int j = 0; j < inputLayerSize; j++) {
-				Synapse synapse = synapseMatrix.getSynapse(j, i);
-				if (synapse == null) {
-					throw new IllegalArgumentException("synapse is null at [" + j + "]->[" + i + "]");
+				codebook[offset + j] += rate * (inputVector[j] - codebook[offset + j]);
+			}
+			if (views) {
+				// the synapses are read by the views
+				for (int j = offset; j < offset + inputLayerSize; j++) {
+					mirror[j].setWeight(codebook[j]);
 				}
-				sum += Math.pow(inputVector[j] - synapse.getWeight(), 2);
 			}
-			min = Math.sqrt(sum);
-			if (min < max) {
-				winnerOneDimIndex = i;
-				max = min;
+		}
+	}
+
+	/**
+	 * Finds the output neuron with the smallest (squared euclidean) distance to the input. Maps with at least
+	 * {@link #getParallelThreshold()} neurons are split into ranges which are searched on several threads.<br>
+	 * Each call uses its own search state, so several threads may score against the same map as long as it is not trained at the
+	 * same time.
+	 *
+	 * @param inputVector
+	 * @return index of the output neuron, the lowest index on equal distances
+	 */
+	public int findBestMatchingUnit(final double[] inputVector) {
+		SomCodebookIndex current = index;
+		return findBestMatchingUnit(inputVector, current != null ? current.createStack() : null, null);
+	}
+
+	/**
+	 * @param stack
+	 *            for the index
+	 * @param tasks
+	 *            range searches for large maps, created on demand if null
+	 */
+	private int findBestMatchingUnit(final double[] inputVector, final int[] stack, BmuSearch[] tasks) {
+		if (inputVector.length != inputLayerSize) {
+			throw new IllegalArgumentException("input length " + inputVector.length + " != " + inputLayerSize);
+		}
+		SomCodebookIndex current = index;
+		if (current != null && indexChecks > 0) {
+			return current.nearest(inputVector, indexChecks, stack);
+		}
+		int neurons = codebook.length / Math.max(1, inputLayerSize);
+		if (threads == 1 || neurons < parallelThreshold) {
+			return nearest(codebook, inputLayerSize, inputVector, 0, neurons, null);
+		}
+		if (tasks == null) {
+			tasks = createSearches();
+		}
+		for (BmuSearch search : tasks) {
+			search.input = inputVector;
+		}
+		runAll(tasks);
+		// ranges are ascending, so the first of equal distances wins
+		int winner = tasks[0].winner;
+		double best = tasks[0].distance;
+		for (int t = 1; t < tasks.length; t++) {
+			if (tasks[t].distance < best) {
+				best = tasks[t].distance;
+				winner = tasks[t].winner;
+			}
+		}
+		return winner;
+	}
+
+	/**
+	 * Squared distance kernel over a range of the codebook, without sqrt since only the order matters
+	 *
+	 * @param distance
+	 *            receives the distance of the winner at index 0, may be null
+	 * @return index of the nearest neuron in [from, to)
+	 */
+	static int nearest(final double[] codebook, final int dims, final double[] input, final int from, final int to,
+			final double[] distance) {
+		int winner = -1;
+		double best = Double.POSITIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			int offset = i * dims;
+			double sum = 0.0d;
+			for (int j = 0; j < dims; j++) {
+				double diff = input[j] - codebook[offset + j];
+				sum += diff * diff;
 			}
-			min = 0.0;
+			if (sum < best) {
+				best = sum;
+				winner = i;
+			}
+		}
+		if (distance != null) {
+			distance[0] = best;
+		}
+		return winner;
+	}
 
-			// für jedes output neuron, ermittele gewinner neuron
-			// und speichere index (pseudo multi dim indizes)
+	private BmuSearch[] createSearches() {
+		int neurons = codebook.length / Math.max(1, inputLayerSize);
+		int count = Math.max(1, Math.min(threads, neurons));
+		BmuSearch[] tasks = new BmuSearch[count];
+		for (int t = 0; t < count; t++) {
+			tasks[t] = new BmuSearch(neurons * t / count, neurons * (t + 1) / count);
 		}
+		return tasks;
+	}
 
-		int[] indices = neuronArrayWrapper.getMultiDimIndices(winnerOneDimIndex);
+	/**
+	 * Runs the tasks on the pool and waits for all of them, the calling thread takes the first task
+	 */
+	private void runAll(final Callable<?>[] tasks) {
+		List<Future<?>> futures = new ArrayList<Future<?>>(tasks.length);
+		if (tasks.length > 1) {
+			ExecutorService workers = getPool();
+			for (int t = 1; t < tasks.length; t++) {
+				futures.add(workers.submit(tasks[t]));
+			}
+		}
+		try {
+			tasks[0].call();
+			for (Future<?> f : futures) {
+				f.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("som worker interrupted", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("som worker failed", e.getCause());
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException("som worker failed", e);
+		}
+	}
 
-		Set<Integer> neighborIndices = neuronArrayWrapper.getNeighborForAllDims(neighborRadius, indices);
-		neighborIndices.add(winnerOneDimIndex);
+	/**
+	 * @return the worker threads, created on the first call
+	 */
+	private synchronized ExecutorService getPool() {
+		if (pool == null) {
+			pool = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable r) {
+					Thread t = new Thread(r, "SOM worker");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+		return pool;
+	}
 
-		for (int neighbor : neighborIndices) {
-			for (int j = 0; j < inputLayerSize; j++) {
-				Synapse synapse = synapseMatrix.getSynapse(j, neighbor);
-				if (synapse == null) {
-					throw new IllegalArgumentException("synapse is null at [" + j + "]->[" + neighbor + "]");
+	/**
+	 * Stops the worker threads, they are created again when needed
+	 */
+	public synchronized void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+		searches = null;
+	}
+
+	/**
+	 * Searches the best matching unit in a fixed range of output neurons
+	 */
+	private class BmuSearch implements Callable<Void> {
+
+		private final int from;
+		private final int to;
+		private final double[] best = new double[1];
+		private double[] input;
+		private int winner;
+		private double distance;
+
+		BmuSearch(final int from, final int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public Void call() {
+			winner = nearest(codebook, inputLayerSize, input, from, to, best);
+			distance = best[0];
+			return null;
+		}
+	}
+
+	/**
+	 * Assigns a range of rows to their best matching unit and sums them up per unit
+	 */
+	private class BatchAssign implements Callable<Void> {
+
+		private final DataPairSet set;
+		private final int from;
+		private final int to;
+		private final double[] vector = new double[inputLayerSize];
+		private final double[] sums;
+		private final int[] hits;
+		private SomCodebookIndex stackIndex;
+		private int[] stack;
+
+		BatchAssign(final DataPairSet set, final int from, final int to, final int neurons) {
+			this.set = set;
+			this.from = from;
+			this.to = to;
+			sums = new double[neurons * inputLayerSize];
+			hits = new int[neurons];
+		}
+
+		@Override
+		public Void call() {
+			Arrays.fill(sums, 0.0d);
+			Arrays.fill(hits, 0);
+			for (int s = from; s < to; s++) {
+				System.arraycopy(set.getInputData(), set.getInputOffset(s), vector, 0, inputLayerSize);
+				int winner;
+				if (index != null) {
+					if (stackIndex != index) {
+						stackIndex = index;
+						stack = index.createStack();
+					}
+					winner = index.nearest(vector, indexChecks, stack);
+				} else {
+					winner = nearest(codebook, inputLayerSize, vector, 0, hits.length, null);
 				}
-				Double oldValue = synapse.getWeight();
-				synapse.setWeight(oldValue + factor * (inputVector[j] - oldValue));
+				int offset = winner * inputLayerSize;
+				for (int j = 0; j < inputLayerSize; j++) {
+					sums[offset + j] += vector[j];
+				}
+				hits[winner]++;
 			}
+			return null;
+		}
+
+		void add(final BatchAssign other) {
+			for (int k = 0; k < sums.length; k++) {
+				sums[k] += other.sums[k];
+			}
+			for (int i = 0; i < hits.length; i++) {
+				hits[i] += other.hits[i];
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the codebook vectors of a range of output neurons from the merged sums. The sums and hits of every hit unit are
+	 * spread to its neighborhood, negative kernel weights count as 0. Only neighbors inside the range are updated, so the order
+	 * of the additions per neuron does not depend on the amount of threads.
+	 */
+	private class BatchUpdate implements Callable<Void> {
+
+		private final BatchAssign total;
+		private final int[] hitUnits;
+		private final int[] grid;
+		private final int from;
+		private final int to;
+		/** weighted sums of the neurons in the range, neuron i uses [(i - from) * input size, (i - from + 1) * input size) */
+		private final double[] sums;
+		private final double[] weights;
+		private int hitCount;
+		private SomNeighborhood neighborhood;
+		private int[] units = new int[0];
+		private double[] unitWeights = new double[0];
+
+		BatchUpdate(final BatchAssign total, final int[] hitUnits, final int[] grid, final int from, final int to) {
+			this.total = total;
+			this.hitUnits = hitUnits;
+			this.grid = grid;
+			this.from = from;
+			this.to = to;
+			sums = new double[(to - from) * inputLayerSize];
+			weights = new double[to - from];
+		}
+
+		@Override
+		public Void call() {
+			if (units.length < neighborhood.getCount()) {
+				units = new int[neighborhood.getCount()];
+				unitWeights = new double[neighborhood.getCount()];
+			}
+			Arrays.fill(sums, 0.0d);
+			Arrays.fill(weights, 0.0d);
+			for (int k = 0; k < hitCount; k++) {
+				int unit = hitUnits[k];
+				int count = neighborhood.neighbors(grid, unit, units, unitWeights);
+				int source = unit * inputLayerSize;
+				for (int c = 0; c < count; c++) {
+					int i = units[c];
+					if (i < from || i >= to || unitWeights[c] <= 0) {
+						continue;
+					}
+					double h = unitWeights[c];
+					weights[i - from] += h * total.hits[unit];
+					int offset = (i - from) * inputLayerSize;
+					for (int j = 0; j < inputLayerSize; j++) {
+						sums[offset + j] += h * total.sums[source + j];
+					}
+				}
+			}
+			for (int i = from; i < to; i++) {
+				double weight = weights[i - from];
+				if (weight > 0) {
+					int offset = (i - from) * inputLayerSize;
+					int target = i * inputLayerSize;
+					for (int j = 0; j < inputLayerSize; j++) {
+						codebook[target + j] = sums[offset + j] / weight;
+					}
+				}
+			}
+			return null;
 		}
 	}
 
-	private double[] createRandomVector(final double min, final double max) {
+	private double[] createRandomVector(final Random r, final double min, final double max) {
 		double[] randomVector = new double[inputLayerSize];
-		Random r = new Random();
 		double factor = max - min;
 		if (square) {
 			for (int i = 0; i < inputLayerSize; i++) {
@@ -22,12 +22,12 @@ public class Synapse {
 	 * Delta or error between the actual and desired value.<br>
 	 * Needed for backpropagation
 	 */
-	private Double deltaWeight = 0.0d;
+	private double deltaWeight = 0.0d;
 	
 	/**
-	 * database of the net
+	 * database of the net, {@link Double#NaN} until the weight is set
 	 */
-	private Double weight;
+	private double weight = Double.NaN;
 	
 	/**
 	 * 
@@ -44,7 +44,6 @@ public class Synapse {
 	 * @param toNeuron
 	 */
 	public Synapse(Neuron fromNeuron, Neuron toNeuron) {
-		weight = null;
 		setFromNeuron(fromNeuron);
 		setToNeuron(toNeuron);
 	}
@@ -85,16 +84,23 @@ public class Synapse {
 	}
  
 	/**
-	 * @return weight
+	 * @return weight, {@link Double#NaN} if not set yet
 	 */
-	public Double getWeight() {
+	public double getWeight() {
 		return weight;
 	}
 
+	/**
+	 * @return false if the weight was not set yet, e.g. for random weights of an imported net
+	 */
+	public boolean hasWeight() {
+		return Double.isNaN(weight) == false;
+	}
+
 	/**
 	 * @return delta weight / error
 	 */
-	public Double getDeltaWeight() {
+	public double getDeltaWeight() {
 		return deltaWeight;
 	}
 
@@ -121,7 +127,7 @@ public class Synapse {
 		sb.append(" -> ");
 		sb.append(toNeuron.getPosition());
 		sb.append(" weight = ");
-		sb.append(weight);
+		sb.append(hasWeight() ? String.valueOf(weight) : "null");
 		return sb.toString();
 	}
 
@@ -132,7 +138,7 @@ public class Synapse {
 		batchDelta = 0;
 	}
 	
-	public Double getBatchDelta() {
+	public double getBatchDelta() {
 		return batchDelta;
 	}
 
@@ -2,18 +2,34 @@ package de.unikassel.ann.model;
 
 /**
  * Containts all synapses of a network<br>
- * Matrix is has a NxN size<br>
  * First index = fromNeuron, second index = toNeuron<br>
- * Its possible that each neuron have connection to every neuron<br>
  * Access for synapses or weights can used with index. 
- * null will be returned if synapse or weight does not exist.
+ * null will be returned if synapse or weight does not exist.<br>
+ * Only existing synapses are stored: each neuron has a row of its outgoing synapses sorted by the to index (CSR) and a row of its
+ * incoming synapses sorted by the from index (CSC), so memory grows with the synapses and not with NxN. Lookups use a binary
+ * search, the synapses of a neuron can be iterated in O(degree) with {@link #getOutDegree(int)} and {@link #getInDegree(int)}.
  *
  */
 public class SynapseMatrix {
 	
-	private Synapse[][] matrix;
+	private static final int INITIAL_DEGREE = 4;
+	
 	private BasicNetwork network;
 	
+	private int fromSize = -1;
+	private int toSize = -1;
+	private int synapseCount;
+	
+	/* outgoing rows, indexed by from */
+	private int[][] outIndex;
+	private Synapse[][] outSynapses;
+	private int[] outDegree;
+	
+	/* incoming rows, indexed by to */
+	private int[][] inIndex;
+	private Synapse[][] inSynapses;
+	private int[] inDegree;
+	
 	public SynapseMatrix(BasicNetwork network, Integer fromSize, Integer toSize) {
 		this.network = network;
 		if (fromSize != null && toSize != null) {
@@ -21,8 +37,19 @@ public class SynapseMatrix {
 		}
 	}
 	
+	/**
+	 * Sets the size and removes all synapses
+	 */
 	public void setSize(Integer fromSize, Integer toSize) {
-		matrix = new Synapse[fromSize][toSize];
+		this.fromSize = fromSize;
+		this.toSize = toSize;
+		synapseCount = 0;
+		outIndex = new int[fromSize][];
+		outSynapses = new Synapse[fromSize][];
+		outDegree = new int[fromSize];
+		inIndex = new int[toSize][];
+		inSynapses = new Synapse[toSize][];
+		inDegree = new int[toSize];
 	}
 	
 	/**
@@ -37,53 +64,214 @@ public class SynapseMatrix {
 		if (from == null || to == null) {
 			throw new IllegalAccessError("neurons using synapse matrix, but have no id!");
 		}
-		boolean updated = false;
-		if (matrix[from][to] != null) {
-			updated = true;
+		if (from < 0 || from >= fromSize || to < 0 || to >= toSize) {
+			throw new ArrayIndexOutOfBoundsException("synapse " + from + " -> " + to + " outside of " + fromSize + "x" + toSize);
+		}
+		boolean updated = put(outIndex, outSynapses, outDegree, from, to, s);
+		put(inIndex, inSynapses, inDegree, to, from, s);
+		if (updated == false) {
+			synapseCount++;
 		}
-		matrix[from][to] = s;
 		return updated;
 	}
 	
-	public Synapse getSynapse(Integer from, Integer to) {
-		try {
-			return matrix[from][to];
-		} catch (ArrayIndexOutOfBoundsException e) {
+	/**
+	 * @return the removed synapse, null if it does not exist
+	 */
+	public Synapse removeSynapse(int from, int to) {
+		if (from < 0 || from >= fromSize || to < 0 || to >= toSize) {
 			return null;
-		} catch (NullPointerException e) {
+		}
+		Synapse removed = remove(outIndex, outSynapses, outDegree, from, to);
+		if (removed != null) {
+			remove(inIndex, inSynapses, inDegree, to, from);
+			synapseCount--;
+		}
+		return removed;
+	}
+	
+	/**
+	 * Removes all synapses, the size is kept
+	 */
+	public void clear() {
+		if (fromSize >= 0) {
+			setSize(fromSize, toSize);
+		}
+	}
+	
+	public Synapse getSynapse(Integer from, Integer to) {
+		if (from == null || to == null || from < 0 || from >= fromSize || to < 0 || to >= toSize) {
 			return null;
 		}
+		int k = find(outIndex[from], outDegree[from], to);
+		return k < 0 ? null : outSynapses[from][k];
 	}
 	
 	public boolean isNotEmpty() {
-		return matrix != null && matrix.length > 0;
+		return fromSize > 0;
 	}
 	
 	public Double getWeight(Integer from, Integer to) {
-		try {
-			return matrix[from][to].getWeight();
-		} catch (ArrayIndexOutOfBoundsException e) {
-			return null;
-		} catch (NullPointerException e) {
+		Synapse s = getSynapse(from, to);
+		if (s == null) {
 			return null;
 		}
+		return s.hasWeight() ? s.getWeight() : null;
 	}
 	
 	public boolean setWeight(Integer from, Integer to, Double value) {
-		try {
-			matrix[from][to].setWeight(value);
-			return true;
-		} catch (ArrayIndexOutOfBoundsException e) {
-			return false;
-		} catch (NullPointerException e) {
+		Synapse s = getSynapse(from, to);
+		if (s == null || value == null) {
 			return false;
 		}
+		s.setWeight(value);
+		return true;
 	}
 	
+	/**
+	 * Creates a dense NxN array of the synapses, only for small networks
+	 * 
+	 * @return null if no size is set
+	 */
 	public Synapse[][] getSynapses() {
+		if (fromSize < 0) {
+			return null;
+		}
+		Synapse[][] matrix = new Synapse[fromSize][toSize];
+		for (int from = 0; from < fromSize; from++) {
+			for (int k = 0; k < outDegree[from]; k++) {
+				matrix[from][outIndex[from][k]] = outSynapses[from][k];
+			}
+		}
 		return matrix;
 	}
 	
+	public int getFromSize() {
+		return Math.max(0, fromSize);
+	}
+	
+	public int getToSize() {
+		return Math.max(0, toSize);
+	}
+	
+	/**
+	 * @return amount of stored synapses
+	 */
+	public int getSynapseCount() {
+		return synapseCount;
+	}
+	
+	/**
+	 * @return amount of synapses starting at from
+	 */
+	public int getOutDegree(int from) {
+		return outDegree[from];
+	}
+	
+	/**
+	 * @return to index of the k-th outgoing synapse of from, ascending in k
+	 */
+	public int getOutgoingTarget(int from, int k) {
+		checkDegree(k, outDegree[from]);
+		return outIndex[from][k];
+	}
+	
+	public Synapse getOutgoingSynapse(int from, int k) {
+		checkDegree(k, outDegree[from]);
+		return outSynapses[from][k];
+	}
+	
+	/**
+	 * @return amount of synapses ending at to
+	 */
+	public int getInDegree(int to) {
+		return inDegree[to];
+	}
+	
+	/**
+	 * @return from index of the k-th incoming synapse of to, ascending in k
+	 */
+	public int getIncomingSource(int to, int k) {
+		checkDegree(k, inDegree[to]);
+		return inIndex[to][k];
+	}
+	
+	public Synapse getIncomingSynapse(int to, int k) {
+		checkDegree(k, inDegree[to]);
+		return inSynapses[to][k];
+	}
+	
+	private static void checkDegree(int k, int degree) {
+		if (k < 0 || k >= degree) {
+			throw new IndexOutOfBoundsException("synapse " + k + " of " + degree);
+		}
+	}
+	
+	/**
+	 * @return position of key in the first length indices, (-(insertion point) - 1) if it is missing
+	 */
+	private static int find(int[] indices, int length, int key) {
+		int low = 0;
+		int high = length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (indices[mid] < key) {
+				low = mid + 1;
+			} else if (indices[mid] > key) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+	
+	/**
+	 * Inserts or replaces the synapse of key in the row
+	 * 
+	 * @return true if it was replaced
+	 */
+	private static boolean put(int[][] index, Synapse[][] synapses, int[] degree, int row, int key, Synapse s) {
+		int length = degree[row];
+		int k = find(index[row], length, key);
+		if (k >= 0) {
+			synapses[row][k] = s;
+			return true;
+		}
+		k = -k - 1;
+		if (index[row] == null) {
+			index[row] = new int[INITIAL_DEGREE];
+			synapses[row] = new Synapse[INITIAL_DEGREE];
+		} else if (length == index[row].length) {
+			int[] largerIndex = new int[length * 2];
+			Synapse[] largerSynapses = new Synapse[length * 2];
+			System.arraycopy(index[row], 0, largerIndex, 0, length);
+			System.arraycopy(synapses[row], 0, largerSynapses, 0, length);
+			index[row] = largerIndex;
+			synapses[row] = largerSynapses;
+		}
+		System.arraycopy(index[row], k, index[row], k + 1, length - k);
+		System.arraycopy(synapses[row], k, synapses[row], k + 1, length - k);
+		index[row][k] = key;
+		synapses[row][k] = s;
+		degree[row]++;
+		return false;
+	}
+	
+	private static Synapse remove(int[][] index, Synapse[][] synapses, int[] degree, int row, int key) {
+		int length = degree[row];
+		int k = find(index[row], length, key);
+		if (k < 0) {
+			return null;
+		}
+		Synapse removed = synapses[row][k];
+		System.arraycopy(index[row], k + 1, index[row], k, length - k - 1);
+		System.arraycopy(synapses[row], k + 1, synapses[row], k, length - k - 1);
+		synapses[row][length - 1] = null;
+		degree[row]--;
+		return removed;
+	}
+	
 	/**
 	 * Updates the weights of the existing synapses<br>
 	 * You can not pass weights for not existing synapses, 
@@ -91,10 +279,10 @@ public class SynapseMatrix {
 	 * @param x
 	 */
 	public void setWeightMatrix(Double[][] x) {
-		if (matrix.length == x.length &&
-				matrix[0].length == x[0].length) {
-			for (int i=0; i<matrix.length; i++) {
-				for (int j=0; j<matrix[0].length; j++) {
+		if (fromSize == x.length &&
+				toSize == x[0].length) {
+			for (int i=0; i<fromSize; i++) {
+				for (int j=0; j<toSize; j++) {
 					Synapse s = getSynapse(i, j);
 					Double weightToSet = x[i][j];
 					if (s != null && weightToSet != null) {
@@ -114,16 +302,14 @@ public class SynapseMatrix {
 		int biggestSize = network.getBiggestLayer();
 		
 		Double[][][][] bigMatrix = new Double[layerSize][biggestSize][layerSize][biggestSize];
-		for (int from=0; from<matrix.length; from++) {
-			for (int to=0; to<matrix.length; to++) {
-				Synapse s = getSynapse(from, to);
-				if (s != null) {
-					int fromLayer = s.getFromNeuron().getLayer().getIndex();
-					int fromNeuron = s.getFromNeuron().getLayerIndex();
-					int toLayer = s.getToNeuron().getLayer().getIndex();
-					int toNeuron = s.getToNeuron().getLayerIndex();
-					bigMatrix[fromLayer][fromNeuron][toLayer][toNeuron] = s.getWeight();
-				}
+		for (int from=0; from<getFromSize(); from++) {
+			for (int k=0; k<outDegree[from]; k++) {
+				Synapse s = outSynapses[from][k];
+				int fromLayer = s.getFromNeuron().getLayer().getIndex();
+				int fromNeuron = s.getFromNeuron().getLayerIndex();
+				int toLayer = s.getToNeuron().getLayer().getIndex();
+				int toNeuron = s.getToNeuron().getLayerIndex();
+				bigMatrix[fromLayer][fromNeuron][toLayer][toNeuron] = s.hasWeight() ? s.getWeight() : null;
 			}
 		}
 		return bigMatrix;
@@ -1,9 +1,28 @@
 package de.unikassel.ann.model.func;
 
+/**
+ * Activation function of a neuron.<br>
+ * Implementations must be stateless, neurons with functions of the same class are evaluated together with the array forms.
+ */
 public interface ActivationFunction {
 	
-	public Double activate (Double x);
+	public double activate(double x);
 	
-	public Double derivate(Double x);
+	/**
+	 * @param y
+	 *            output of {@link #activate(double)}
+	 * @return derivation at the given output
+	 */
+	public double derivate(double y);
+	
+	/**
+	 * out[i] = activate(in[i]) for from &lt;= i &lt; to, in and out may be the same array
+	 */
+	public void activate(double[] in, double[] out, int from, int to);
+	
+	/**
+	 * out[i] = derivate(in[i]) for from &lt;= i &lt; to, in and out may be the same array
+	 */
+	public void derivate(double[] in, double[] out, int from, int to);
 	
 }
@@ -3,22 +3,29 @@ package de.unikassel.ann.model.func;
 public class SigmoidFunction implements ActivationFunction {
 
 	@Override
-	public Double activate(Double x) {
+	public double activate(final double x) {
 		// 1 / 1 + e^-x
-		return 1 / (1 + Math.pow(Math.E, -x));
+		return 1.0d / (1.0d + Math.exp(-x));
+	}
+
+	@Override
+	public double derivate(final double x) {
+		return x * (1.0d - x);
 	}
-	
 
-//	public void activate(Double[] array) {
-//		// 1 / 1 + e^-x
-//		for (Double x : array) {
-//			x = 1 / (1 + Math.pow(Math.E, -x));
-//		}
-//	}
+	@Override
+	public void activate(final double[] in, final double[] out, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			out[i] = 1.0d / (1.0d + Math.exp(-in[i]));
+		}
+	}
 
 	@Override
-	public Double derivate(Double x) {
-		return x * (1.0 - x);
+	public void derivate(final double[] in, final double[] out, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			double x = in[i];
+			out[i] = x * (1.0d - x);
+		}
 	}
 	
 }
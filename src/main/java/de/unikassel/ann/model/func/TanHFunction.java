@@ -3,13 +3,28 @@ package de.unikassel.ann.model.func;
 public class TanHFunction implements ActivationFunction {
 
 	@Override
-	public Double activate(Double x) {
+	public double activate(final double x) {
 		return Math.tanh(x);
 	}
 
 	@Override
-	public Double derivate(Double x) {
-		return (1.0 - x * x);
+	public double derivate(final double x) {
+		return (1.0d - x * x);
+	}
+
+	@Override
+	public void activate(final double[] in, final double[] out, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			out[i] = Math.tanh(in[i]);
+		}
+	}
+
+	@Override
+	public void derivate(final double[] in, final double[] out, final int from, final int to) {
+		for (int i = from; i < to; i++) {
+			double x = in[i];
+			out[i] = 1.0d - x * x;
+		}
 	}
 	
 }
@@ -10,6 +10,7 @@ package de.unikassel.ann.normalize;
 import org.apache.commons.lang.ArrayUtils;
 
 import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.DataPairSetBuilder;
 
 /**
  * @author anton
@@ -67,26 +68,27 @@ public class NormUtil {
 	 */
 	public static DataPairSet normalize(final DataPairSet trainSet, final double minNormValue, final double maxNormValue) {
 
-		if (trainSet.getInput().length <= 0 || trainSet.getIdeal().length <= 0) {
+		if (trainSet.getRows() <= 0) {
 			return null;
 		}
 
-		Double[][] inAndOut = trainSet.getInputAndIdeal();
+		int inputSize = trainSet.getInputSize();
+		int idealSize = trainSet.getIdealSize();
+		int fieldLenght = inputSize + idealSize;
 
-		int fieldLenght = inAndOut[0].length;
-
-		Double[] min = new Double[fieldLenght];
-		Double[] max = new Double[fieldLenght];
+		double[] min = new double[fieldLenght];
+		double[] max = new double[fieldLenght];
 		for (int j = 0; j < fieldLenght; j++) {
 			min[j] = Double.MAX_VALUE;
 			max[j] = -Double.MAX_VALUE;
 		}
 
 		// save min, max
-		for (int i = 0; i < inAndOut.length; i++) {
-			for (int j = 0; j < inAndOut[i].length; j++) {
-				min[j] = Math.min(inAndOut[i][j], min[j]);
-				max[j] = Math.max(inAndOut[i][j], max[j]);
+		for (int i = 0; i < trainSet.getRows(); i++) {
+			for (int j = 0; j < fieldLenght; j++) {
+				double value = j < inputSize ? trainSet.getInput(i, j) : trainSet.getIdeal(i, j - inputSize);
+				min[j] = Math.min(value, min[j]);
+				max[j] = Math.max(value, max[j]);
 			}
 		}
 
@@ -95,16 +97,20 @@ public class NormUtil {
 			normUtil[j] = new NormUtil(min[j], max[j], minNormValue, maxNormValue);
 		}
 
-		DataPairSet resultPairSet = new DataPairSet(trainSet);
-		Double[][] resultArray = resultPairSet.getInputAndIdeal();
-
-		for (int i = 0; i < inAndOut.length; i++) {
-			for (int j = 0; j < inAndOut[i].length; j++) {
-				resultArray[i][j] = normUtil[j].normalize(inAndOut[i][j]);
+		// the normalized values are the only copy
+		DataPairSetBuilder builder = new DataPairSetBuilder(inputSize, idealSize, trainSet.getRows());
+		double[] input = new double[inputSize];
+		double[] ideal = new double[idealSize];
+		for (int i = 0; i < trainSet.getRows(); i++) {
+			for (int j = 0; j < inputSize; j++) {
+				input[j] = normUtil[j].normalize(trainSet.getInput(i, j));
+			}
+			for (int j = 0; j < idealSize; j++) {
+				ideal[j] = normUtil[inputSize + j].normalize(trainSet.getIdeal(i, j));
 			}
+			builder.addRow(input, ideal);
 		}
-		resultPairSet.setInputAndIdeal(resultArray, trainSet.getInput()[0].length, trainSet.getIdeal()[0].length);
-		return resultPairSet;
+		return builder.build();
 	}
 
 	/**
@@ -10,7 +10,7 @@ public class RestartImprovementStrategy extends Strategy {
 	private static NumberFormat fmt = new DecimalFormat("0.00000", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
 	public Integer _iterationForRestart;
 	public Double _minimalImprovement;
-	private Integer iterationWithBadImprovement = 0;
+	private int iterationWithBadImprovement = 0;
 
 	/**
 	 * Only used for reflection, DONT CALL THIS constructor!
@@ -38,7 +38,7 @@ public class RestartImprovementStrategy extends Strategy {
 
 	@Override
 	public void postIteration() {
-		Double improvement = config.getTrainingModule().getCurrentImprovement();
+		double improvement = config.getTrainingModule().getCurrentImprovement();
 		if (improvement < _minimalImprovement) {
 			iterationWithBadImprovement++;
 			// System.err.println("improvement was: "+fmt.format(improvement));
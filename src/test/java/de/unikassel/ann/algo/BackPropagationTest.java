@@ -1,11 +1,21 @@
 package de.unikassel.ann.algo;
 
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.Assert;
+
 import org.junit.Test;
 
 import de.unikassel.ann.config.NetConfig;
 import de.unikassel.ann.factory.NetworkFactory;
+import de.unikassel.ann.io.BinaryTrainingRW;
+import de.unikassel.ann.io.MappedTrainingData;
+import de.unikassel.ann.model.CompiledNetwork;
+import de.unikassel.ann.model.CompiledNetworkTest;
 import de.unikassel.ann.model.DataPair;
 import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.NetError;
 import de.unikassel.ann.model.Network;
 import de.unikassel.ann.model.func.SigmoidFunction;
 import de.unikassel.ann.model.func.TanHFunction;
@@ -231,6 +241,113 @@ public class BackPropagationTest {
 		System.out.println(testSet);
 	}
 	
+	/**
+	 * Same initial weights and batches must lead to the same weights, no matter how many threads are used
+	 */
+	@Test
+	public void testParallelBatchSameAsSingleThread() {
+		NetConfig single = NetworkFactory.createSimpleNet(4, new int[] { 9 }, 2, true, new SigmoidFunction());
+		NetConfig parallel = TrainingFixtures.createCopy(single, 4, new int[] { 9 }, 2);
+
+		DataPairSet trainSet = TrainingFixtures.createRandomSet(7, 103, 4, 2);
+
+		for (NetConfig netConfig : new NetConfig[] { single, parallel }) {
+			netConfig.addOrUpdateExisting(new MaxLearnIterationsStrategy(50));
+			BackPropagation backProp = (BackPropagation) netConfig.getTrainingModule();
+			backProp.setBatchMode(true);
+			backProp.setBatchSize(10);
+			backProp.setSeed(11);
+			backProp.setThreads(netConfig == single ? 1 : 4);
+			backProp.train(trainSet);
+		}
+
+		TrainingAssert.assertSameWeights(single, parallel, 1e-9);
+	}
+
+	@Test
+	public void testShuffledMiniBatches() {
+		NetConfig initial = NetworkFactory.createSimpleNet(2, new int[] { 3 }, 1, true, new SigmoidFunction());
+		DataPairSet trainSet = TrainingFixtures.createRandomSet(5, 50, 2, 1);
+
+		NetConfig shuffled = TrainingFixtures.trainCopy(initial, 8, 2, true, 3, trainSet, null);
+		// the seed makes the training reproducible
+		TrainingAssert.assertSameWeights(shuffled, TrainingFixtures.trainCopy(initial, 8, 2, true, 3, trainSet, null), 0.0);
+		Assert.assertFalse(TrainingAssert.sameWeights(shuffled, TrainingFixtures.trainCopy(initial, 8, 2, true, 4, trainSet, null)));
+		Assert.assertFalse(TrainingAssert.sameWeights(shuffled, TrainingFixtures.trainCopy(initial, 8, 2, false, 3, trainSet, null)));
+		// without shuffling the seed does not matter
+		NetConfig ordered = TrainingFixtures.trainCopy(initial, 8, 2, false, 3, trainSet, null);
+		TrainingAssert.assertSameWeights(ordered, TrainingFixtures.trainCopy(initial, 8, 2, false, 4, trainSet, null), 0.0);
+	}
+
+	@Test
+	public void testTrainFromMappedFile() throws IOException {
+		NetConfig initial = NetworkFactory.createSimpleNet(2, new int[] { 3 }, 1, true, new SigmoidFunction());
+		DataPairSet trainSet = TrainingFixtures.createRandomSet(6, 50, 2, 1);
+		File file = File.createTempFile("training", ".bin");
+		file.deleteOnExit();
+		BinaryTrainingRW.write(trainSet, file);
+
+		MappedTrainingData data = BinaryTrainingRW.open(file);
+		try {
+			// online, mini-batches across the blocks of 7 rows and the whole set
+			for (int batchSize : new int[] { -1, 8, 0 }) {
+				NetConfig streamed = TrainingFixtures.trainCopy(initial, batchSize, 1, false, 0, trainSet, data);
+				Assert.assertFalse(TrainingAssert.sameWeights(initial, streamed));
+				NetConfig fromSet = TrainingFixtures.trainCopy(initial, batchSize, 1, false, 0, trainSet, null);
+				TrainingAssert.assertSameWeights(fromSet, streamed, 0.0);
+			}
+		} finally {
+			data.close();
+		}
+	}
+
+	private static double squaredError(final CompiledNetwork c, final double[] input, final double ideal) {
+		c.forward(input, 0);
+		double diff = ideal - c.getOutput()[0];
+		return diff * diff / 2;
+	}
+
+	@Test
+	public void testSkipSynapseGradients() {
+		NetConfig netConfig = CompiledNetworkTest.createSkipNet();
+		CompiledNetwork c = new CompiledNetwork(netConfig.getNetwork());
+		double[] input = { 0.3, -0.8 };
+		double ideal = 0.9;
+		double[][] gradients = c.createWeightBuffer();
+		double[][] biasGradients = c.createBiasBuffer();
+		c.forward(input, 0);
+		int outputIndex = c.getLayerCount() - 1;
+		BackPropagation.calculateOutputError(c, new NetError(null, getXorTrainSet()), new double[] { ideal }, 0);
+		for (int l = outputIndex; l > 0; l--) {
+			if (l < outputIndex) {
+				BackPropagation.calculateError(c, l);
+			}
+			BackPropagation.calculateWeightDelta(c, l, gradients[l], biasGradients[l]);
+		}
+
+		// the weight changes are the negative gradient of the squared error
+		double eps = 1e-6;
+		for (int l = 1; l <= outputIndex; l++) {
+			for (double[][] pair : new double[][][] { { c.getWeights(l), gradients[l] }, { c.getBiasWeights(l), biasGradients[l] } }) {
+				double[] w = pair[0];
+				for (int k = 0; k < w.length; k++) {
+					double old = w[k];
+					w[k] = old + eps;
+					double plus = squaredError(c, input, ideal);
+					w[k] = old - eps;
+					double minus = squaredError(c, input, ideal);
+					w[k] = old;
+					Assert.assertEquals("layer " + l + " weight " + k, -(plus - minus) / (2 * eps), pair[1][k], 1e-8);
+				}
+			}
+		}
+
+		// the skip synapses are trained
+		netConfig.addOrUpdateExisting(new MaxLearnIterationsStrategy(10));
+		netConfig.getTrainingModule().train(getXorTrainSet());
+		Assert.assertFalse(0.7 == netConfig.getNetwork().getSynapseMatrix().getWeight(1, 10));
+	}
+
 	public static DataPairSet getXorTrainSet() {
 		// XOR training data
 		DataPairSet trainSet = new DataPairSet();
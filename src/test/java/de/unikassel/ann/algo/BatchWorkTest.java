@@ -0,0 +1,66 @@
+package de.unikassel.ann.algo;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.factory.NetworkFactory;
+import de.unikassel.ann.model.CompiledNetwork;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.func.TanHFunction;
+
+public class BatchWorkTest {
+
+	@Test
+	public void testSameResultAsSingleRows() {
+		// wider than one tile in every direction
+		NetConfig netConfig = NetworkFactory.createSimpleNet(300, new int[] { 70 }, 5, true, new TanHFunction());
+		CompiledNetwork compiled = new CompiledNetwork(netConfig.getNetwork());
+
+		int rows = 50;
+		Random r = new Random(1);
+		double[] input = new double[rows * 300];
+		for (int i = 0; i < input.length; i++) {
+			input[i] = r.nextDouble() * 2 - 1;
+		}
+		double[] output = new double[rows * 5];
+		new BatchWork(16).work(compiled, input, output, rows);
+
+		Double[] row = new Double[300];
+		for (int k = 0; k < rows; k++) {
+			for (int i = 0; i < 300; i++) {
+				row[i] = input[k * 300 + i];
+			}
+			compiled.forward(row);
+			for (int o = 0; o < 5; o++) {
+				Assert.assertEquals(compiled.getOutput()[o], output[k * 5 + o], 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testShuffledView() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(3, new int[] { 4 }, 2, true, new TanHFunction());
+		DataPairSet data = new DataPairSet(3, 2);
+		Random r = new Random(3);
+		for (int i = 0; i < 40; i++) {
+			data.addRow(new double[] { r.nextDouble(), r.nextDouble(), r.nextDouble() }, new double[2]);
+		}
+		DataPairSet shuffled = data.shuffle(new Random(4));
+		Assert.assertFalse(shuffled.isContiguous());
+		new BatchWork(16).work(netConfig.getNetwork(), shuffled);
+
+		CompiledNetwork compiled = new CompiledNetwork(netConfig.getNetwork());
+		for (int k = 0; k < data.getRows(); k++) {
+			// results are written into the shared ideal values
+			compiled.forward(data.getInputData(), data.getInputOffset(k));
+			for (int o = 0; o < 2; o++) {
+				Assert.assertEquals(compiled.getOutput()[o], data.getIdeal(k, o), 1e-12);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package de.unikassel.ann.algo;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.factory.NetworkFactory;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.func.SigmoidFunction;
+import de.unikassel.ann.strategy.MaxLearnIterationsStrategy;
+
+public class HogwildBackPropagationTest {
+
+	@Test
+	public void testSingleThreadSameAsOnline() {
+		NetConfig online = NetworkFactory.createSimpleNet(2, new int[] { 3 }, 1, true, new SigmoidFunction());
+		NetConfig hogwild = TrainingFixtures.createCopy(online, 2, new int[] { 3 }, 1);
+		hogwild.addTrainingModule(new HogwildBackPropagation(0.35, 0.8, 1));
+
+		DataPairSet trainSet = TrainingFixtures.createComparisonSet(3, 200);
+		for (NetConfig netConfig : new NetConfig[] { online, hogwild }) {
+			netConfig.addOrUpdateExisting(new MaxLearnIterationsStrategy(20));
+			netConfig.getTrainingModule().train(trainSet);
+		}
+
+		TrainingAssert.assertSameWeights(online, hogwild, 0.0);
+	}
+
+	@Test
+	public void testParallelTrainingStopsAndLearns() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(2, new int[] { 3 }, 1, true, new SigmoidFunction());
+		HogwildBackPropagation hogwild = new HogwildBackPropagation(0.35, 0.8, 4);
+		netConfig.addTrainingModule(hogwild);
+		netConfig.addOrUpdateExisting(new MaxLearnIterationsStrategy(100));
+
+		DataPairSet trainSet = TrainingFixtures.createComparisonSet(3, 200);
+		hogwild.train(trainSet);
+
+		Assert.assertFalse(hogwild.isTrainingNow());
+
+		DataPairSet testSet = new DataPairSet(trainSet);
+		hogwild.work(netConfig.getNetwork(), testSet);
+		int correct = 0;
+		for (int i = 0; i < trainSet.getRows(); i++) {
+			if (Math.round(testSet.getIdeal()[i][0]) == Math.round(trainSet.getIdeal()[i][0])) {
+				correct++;
+			}
+		}
+		Assert.assertTrue(correct > 0.9 * trainSet.getRows());
+	}
+
+	@Test
+	public void testInvalidRates() {
+		HogwildBackPropagation hogwild = new HogwildBackPropagation(0.0, 0.0, 1);
+		for (double invalid : new double[] { -0.1, Double.NaN }) {
+			try {
+				hogwild.setLearnRate(invalid);
+				Assert.fail("learn rate " + invalid);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+			try {
+				hogwild.setMomentum(invalid);
+				Assert.fail("momentum " + invalid);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package de.unikassel.ann.algo;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.factory.NetworkFactory;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.func.SigmoidFunction;
+import de.unikassel.ann.strategy.MaxLearnIterationsStrategy;
+import de.unikassel.ann.strategy.MinErrorStrategy;
+
+public class ResilientPropagationTest {
+
+	private void trainXor(final boolean backtracking) {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(2, new int[] { 4 }, 1, true, new SigmoidFunction());
+		ResilientPropagation rprop = netConfig.selectTrainingModule(ResilientPropagation.class);
+		Assert.assertSame(rprop, netConfig.getTrainingModule());
+		Assert.assertSame(rprop, netConfig.getWorkingModule());
+		rprop.setBacktracking(backtracking);
+		// fixed start weights, XOR has local minima
+		Random r = new Random(1);
+		Double[][] synapseMatrix = new Double[9][9];
+		for (int to = 4; to < 8; to++) {
+			for (int from = 0; from < 3; from++) {
+				synapseMatrix[from][to] = r.nextDouble() * 2 - 1;
+			}
+		}
+		for (int from = 3; from < 8; from++) {
+			synapseMatrix[from][8] = r.nextDouble() * 2 - 1;
+		}
+		netConfig.getNetwork().getSynapseMatrix().setWeightMatrix(synapseMatrix);
+		netConfig.addOrUpdateExisting(new MaxLearnIterationsStrategy(2000));
+		netConfig.addOrUpdateExisting(new MinErrorStrategy(0.05));
+
+		rprop.train(BackPropagationTest.getXorTrainSet());
+
+		DataPairSet testSet = BackPropagationTest.getXorTestSet();
+		rprop.work(netConfig.getNetwork(), testSet);
+		double[] expected = new double[] { 0, 1, 1, 0 };
+		for (int i = 0; i < expected.length; i++) {
+			Assert.assertEquals(expected[i], testSet.getIdeal()[i][0], 0.2);
+		}
+	}
+
+	@Test
+	public void testXorWithBacktracking() {
+		trainXor(true);
+	}
+
+	@Test
+	public void testXorWithoutBacktracking() {
+		trainXor(false);
+	}
+
+}
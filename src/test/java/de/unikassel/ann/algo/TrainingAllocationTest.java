@@ -0,0 +1,100 @@
+package de.unikassel.ann.algo;
+
+import java.lang.management.ManagementFactory;
+
+import junit.framework.Assert;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.factory.NetworkFactory;
+import de.unikassel.ann.model.func.SigmoidFunction;
+import de.unikassel.ann.strategy.MaxLearnIterationsStrategy;
+import de.unikassel.ann.strategy.Strategy;
+
+/**
+ * Regression test for the allocations of the training iterations, measured with the allocated bytes of the training thread
+ */
+public class TrainingAllocationTest {
+
+	private static final int WARM_UP = 200;
+
+	private static final int MEASURED = 500;
+
+	/**
+	 * Allowed bytes per iteration, e.g. for growing the error list of {@link NetConfig}
+	 */
+	private static final long ALLOWED_BYTES = 64;
+
+	/**
+	 * Remembers the allocated bytes of the training thread after the warm up and at the end
+	 */
+	private static class AllocationStrategy extends Strategy {
+
+		private final com.sun.management.ThreadMXBean bean;
+		private long start;
+		private long end;
+
+		public AllocationStrategy(final com.sun.management.ThreadMXBean bean) {
+			this.bean = bean;
+		}
+
+		@Override
+		public void preIteration() {
+			// nothing
+		}
+
+		@Override
+		public void postIteration() {
+			int iteration = config.getTrainingModule().getCurrentIteration();
+			if (iteration == WARM_UP) {
+				start = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			} else if (iteration == WARM_UP + MEASURED) {
+				end = bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+	}
+
+	private static com.sun.management.ThreadMXBean getThreadBean() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+		Assume.assumeTrue(sunBean.isThreadAllocatedMemorySupported());
+		sunBean.setThreadAllocatedMemoryEnabled(true);
+		return sunBean;
+	}
+
+	private long measure(final TrainingModule train, final NetConfig netConfig) {
+		AllocationStrategy allocation = new AllocationStrategy(getThreadBean());
+		netConfig.addOrUpdateExisting(new MaxLearnIterationsStrategy(WARM_UP + MEASURED + 1));
+		netConfig.addOrUpdateExisting(allocation);
+		train.train(TrainingFixtures.createRandomSet(2, 200, 4, 2));
+		return (allocation.end - allocation.start) / MEASURED;
+	}
+
+	@Test
+	public void testOnlineIterationDoesNotAllocate() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(4, new int[] { 9 }, 2, true, new SigmoidFunction());
+		long bytes = measure(netConfig.getTrainingModule(), netConfig);
+		Assert.assertTrue(bytes + " bytes per iteration", bytes <= ALLOWED_BYTES);
+	}
+
+	@Test
+	public void testMiniBatchIterationDoesNotAllocate() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(4, new int[] { 9 }, 2, true, new SigmoidFunction());
+		BackPropagation backProp = (BackPropagation) netConfig.getTrainingModule();
+		backProp.setBatchMode(true);
+		backProp.setBatchSize(16);
+		long bytes = measure(backProp, netConfig);
+		Assert.assertTrue(bytes + " bytes per iteration", bytes <= ALLOWED_BYTES);
+	}
+
+	@Test
+	public void testResilientPropagationIterationDoesNotAllocate() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(4, new int[] { 9 }, 2, true, new SigmoidFunction());
+		long bytes = measure(netConfig.selectTrainingModule(ResilientPropagation.class), netConfig);
+		Assert.assertTrue(bytes + " bytes per iteration", bytes <= ALLOWED_BYTES);
+	}
+
+}
@@ -0,0 +1,44 @@
+package de.unikassel.ann.algo;
+
+import java.util.Arrays;
+
+import junit.framework.Assert;
+
+import de.unikassel.ann.config.NetConfig;
+
+/**
+ * Assertions shared by the tests of the training modules
+ */
+public class TrainingAssert {
+
+	/**
+	 * Compares all weights of both networks, missing synapses must be missing in both
+	 */
+	public static void assertSameWeights(final NetConfig expected, final NetConfig actual, final double delta) {
+		Double[][][][] e = expected.getNetwork().getSynapseMatrix().getBigWeightMatrix();
+		Double[][][][] a = actual.getNetwork().getSynapseMatrix().getBigWeightMatrix();
+		Assert.assertEquals(e.length, a.length);
+		for (int i = 0; i < e.length; i++) {
+			for (int j = 0; j < e[i].length; j++) {
+				for (int k = 0; k < e[i][j].length; k++) {
+					for (int l = 0; l < e[i][j][k].length; l++) {
+						if (e[i][j][k][l] == null) {
+							Assert.assertNull(a[i][j][k][l]);
+						} else {
+							Assert.assertEquals(e[i][j][k][l], a[i][j][k][l], delta);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if both networks have exactly the same weights
+	 */
+	public static boolean sameWeights(final NetConfig first, final NetConfig second) {
+		return Arrays.deepEquals(first.getNetwork().getSynapseMatrix().getBigWeightMatrix(), second.getNetwork().getSynapseMatrix()
+				.getBigWeightMatrix());
+	}
+
+}
@@ -0,0 +1,89 @@
+package de.unikassel.ann.algo;
+
+import java.util.Random;
+
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.factory.NetworkFactory;
+import de.unikassel.ann.model.DataPairSet;
+import de.unikassel.ann.model.DataPairSource;
+import de.unikassel.ann.model.func.SigmoidFunction;
+import de.unikassel.ann.strategy.MaxLearnIterationsStrategy;
+
+/**
+ * Networks and training data shared by the tests of the training modules
+ */
+public class TrainingFixtures {
+
+	/**
+	 * @return rows of random input and ideal values in [0, 1), the same for the same seed
+	 */
+	public static DataPairSet createRandomSet(final long seed, final int rows, final int inputSize, final int idealSize) {
+		DataPairSet trainSet = new DataPairSet(inputSize, idealSize);
+		Random r = new Random(seed);
+		double[] input = new double[inputSize];
+		double[] ideal = new double[idealSize];
+		for (int i = 0; i < rows; i++) {
+			for (int j = 0; j < inputSize; j++) {
+				input[j] = r.nextDouble();
+			}
+			for (int j = 0; j < idealSize; j++) {
+				ideal[j] = r.nextDouble();
+			}
+			trainSet.addRow(input, ideal);
+		}
+		return trainSet;
+	}
+
+	/**
+	 * @return rows of two random inputs, the ideal value is 1 if the first one is larger, which a 2-3-1 net can learn
+	 */
+	public static DataPairSet createComparisonSet(final long seed, final int rows) {
+		DataPairSet trainSet = new DataPairSet(2, 1);
+		Random r = new Random(seed);
+		for (int i = 0; i < rows; i++) {
+			double a = r.nextDouble();
+			double b = r.nextDouble();
+			trainSet.addRow(new double[] { a, b }, new double[] { a > b ? 1.0 : 0.0 });
+		}
+		return trainSet;
+	}
+
+	/**
+	 * @return new net with bias and sigmoid function which has the weights of the given net with the same topology
+	 */
+	public static NetConfig createCopy(final NetConfig initial, final int inputCount, final int[] hiddenCount, final int outputCount) {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(inputCount, hiddenCount, outputCount, true, new SigmoidFunction());
+		netConfig.getNetwork().getSynapseMatrix().setBigWeightMatrix(initial.getNetwork().getSynapseMatrix().getBigWeightMatrix());
+		return netConfig;
+	}
+
+	/**
+	 * Trains a copy of a 2-3-1 net with {@link BackPropagation} for 10 iterations
+	 *
+	 * @param batchSize
+	 *            negative for online training, 0 for the whole set
+	 * @param threads
+	 *            a batch is summed per thread, so only the same amount of threads gives exactly the same weights
+	 * @param source
+	 *            if not null the training reads it in blocks of 7 rows instead of the set
+	 * @return the trained copy
+	 */
+	public static NetConfig trainCopy(final NetConfig initial, final int batchSize, final int threads, final boolean shuffle,
+			final long seed, final DataPairSet trainSet, final DataPairSource source) {
+		NetConfig netConfig = createCopy(initial, 2, new int[] { 3 }, 1);
+		netConfig.addOrUpdateExisting(new MaxLearnIterationsStrategy(10));
+		BackPropagation backProp = (BackPropagation) netConfig.getTrainingModule();
+		backProp.setBatchMode(batchSize >= 0);
+		backProp.setBatchSize(Math.max(0, batchSize));
+		backProp.setThreads(threads);
+		backProp.setShuffle(shuffle);
+		backProp.setSeed(seed);
+		if (source == null) {
+			backProp.train(trainSet);
+		} else {
+			backProp.train(source, 7);
+		}
+		return netConfig;
+	}
+
+}
@@ -0,0 +1,115 @@
+package de.unikassel.ann.algo.optimizer;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.algo.BackPropagation;
+import de.unikassel.ann.algo.BackPropagationTest;
+import de.unikassel.ann.algo.TrainingAssert;
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.factory.NetworkFactory;
+import de.unikassel.ann.model.CompiledNetwork;
+import de.unikassel.ann.model.func.SigmoidFunction;
+import de.unikassel.ann.strategy.MaxLearnIterationsStrategy;
+
+public class OptimizerTest {
+
+	@Test
+	public void testAdamFirstStep() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(2, new int[] {}, 1, true, new SigmoidFunction());
+		CompiledNetwork compiled = new CompiledNetwork(netConfig.getNetwork());
+		AdamOptimizer adam = new AdamOptimizer(0.01);
+		adam.init(compiled);
+		adam.nextStep();
+		double[] w = new double[] { 1.0, 1.0 };
+		double[] dw = new double[2];
+		adam.update(Optimizer.slot(1, false), w, new double[] { 5.0, -0.001 }, dw);
+		// the first step of adam has the size of the learn rate, independent of the gradient
+		Assert.assertEquals(1.01, w[0], 1e-6);
+		Assert.assertEquals(0.99, w[1], 1e-4);
+		Assert.assertEquals(0.01, dw[0], 1e-6);
+	}
+
+	@Test
+	public void testMomentumSameAsBackPropagation() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(2, new int[] {}, 1, true, new SigmoidFunction());
+		CompiledNetwork compiled = new CompiledNetwork(netConfig.getNetwork());
+		MomentumOptimizer momentum = new MomentumOptimizer(0.5, 0.8);
+		momentum.init(compiled);
+		double[] w = new double[] { 1.0 };
+		double[] dw = new double[] { 0.1 };
+		momentum.update(Optimizer.slot(1, true), w, new double[] { 2.0 }, dw);
+		Assert.assertEquals(1.0 + 0.5 * 2.0 + 0.8 * 0.1, w[0], 1e-12);
+		Assert.assertEquals(0.5 * 2.0 + 0.8 * 0.1, dw[0], 1e-12);
+	}
+
+	@Test
+	public void testZeroLearnRate() {
+		NetConfig untrained = NetworkFactory.createSimpleNet(2, new int[] { 3 }, 1, true, new SigmoidFunction());
+		NetConfig netConfig = NetworkFactory.createSimpleNet(2, new int[] { 3 }, 1, true, new SigmoidFunction());
+		netConfig.getNetwork().getSynapseMatrix().setBigWeightMatrix(untrained.getNetwork().getSynapseMatrix().getBigWeightMatrix());
+		netConfig.addOrUpdateExisting(new MaxLearnIterationsStrategy(5));
+		// the defaults of the gui
+		BackPropagation backProp = (BackPropagation) netConfig.getTrainingModule();
+		backProp.setBatchMode(true);
+		backProp.setLearnRate(0.0);
+		backProp.setMomentum(0.0);
+		backProp.train(BackPropagationTest.getXorTrainSet());
+		TrainingAssert.assertSameWeights(untrained, netConfig, 0.0);
+
+		for (double rate : new double[] { -0.1, Double.NaN }) {
+			try {
+				new MomentumOptimizer(rate, 0.8);
+				Assert.fail("learn rate " + rate);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	/**
+	 * Two steps on the bias slot of the output layer
+	 */
+	private static double[] twoSteps(final Optimizer optimizer, final double[] dw) {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(2, new int[] {}, 1, true, new SigmoidFunction());
+		optimizer.init(new CompiledNetwork(netConfig.getNetwork()));
+		double[] w = new double[] { 1.0 };
+		optimizer.nextStep();
+		optimizer.update(Optimizer.slot(1, true), w, new double[] { 2.0 }, dw);
+		optimizer.nextStep();
+		optimizer.update(Optimizer.slot(1, true), w, new double[] { -1.0 }, dw);
+		return w;
+	}
+
+	@Test
+	public void testNesterovSteps() {
+		double[] dw = new double[] { 0.1 };
+		double[] w = twoSteps(new NesterovOptimizer(0.5, 0.8), dw);
+		double v1 = 0.8 * 0.1 + 0.5 * 2.0;
+		double v2 = 0.8 * v1 + 0.5 * -1.0;
+		Assert.assertEquals(1.0 + 1.8 * v1 - 0.8 * 0.1 + 1.8 * v2 - 0.8 * v1, w[0], 1e-12);
+		Assert.assertEquals(v2, dw[0], 1e-12);
+	}
+
+	@Test
+	public void testAdaGradSteps() {
+		double[] dw = new double[1];
+		double[] w = twoSteps(new AdaGradOptimizer(0.1), dw);
+		double second = 0.1 * -1.0 / (Math.sqrt(4.0 + 1.0) + 1e-8);
+		Assert.assertEquals(1.0 + 0.1 * 2.0 / (2.0 + 1e-8) + second, w[0], 1e-12);
+		Assert.assertEquals(second, dw[0], 1e-12);
+	}
+
+	@Test
+	public void testRMSPropSteps() {
+		double[] dw = new double[1];
+		double[] w = twoSteps(new RMSPropOptimizer(0.01, 0.9), dw);
+		double h1 = 0.1 * 4.0;
+		double h2 = 0.9 * h1 + 0.1 * 1.0;
+		double second = 0.01 * -1.0 / (Math.sqrt(h2) + 1e-8);
+		Assert.assertEquals(1.0 + 0.01 * 2.0 / (Math.sqrt(h1) + 1e-8) + second, w[0], 1e-12);
+		Assert.assertEquals(second, dw[0], 1e-12);
+	}
+
+}
@@ -0,0 +1,107 @@
+package de.unikassel.ann.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.io.beans.SynapseBean;
+import de.unikassel.ann.io.beans.TopologyBean;
+import de.unikassel.ann.model.SynapseMatrix;
+
+public class BinaryModelRWTest {
+
+	private static final String PATH = BinaryModelRWTest.class.getClassLoader().getResource("").getFile();
+
+	private static void assertSameBeans(final NetIO expected, final NetIO actual) {
+		List<TopologyBean> topo = actual.topoBeanList;
+		Assert.assertEquals(expected.topoBeanList.size(), topo.size());
+		for (int i = 0; i < topo.size(); i++) {
+			TopologyBean e = expected.topoBeanList.get(i);
+			Assert.assertEquals(e.getId(), topo.get(i).getId());
+			Assert.assertEquals(e.getLayer(), topo.get(i).getLayer());
+			Assert.assertEquals(e.getBias(), topo.get(i).getBias());
+			Assert.assertEquals(e.getFunction(), topo.get(i).getFunction());
+		}
+		List<SynapseBean> synapses = actual.synapsesBanList;
+		Assert.assertEquals(expected.synapsesBanList.size(), synapses.size());
+		for (int i = 0; i < synapses.size(); i++) {
+			SynapseBean e = expected.synapsesBanList.get(i);
+			Assert.assertEquals(e.getFrom(), synapses.get(i).getFrom());
+			Assert.assertEquals(e.getTo(), synapses.get(i).getTo());
+			Assert.assertEquals(e.getRandom(), synapses.get(i).getRandom());
+			if (e.getRandom() == false) {
+				Assert.assertEquals(e.getValue(), synapses.get(i).getValue());
+			}
+		}
+	}
+
+	private static File tempFile(final String suffix) throws IOException {
+		File file = File.createTempFile("model", suffix);
+		file.deleteOnExit();
+		return file;
+	}
+
+	@Test
+	public void testRoundTripWithCsv() throws Exception {
+		NetIO csv = new NetIO();
+		csv.readConfigFile(new File(PATH + "net_cfg.csv"));
+		NetConfig config = csv.generateNetwork(true, true, false);
+		SynapseMatrix matrix = config.getNetwork().getSynapseMatrix();
+		matrix.setWeight(0, 4, 0.123456789);
+		matrix.setWeight(2, 5, -7.5e-9);
+
+		File binary = tempFile(".bin");
+		csv.writeBinaryNet(binary, config);
+		NetIO loaded = new NetIO();
+		loaded.readBinaryNet(binary);
+		Assert.assertEquals(0.123456789, loaded.synapsesBanList.get(0).getValue());
+
+		// binary -> network -> csv gives the same beans
+		NetConfig copy = loaded.generateNetwork(true, true, false);
+		File exported = tempFile(".csv");
+		exported.delete();
+		loaded.writeNet(exported, "copy", copy);
+		NetIO reimported = new NetIO();
+		reimported.readConfigFile(exported);
+		assertSameBeans(loaded, reimported);
+
+		// and the same file again
+		File binary2 = tempFile(".bin");
+		reimported.writeBinaryNet(binary2, reimported.generateNetwork(true, true, false));
+		NetIO loaded2 = new NetIO();
+		loaded2.readBinaryNet(binary2);
+		assertSameBeans(loaded, loaded2);
+		Assert.assertEquals(binary.length(), binary2.length());
+	}
+
+	@Test
+	public void testCorruptFile() throws Exception {
+		NetIO csv = new NetIO();
+		csv.readConfigFile(new File(PATH + "net_cfg.csv"));
+		File binary = tempFile(".bin");
+		BinaryModelRW.write(csv.generateNetwork(true, true, false), binary);
+
+		RandomAccessFile raf = new RandomAccessFile(binary, "rw");
+		raf.setLength(binary.length() - 8);
+		raf.close();
+		try {
+			BinaryModelRW.read(binary);
+			Assert.fail("file is truncated");
+		} catch (IOException e) {
+			// expected
+		}
+		try {
+			BinaryModelRW.read(new File(PATH + "net_cfg.csv"));
+			Assert.fail("not a binary model");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+}
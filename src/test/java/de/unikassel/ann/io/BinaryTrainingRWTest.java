@@ -0,0 +1,105 @@
+package de.unikassel.ann.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.io.BinaryTrainingRW.DataType;
+import de.unikassel.ann.model.DataPairSet;
+
+public class BinaryTrainingRWTest {
+
+	private static final String PATH = BinaryTrainingRWTest.class.getClassLoader().getResource("").getFile();
+
+	private static DataPairSet createSet(final int rows) {
+		DataPairSet set = new DataPairSet(3, 2);
+		Random r = new Random(5);
+		for (int i = 0; i < rows; i++) {
+			set.addRow(new double[] { r.nextDouble(), r.nextGaussian(), i }, new double[] { -i, Double.NaN });
+		}
+		return set;
+	}
+
+	@Test
+	public void testWriteAndMap() throws IOException {
+		DataPairSet set = createSet(1000);
+		File file = File.createTempFile("training", ".bin");
+		file.deleteOnExit();
+		BinaryTrainingRW.write(set, file);
+		Assert.assertEquals(24 + 1000 * 5 * 8, file.length());
+
+		MappedTrainingData data = BinaryTrainingRW.open(file);
+		try {
+			Assert.assertEquals(1000, data.getRows());
+			Assert.assertEquals(3, data.getInputSize());
+			Assert.assertEquals(2, data.getIdealSize());
+			Assert.assertEquals(DataType.FLOAT64, data.getDataType());
+			Assert.assertEquals(set, data.load());
+
+			DataPairSet part = data.load(10, 20);
+			Assert.assertEquals(10, part.getRows());
+			Assert.assertEquals(set.getInput(15, 1), part.getInput(5, 1));
+			Assert.assertEquals(-15d, part.getIdeal(5, 0));
+		} finally {
+			data.close();
+		}
+	}
+
+	@Test
+	public void testFloat32AndShuffledView() throws IOException {
+		DataPairSet set = createSet(100).shuffle(new Random(1));
+		File file = File.createTempFile("training", ".bin");
+		file.deleteOnExit();
+		BinaryTrainingRW.write(set, file, DataType.FLOAT32);
+		Assert.assertEquals(24 + 100 * 5 * 4, file.length());
+
+		MappedTrainingData data = BinaryTrainingRW.open(file);
+		try {
+			Assert.assertEquals(DataType.FLOAT32, data.getDataType());
+			DataPairSet loaded = data.load();
+			// rows are written in the order of the view
+			for (int r = 0; r < 100; r++) {
+				for (int i = 0; i < 3; i++) {
+					Assert.assertEquals(set.getInput(r, i), loaded.getInput(r, i), 1e-6);
+				}
+				Assert.assertEquals(set.getIdeal(r, 0), loaded.getIdeal(r, 0));
+				Assert.assertTrue(Double.isNaN(loaded.getIdeal(r, 1)));
+			}
+		} finally {
+			data.close();
+		}
+	}
+
+	@Test
+	public void testTruncatedFile() throws IOException {
+		File file = File.createTempFile("training", ".bin");
+		file.deleteOnExit();
+		BinaryTrainingRW.write(createSet(10), file);
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		raf.setLength(file.length() - 8);
+		raf.close();
+		try {
+			BinaryTrainingRW.open(file);
+			Assert.fail("file is truncated");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testConvertFromConfigFile() throws Exception {
+		File file = File.createTempFile("training", ".bin");
+		file.deleteOnExit();
+		NetIO.convertTrainingData(new File(PATH + "net_cfg.csv"), file);
+
+		NetIO io = new NetIO();
+		io.readConfigFile(new File(PATH + "net_cfg.csv"));
+		Assert.assertEquals(io.getTrainingSet(), NetIO.readBinaryTrainingData(file));
+	}
+
+}
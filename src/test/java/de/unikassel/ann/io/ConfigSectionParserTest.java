@@ -0,0 +1,90 @@
+package de.unikassel.ann.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.io.ConfigSectionParser.SectionHandler;
+
+public class ConfigSectionParserTest {
+
+	private static final String PATH = ConfigSectionParserTest.class.getClassLoader().getResource("").getFile();
+
+	/**
+	 * Collects name and content of each section
+	 */
+	private static List<String> parse(final String text, final int readLines) throws IOException {
+		final List<String> sections = new ArrayList<String>();
+		new ConfigSectionParser(new StringReader(text)).parse(new SectionHandler() {
+			@Override
+			public void section(final String name, final Reader content) throws IOException {
+				BufferedReader reader = new BufferedReader(content);
+				StringBuilder sb = new StringBuilder(name).append(':');
+				String line;
+				for (int i = 0; i < readLines && (line = reader.readLine()) != null; i++) {
+					sb.append(line).append('|');
+				}
+				sections.add(sb.toString());
+			}
+		});
+		return sections;
+	}
+
+	@Test
+	public void testSections() throws IOException {
+		String text = "# comment\n#<topology\nid;layer\n0;-1\n#>\nignored\r\n#<training \r\ni;o\r\n1;0\r\n#>\n#<empty\n#>";
+		List<String> sections = parse(text, Integer.MAX_VALUE);
+		Assert.assertEquals(3, sections.size());
+		Assert.assertEquals("topology:id;layer|0;-1|", sections.get(0));
+		Assert.assertEquals("training:i;o|1;0|", sections.get(1));
+		Assert.assertEquals("empty:", sections.get(2));
+	}
+
+	@Test
+	public void testUnreadContentIsSkipped() throws IOException {
+		StringBuilder sb = new StringBuilder("#<synapses\nfrom;to\n");
+		for (int i = 0; i < 100000; i++) {
+			sb.append(i).append(';').append(i + 1).append('\n');
+		}
+		// sections larger than any buffer, the last one without close tag
+		sb.append("#>\n#<training\ni;o\n");
+		List<String> sections = parse(sb.toString(), 1);
+		Assert.assertEquals(2, sections.size());
+		Assert.assertEquals("synapses:from;to|", sections.get(0));
+		Assert.assertEquals("training:i;o|", sections.get(1));
+	}
+
+	@Test
+	public void testReadFillsBuffer() throws IOException {
+		String text = "#<training\ni;o\r\n1;0\n0;1\n#>\nignored\n";
+		new ConfigSectionParser(new StringReader(text)).parse(new SectionHandler() {
+			@Override
+			public void section(final String name, final Reader content) throws IOException {
+				char[] cbuf = new char[64];
+				// one read returns all lines up to the close tag
+				int read = content.read(cbuf, 1, cbuf.length - 1);
+				Assert.assertEquals("i;o\r\n1;0\n0;1\n", new String(cbuf, 1, read));
+				Assert.assertEquals(-1, content.read(cbuf, 0, cbuf.length));
+			}
+		});
+	}
+
+	@Test
+	public void testReadConfigFile() throws Exception {
+		NetIO io = new NetIO();
+		io.readConfigFile(new File(PATH + "net_cfg.csv"));
+		Assert.assertEquals(7, io.topoBeanList.size());
+		Assert.assertEquals(9, io.synapsesBanList.size());
+		Assert.assertEquals(4, io.getTrainingSet().getRows());
+		Assert.assertEquals(1d, io.getTrainingSet().getIdeal(2, 0));
+	}
+
+}
@@ -0,0 +1,58 @@
+package de.unikassel.ann.io;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class DoubleParserTest {
+
+	@Test
+	public void testSameAsParseDouble() {
+		Random r = new Random(3);
+		for (int i = 0; i < 10000; i++) {
+			double value = (r.nextDouble() - 0.5) * Math.pow(10, r.nextInt(20) - 10);
+			String s = Double.toString(value);
+			Assert.assertEquals(s, Double.parseDouble(s), DoubleParser.parse(s));
+		}
+		for (int i = 0; i < 1000; i++) {
+			String s = r.nextInt(1000000) + "." + r.nextInt(1000);
+			Assert.assertEquals(s, Double.parseDouble(s), DoubleParser.parse(s));
+		}
+	}
+
+	@Test
+	public void testFormats() {
+		Assert.assertEquals(0.5, DoubleParser.parse("0,5"));
+		Assert.assertEquals(-0.5, DoubleParser.parse("-.5"));
+		Assert.assertEquals(12.0, DoubleParser.parse(" +12 "));
+		Assert.assertEquals(1.5e-3, DoubleParser.parse("1.5E-3"));
+		Assert.assertEquals(1e300, DoubleParser.parse("1e300"));
+		Assert.assertEquals(0.1234567890123456789, DoubleParser.parse("0.1234567890123456789"));
+		Assert.assertEquals(Double.POSITIVE_INFINITY, DoubleParser.parse("Infinity"));
+		Assert.assertEquals(2.5, DoubleParser.parse("x2.5y".toCharArray(), 1, 4));
+	}
+
+	@Test
+	public void testMissingValue() {
+		Assert.assertTrue(Double.isNaN(DoubleParser.parse("")));
+		Assert.assertTrue(Double.isNaN(DoubleParser.parse("  ")));
+		Assert.assertTrue(Double.isNaN(DoubleParser.parse("null")));
+		Assert.assertTrue(Double.isNaN(DoubleParser.parse("NaN")));
+	}
+
+	@Test
+	public void testInvalid() {
+		String[] invalid = { "abc", "1.2.3", "1e", "--1", "1;2" };
+		for (String s : invalid) {
+			try {
+				DoubleParser.parse(s);
+				Assert.fail(s);
+			} catch (NumberFormatException e) {
+				// expected
+			}
+		}
+	}
+
+}
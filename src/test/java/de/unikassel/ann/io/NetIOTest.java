@@ -1,8 +1,6 @@
 package de.unikassel.ann.io;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -102,9 +100,8 @@ public class NetIOTest {
 		TrainingRW.WRITE_INDEX_IN_HEADER = false;
 
 		File importFile = new File(PATH + "net_cfg.csv");
-		File exportFile = new File(PATH + "net_export.csv");
-
-		deleteFile(exportFile);
+		File exportFile = File.createTempFile("net_export", ".csv");
+		exportFile.deleteOnExit();
 
 		NetIO netIO = new NetIO();
 
@@ -160,16 +157,4 @@ public class NetIOTest {
 		System.out.println(dataSet);
 
 	}
-
-	private void deleteFile(final File file) {
-		FileWriter writer = null;
-		try {
-			writer = new FileWriter(file, false);
-			writer.write("");
-			writer.flush();
-			writer.close();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-	}
 }
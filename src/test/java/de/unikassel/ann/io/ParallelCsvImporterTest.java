@@ -0,0 +1,77 @@
+package de.unikassel.ann.io;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.model.DataPairSet;
+
+public class ParallelCsvImporterTest {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static File write(final String text) throws IOException {
+		File file = File.createTempFile("training", ".csv");
+		file.deleteOnExit();
+		FileWriter writer = new FileWriter(file);
+		writer.write(text);
+		writer.close();
+		return file;
+	}
+
+	private static String createCsv(final int rows) {
+		Random r = new Random(7);
+		StringBuilder sb = new StringBuilder("i0;i1;o0\r\n");
+		for (int i = 0; i < rows; i++) {
+			sb.append(i).append(';').append(r.nextGaussian()).append(';').append(r.nextInt(2)).append("\r\n");
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testSameAsSequentialReader() throws IOException {
+		String csv = createCsv(20000);
+		DataPairSet expected = new TrainingCsvReader(new StringReader(csv)).read();
+
+		ParallelCsvImporter importer = new ParallelCsvImporter(4, UTF8);
+		importer.setMinChunkBytes(1000);
+		DataPairSet set = importer.read(write(csv));
+		Assert.assertEquals(20000, set.getRows());
+		Assert.assertEquals(expected, set);
+		// rows are in the order of the file
+		for (int r = 0; r < set.getRows(); r++) {
+			Assert.assertEquals((double) r, set.getInput(r, 0));
+		}
+		Assert.assertEquals(expected, new ParallelCsvImporter(1, UTF8).read(write(csv)));
+	}
+
+	@Test
+	public void testStopsAtCloseTag() throws IOException {
+		String csv = createCsv(5000) + "#>\n#<topology\nid;layer\n" + createCsv(5000);
+		ParallelCsvImporter importer = new ParallelCsvImporter(3, UTF8);
+		importer.setMinChunkBytes(100);
+		Assert.assertEquals(5000, importer.read(write(csv)).getRows());
+	}
+
+	@Test
+	public void testErrorsAndEmptyFiles() throws IOException {
+		ParallelCsvImporter importer = new ParallelCsvImporter(2, UTF8);
+		importer.setMinChunkBytes(100);
+		try {
+			importer.read(write(createCsv(1000) + "1;x;0\n"));
+			Assert.fail("invalid number");
+		} catch (IOException e) {
+			// expected
+		}
+		Assert.assertNull(importer.read(write("\n  \n")));
+		Assert.assertEquals(0, importer.read(write("i;o")).getRows());
+	}
+
+}
@@ -0,0 +1,88 @@
+package de.unikassel.ann.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.model.DataPairSet;
+
+public class TrainingCsvReaderTest {
+
+	private static DataPairSet read(final String text) throws IOException {
+		return new TrainingCsvReader(new StringReader(text)).read();
+	}
+
+	@Test
+	public void testSequentialHeader() throws IOException {
+		DataPairSet set = read("i;i;o\n0;1;1\n1;1;0\n");
+		Assert.assertEquals(2, set.getRows());
+		Assert.assertEquals(2, set.getInputSize());
+		Assert.assertEquals(1, set.getIdealSize());
+		Assert.assertEquals(1d, set.getInput(0, 1));
+		Assert.assertEquals(0d, set.getIdeal(1, 0));
+	}
+
+	@Test
+	public void testIndexedHeaderQuotesAndCrlf() throws IOException {
+		DataPairSet set = read("\"o1\";o0;x;i0\r\n\r\n\"0,5\";2;ignored;-1e2\r\n");
+		Assert.assertEquals(1, set.getRows());
+		Assert.assertEquals(1, set.getInputSize());
+		Assert.assertEquals(2, set.getIdealSize());
+		Assert.assertEquals(-100d, set.getInput(0, 0));
+		Assert.assertEquals(2d, set.getIdeal(0, 0));
+		Assert.assertEquals(0.5, set.getIdeal(0, 1));
+	}
+
+	@Test
+	public void testLargeInput() throws IOException {
+		StringBuilder sb = new StringBuilder("i;o\n");
+		for (int r = 0; r < 50000; r++) {
+			sb.append(r).append(';').append(r * 0.25).append('\n');
+		}
+		// line longer than the buffer
+		StringBuilder header = new StringBuilder("i");
+		StringBuilder row = new StringBuilder("0");
+		for (int i = 1; i < 20000; i++) {
+			header.append(";i");
+			row.append(";").append(i).append(".125");
+		}
+		DataPairSet set = read(sb.toString());
+		Assert.assertEquals(50000, set.getRows());
+		Assert.assertEquals(49999d, set.getInput(49999, 0));
+		Assert.assertEquals(12345 * 0.25, set.getIdeal(12345, 0));
+
+		DataPairSet wide = read(header + "\n" + row);
+		Assert.assertEquals(1, wide.getRows());
+		Assert.assertEquals(20000, wide.getInputSize());
+		Assert.assertEquals(19999.125, wide.getInput(0, 19999));
+	}
+
+	@Test
+	public void testCloseTagAndRemaining() throws IOException {
+		TrainingCsvReader reader = new TrainingCsvReader(new StringReader("i;o\n1;2\n#>\n#<next\nrest"));
+		Assert.assertEquals(1, reader.read().getRows());
+		BufferedReader remaining = new BufferedReader(reader.getRemaining());
+		Assert.assertEquals("#<next", remaining.readLine());
+		Assert.assertEquals("rest", remaining.readLine());
+		Assert.assertNull(remaining.readLine());
+	}
+
+	@Test
+	public void testInvalidRows() throws IOException {
+		String[] invalid = { "i;o\n1;a\n", "i;o\n1;2;3\n", "i;i;o\n1;2\n" };
+		for (String s : invalid) {
+			try {
+				read(s);
+				Assert.fail(s);
+			} catch (IOException e) {
+				// expected
+			}
+		}
+		Assert.assertNull(read(""));
+	}
+
+}
@@ -0,0 +1,145 @@
+package de.unikassel.ann.model;
+
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.algo.BackPropagationTest;
+import de.unikassel.ann.algo.BatchWork;
+import de.unikassel.ann.config.NetConfig;
+import de.unikassel.ann.factory.NetworkFactory;
+import de.unikassel.ann.model.func.SigmoidFunction;
+
+public class CompiledNetworkTest {
+
+	/**
+	 * Same weights as in {@link BackPropagationTest#testForwardPassWithAlreadyTrainedSynapses()}
+	 */
+	private NetConfig createTrainedXorNet() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(2, new int[] { 2 }, 1, true, new SigmoidFunction());
+		Double[][] synapseMatrix = new Double[7][7];
+		synapseMatrix[0][4] = 6.145;
+		synapseMatrix[0][5] = 1.858;
+		synapseMatrix[1][4] = -4.171;
+		synapseMatrix[1][5] = -4.930;
+		synapseMatrix[2][4] = -4.187;
+		synapseMatrix[2][5] = -4.925;
+		synapseMatrix[3][6] = -3.078;
+		synapseMatrix[4][6] = 6.443;
+		synapseMatrix[5][6] = -7.144;
+		netConfig.getNetwork().getSynapseMatrix().setWeightMatrix(synapseMatrix);
+		return netConfig;
+	}
+
+	@Test
+	public void testLayout() {
+		CompiledNetwork compiled = new CompiledNetwork(createTrainedXorNet().getNetwork());
+		Assert.assertEquals(3, compiled.getLayerCount());
+		Assert.assertEquals(2, compiled.getInputSize());
+		Assert.assertEquals(2, compiled.getUnits(1));
+		Assert.assertEquals(1, compiled.getOutputSize());
+		Assert.assertTrue(compiled.hasBias(0));
+		Assert.assertTrue(compiled.hasBias(1));
+		Assert.assertFalse(compiled.hasBias(2));
+
+		// [to * units[from layer] + from]
+		Assert.assertEquals(-4.171, compiled.getWeights(1)[0], 0.0);
+		Assert.assertEquals(-4.187, compiled.getWeights(1)[1], 0.0);
+		Assert.assertEquals(-4.930, compiled.getWeights(1)[2], 0.0);
+		Assert.assertEquals(6.145, compiled.getBiasWeights(1)[0], 0.0);
+		Assert.assertEquals(1.858, compiled.getBiasWeights(1)[1], 0.0);
+		Assert.assertEquals(-3.078, compiled.getBiasWeights(2)[0], 0.0);
+	}
+
+	@Test
+	public void testForwardXor() {
+		CompiledNetwork compiled = new CompiledNetwork(createTrainedXorNet().getNetwork());
+		DataPairSet testSet = BackPropagationTest.getXorTestSet();
+		double[] expected = new double[] { 0, 1, 1, 0 };
+		for (int i = 0; i < testSet.getRows(); i++) {
+			DataPair pair = testSet.getPair(i);
+			compiled.forward(pair.getInput());
+			compiled.readOutput(pair.getIdeal());
+			Assert.assertEquals(expected[i], pair.getIdeal()[0], 0.1);
+		}
+	}
+
+	@Test
+	public void testSyncToNetwork() {
+		Network net = createTrainedXorNet().getNetwork();
+		CompiledNetwork compiled = new CompiledNetwork(net);
+		compiled.getWeights(2)[1] = 42.0;
+		Assert.assertEquals(-7.144, net.getSynapseMatrix().getWeight(5, 6), 0.0);
+		compiled.syncToNetwork();
+		Assert.assertEquals(42.0, net.getSynapseMatrix().getWeight(5, 6), 0.0);
+	}
+
+	/**
+	 * 2-3-2-1 net with synapses from an input to the output, from the first hidden layer to the output and from the input bias to
+	 * the second hidden layer
+	 */
+	public static NetConfig createSkipNet() {
+		NetConfig netConfig = NetworkFactory.createSimpleNet(2, new int[] { 3, 2 }, 1, true, new SigmoidFunction());
+		Network net = netConfig.getNetwork();
+		List<Neuron> flat = net.getFlatNet();
+		Synapse input = new Synapse(flat.get(1), flat.get(10));
+		input.setWeight(0.7);
+		net.addSynapse(input);
+		Synapse hidden = new Synapse(flat.get(4), flat.get(10));
+		hidden.setWeight(-1.3);
+		net.addSynapse(hidden);
+		Synapse bias = new Synapse(flat.get(0), flat.get(8));
+		bias.setWeight(0.4);
+		net.addSynapse(bias);
+		return netConfig;
+	}
+
+	/**
+	 * Forward pass on the neurons and synapses
+	 */
+	private static double forwardOnSynapses(final Network net, final Double[] input) {
+		net.setInputLayerValues(input);
+		for (Layer l : net.getLayers().subList(1, net.getLayers().size())) {
+			for (Neuron n : l.getNeurons()) {
+				double sum = 0.0d;
+				for (Synapse s : n.getIncomingSynapses()) {
+					sum += s.getWeight() * s.getFromNeuron().getValue();
+				}
+				n.activate(sum);
+			}
+		}
+		return net.getOutputLayer().getNeurons().get(0).getValue();
+	}
+
+	@Test
+	public void testSkipSynapses() {
+		Network net = createSkipNet().getNetwork();
+		CompiledNetwork compiled = new CompiledNetwork(net);
+		Assert.assertTrue(compiled.hasSkipSynapses());
+		// previous layer, input 0 and hidden neuron 0
+		Assert.assertEquals(4, compiled.getInputs(3).length);
+		Assert.assertEquals(0.7, compiled.getWeights(3)[2], 0.0);
+		Assert.assertEquals(-1.3, compiled.getWeights(3)[3], 0.0);
+		// previous layer and the input bias
+		Assert.assertEquals(4, compiled.getInputs(2).length);
+		Assert.assertEquals(0.4, compiled.getWeights(2)[3], 0.0);
+		Assert.assertEquals(0.0, compiled.getWeights(2)[4 + 3], 0.0);
+		Assert.assertSame(compiled.getValues(0), compiled.getInputs(1));
+
+		double[] rows = { 0.3, -0.8, 1.0, 0.5, -0.2, 0.0 };
+		double[] batch = new BatchWork(2).work(net, rows, 3);
+		for (int r = 0; r < 3; r++) {
+			compiled.forward(rows, r * 2);
+			double expected = forwardOnSynapses(net, new Double[] { rows[r * 2], rows[r * 2 + 1] });
+			Assert.assertEquals(expected, compiled.getOutput()[0], 1e-12);
+			Assert.assertEquals(expected, batch[r], 1e-12);
+		}
+
+		compiled.getWeights(3)[2] = 42.0;
+		compiled.syncToNetwork();
+		Assert.assertEquals(42.0, net.getSynapseMatrix().getWeight(1, 10), 0.0);
+	}
+
+}
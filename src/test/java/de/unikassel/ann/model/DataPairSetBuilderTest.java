@@ -0,0 +1,66 @@
+package de.unikassel.ann.model;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class DataPairSetBuilderTest {
+
+	@Test
+	public void testBuild() {
+		DataPairSetBuilder builder = new DataPairSetBuilder(2, 1);
+		for (int i = 0; i < 1000; i++) {
+			builder.addRow(new double[] { i, i + 0.5 }, new double[] { -i });
+		}
+		builder.addRow(new Double[] { 1d, null }, new Double[] { 2d });
+		builder.addRow(new Double[] { 3d, 4d, 5d });
+		Assert.assertEquals(1002, builder.getRows());
+
+		DataPairSet set = builder.build();
+		Assert.assertEquals(1002, set.getRows());
+		Assert.assertEquals(2, set.getInputSize());
+		Assert.assertEquals(1, set.getIdealSize());
+		// unused capacity is cut off
+		Assert.assertEquals(2004, set.getInputData().length);
+		Assert.assertEquals(999.5, set.getInput(999, 1));
+		Assert.assertEquals(-999d, set.getIdeal(999, 0));
+		Assert.assertTrue(Double.isNaN(set.getInput(1000, 1)));
+		Assert.assertEquals(4d, set.getInput(1001, 1));
+		Assert.assertEquals(5d, set.getIdeal(1001, 0));
+
+		// the builder starts empty and does not share its arrays with the set
+		Assert.assertEquals(0, builder.getRows());
+		builder.addRow(new double[] { 7, 8 }, new double[] { 9 });
+		Assert.assertEquals(0d, set.getInput(0, 0));
+		Assert.assertEquals(1, builder.build().getRows());
+	}
+
+	@Test
+	public void testKnownCapacityIsNotCopied() {
+		DataPairSetBuilder builder = new DataPairSetBuilder(1, 1, 3);
+		for (int i = 0; i < 3; i++) {
+			builder.addRow(new double[] { i }, new double[] { i });
+		}
+		DataPairSet set = builder.build();
+		Assert.assertEquals(3, set.getInputData().length);
+		Assert.assertEquals(2d, set.getIdeal(2, 0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRowSizeMismatch() {
+		new DataPairSetBuilder(2, 1).addRow(new double[] { 1 }, new double[] { 1 });
+	}
+
+	@Test
+	public void testSetInputAndIdeal() {
+		DataPairSet set = new DataPairSet();
+		set.setInputAndIdeal(new Double[][] { { 1d, 2d, 3d }, { 4d, 5d, 6d } }, 2, 1);
+		Assert.assertEquals(2, set.getRows());
+		Assert.assertEquals(5d, set.getInput(1, 1));
+		Assert.assertEquals(6d, set.getIdeal(1, 0));
+		// still growable after taking over the arrays of the builder
+		set.addRow(new double[] { 7, 8 }, new double[] { 9 });
+		Assert.assertEquals(9d, set.getIdeal(2, 0));
+	}
+
+}
@@ -2,6 +2,7 @@ package de.unikassel.ann.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.Assert;
 
@@ -21,13 +22,13 @@ public class DataPairSetTest {
 	@Test
 	public void testAddingRows() {
 		DataPairSet dataSet = new DataPairSet(input, output);
-		Assert.assertEquals(new Integer(3), dataSet.getRows());
+		Assert.assertEquals(3, dataSet.getRows());
 		
 		dataSet.addRows(inputAdd, outputAdd);
-		Assert.assertEquals(new Integer(6), dataSet.getRows());
+		Assert.assertEquals(6, dataSet.getRows());
 		
 		dataSet.addRow(new Double[]{12d,34d,45d}, new Double[]{787d,898d});
-		Assert.assertEquals(new Integer(7), dataSet.getRows());
+		Assert.assertEquals(7, dataSet.getRows());
 		
 		List<Double> inList = new ArrayList<Double>();
 		inList.add(66d);
@@ -37,7 +38,140 @@ public class DataPairSetTest {
 		outList.add(100d);
 		outList.add(900d);
 		dataSet.addRow(inList, outList);
-		Assert.assertEquals(new Integer(8), dataSet.getRows());
+		Assert.assertEquals(8, dataSet.getRows());
 		
 	}
+
+	@Test
+	public void testPrimitiveStorage() {
+		DataPairSet dataSet = new DataPairSet(input, output);
+		Assert.assertEquals(3, dataSet.getInputSize());
+		Assert.assertEquals(2, dataSet.getIdealSize());
+		// row-major with fixed stride
+		Assert.assertEquals(4d, dataSet.getInputData()[3]);
+		Assert.assertEquals(66d, dataSet.getIdealData()[5]);
+		Assert.assertEquals(8d, dataSet.getInput(2, 1));
+		Assert.assertEquals(33d, dataSet.getIdeal(1, 0));
+
+		// many rows, the arrays have to grow
+		for (int i = 0; i < 100; i++) {
+			dataSet.addRow(new double[] { i, i, i }, new double[] { -i, -i });
+		}
+		Assert.assertEquals(103, dataSet.getRows());
+		Assert.assertEquals(99d, dataSet.getInput(102, 2));
+		Assert.assertEquals(-99d, dataSet.getIdeal(102, 1));
+		Assert.assertEquals(7d, dataSet.getInput(2, 0));
+	}
+
+	@Test
+	public void testRowViewIsNotACopy() {
+		DataPairSet dataSet = new DataPairSet(input, output);
+		DataRow row = dataSet.getIdealRow(1);
+		Assert.assertEquals(2, row.size());
+		Assert.assertSame(dataSet.getIdealData(), row.getData());
+		row.set(1, 1.5);
+		Assert.assertEquals(1.5, dataSet.getIdeal(1, 1));
+		Assert.assertEquals(5d, dataSet.getInputRow(1).get(1));
+	}
+
+	@Test
+	public void testBoxedAdapter() {
+		DataPairSet dataSet = new DataPairSet(input, output);
+		Double[][] boxed = dataSet.getInput();
+		Assert.assertEquals(3, boxed.length);
+		Assert.assertEquals(9d, boxed[2][2]);
+		// copy, changes are not written back
+		boxed[2][2] = 0d;
+		Assert.assertEquals(9d, dataSet.getInput(2, 2));
+		Assert.assertEquals(44d, dataSet.getPair(1).getIdeal()[1]);
+		Assert.assertEquals(new DataPairSet(input, output), dataSet);
+		Assert.assertEquals(new DataPairSet(input, output).hashCode(), dataSet.hashCode());
+	}
+
+	@Test
+	public void testWrapArrays() {
+		double[] in = new double[] { 1, 2, 3, 4 };
+		double[] ideal = new double[] { 5, 6 };
+		DataPairSet dataSet = new DataPairSet(in, ideal, 2, 2, 1);
+		Assert.assertSame(in, dataSet.getInputData());
+		Assert.assertEquals(2, dataSet.getRows());
+		Assert.assertEquals(3d, dataSet.getInput(1, 0));
+		try {
+			new DataPairSet(in, ideal, 3, 2, 1);
+			Assert.fail("arrays are too small");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPrimitiveRowSizeMismatch() {
+		DataPairSet dataSet = new DataPairSet(input, output);
+		dataSet.addRow(new double[] { 1, 2 }, new double[] { 3, 4 });
+	}
+
+	@Test
+	public void testViewsShareStorage() {
+		DataPairSet dataSet = new DataPairSet(1, 1);
+		for (int i = 0; i < 10; i++) {
+			dataSet.addRow(new double[] { i }, new double[] { -i });
+		}
+		DataPairSet range = dataSet.view(2, 5);
+		Assert.assertTrue(range.isView());
+		Assert.assertSame(dataSet.getInputData(), range.getInputData());
+		Assert.assertEquals(3, range.getRows());
+		Assert.assertEquals(2d, range.getInput(0, 0));
+		range.setIdeal(0, 0, 100);
+		Assert.assertEquals(100d, dataSet.getIdeal(2, 0));
+
+		DataPairSet shuffled = dataSet.shuffle(new Random(1));
+		Assert.assertSame(dataSet.getInputData(), shuffled.getInputData());
+		double sum = 0;
+		boolean moved = false;
+		for (int r = 0; r < 10; r++) {
+			sum += shuffled.getInput(r, 0);
+			moved = moved || shuffled.getInput(r, 0) != r;
+			// pairs stay together
+			Assert.assertEquals(shuffled.getInput(r, 0) == 2 ? 100d : -shuffled.getInput(r, 0), shuffled.getIdeal(r, 0), 0.0);
+		}
+		Assert.assertEquals(45d, sum);
+		Assert.assertTrue(moved);
+		// range of a shuffled view
+		Assert.assertEquals(shuffled.getInput(4, 0), shuffled.view(3, 6).getInput(1, 0));
+		Assert.assertEquals(new DataPairSet(shuffled), shuffled);
+	}
+
+	@Test
+	public void testSplitAndFold() {
+		DataPairSet dataSet = new DataPairSet(1, 1);
+		for (int i = 0; i < 20; i++) {
+			dataSet.addRow(new double[] { i }, new double[] { i });
+		}
+		DataPairSet[] parts = dataSet.split(0.7, 0.15);
+		Assert.assertEquals(3, parts.length);
+		Assert.assertEquals(14, parts[0].getRows());
+		Assert.assertEquals(3, parts[1].getRows());
+		Assert.assertEquals(3, parts[2].getRows());
+		Assert.assertEquals(17d, parts[2].getInput(0, 0));
+
+		int validated = 0;
+		for (int k = 0; k < 3; k++) {
+			DataPairSet[] fold = dataSet.fold(3, k);
+			Assert.assertEquals(20, fold[0].getRows() + fold[1].getRows());
+			for (int r = 0; r < fold[1].getRows(); r++) {
+				Assert.assertEquals((double) validated++, fold[1].getInput(r, 0));
+			}
+			for (int r = 0; r < fold[0].getRows(); r++) {
+				double v = fold[0].getInput(r, 0);
+				Assert.assertTrue(v < fold[1].getInput(0, 0) || v > fold[1].getInput(fold[1].getRows() - 1, 0));
+			}
+		}
+		Assert.assertEquals(20, validated);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testAddToView() {
+		DataPairSet dataSet = new DataPairSet(input, output);
+		dataSet.view(0, 1).addRow(new double[] { 1, 2, 3 }, new double[] { 4, 5 });
+	}
 }
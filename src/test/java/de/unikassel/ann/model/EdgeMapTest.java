@@ -7,7 +7,10 @@
  */
 package de.unikassel.ann.model;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
 
 import junit.framework.Assert;
@@ -51,4 +54,59 @@ public class EdgeMapTest {
 
 	}
 
+	@Test
+	public void testViewsAndRemove() {
+		EdgeMap<String> edgeMap = new EdgeMap<String>();
+		edgeMap.put(1, 2, "a");
+		edgeMap.put(1, 3, "b");
+		edgeMap.put(4, 3, "c");
+
+		// views reflect later changes
+		Set<Integer> toSet = edgeMap.getToForFrom(1);
+		Map<Integer, String> fromMap = edgeMap.getSynapsesFromForTo(3);
+		Assert.assertEquals(2, toSet.size());
+		Assert.assertEquals("c", fromMap.get(4));
+		Assert.assertNull(fromMap.get(2));
+
+		Assert.assertEquals("b", edgeMap.remove(new FromTo(1, 3)));
+		Assert.assertNull(edgeMap.remove(1, 3));
+		Assert.assertEquals(1, toSet.size());
+		Assert.assertFalse(toSet.contains(3));
+		Assert.assertEquals(1, fromMap.size());
+		Assert.assertEquals(1, edgeMap.getInDegree(3));
+		Assert.assertEquals(2, edgeMap.getMap().size());
+		Assert.assertEquals("a", edgeMap.put(1, 2, "d"));
+		Assert.assertEquals("d", edgeMap.getSynapsesToForFrom(1).get(2));
+		Assert.assertTrue(edgeMap.getToForFrom(99).isEmpty());
+	}
+
+	@Test
+	public void testSameAsHashMap() {
+		EdgeMap<Integer> edgeMap = new EdgeMap<Integer>();
+		Map<FromTo, Integer> expected = new HashMap<FromTo, Integer>();
+		Random r = new Random(4);
+		for (int i = 0; i < 20000; i++) {
+			FromTo ft = new FromTo(r.nextInt(50), r.nextInt(50));
+			if (r.nextInt(3) == 0) {
+				Assert.assertEquals(expected.remove(ft), edgeMap.remove(ft));
+			} else {
+				expected.put(ft, i);
+				edgeMap.put(ft, i);
+			}
+		}
+		Assert.assertEquals(expected, edgeMap.getMap());
+		for (int id = 0; id < 50; id++) {
+			int out = 0;
+			for (Entry<FromTo, Integer> e : expected.entrySet()) {
+				if (e.getKey().from == id) {
+					out++;
+					Assert.assertTrue(edgeMap.getToForFrom(id).contains(e.getKey().to));
+					Assert.assertEquals(e.getValue(), edgeMap.getSynapsesFromToForFrom(id).get(e.getKey()));
+				}
+			}
+			Assert.assertEquals(out, edgeMap.getOutDegree(id));
+			Assert.assertEquals(out, edgeMap.getSynapsesToForFrom(id).size());
+		}
+	}
+
 }
@@ -1,5 +1,7 @@
 package de.unikassel.ann.model;
 
+import junit.framework.Assert;
+
 import org.junit.Test;
 
 import de.unikassel.ann.model.func.ActivationFunction;
@@ -26,4 +28,27 @@ public class SigmoidTest {
 			System.out.println("######");
 		}
 	}
+
+	@Test
+	public void testArrayFormsMatchScalar() {
+		ActivationFunction[] functions = new ActivationFunction[] { new SigmoidFunction(), new TanHFunction() };
+		double[] in = new double[] { -3, -1, -0.5, 0, 0.25, 1, 4 };
+		for (ActivationFunction f : functions) {
+			double[] out = new double[in.length];
+			f.activate(in, out, 1, in.length - 1);
+			Assert.assertEquals(0.0, out[0], 0.0);
+			Assert.assertEquals(0.0, out[in.length - 1], 0.0);
+			for (int i = 1; i < in.length - 1; i++) {
+				Assert.assertEquals(f.activate(in[i]), out[i], 0.0);
+			}
+			// in place
+			double[] derivation = out.clone();
+			f.derivate(derivation, derivation, 0, in.length);
+			for (int i = 0; i < in.length; i++) {
+				Assert.assertEquals(f.derivate(out[i]), derivation[i], 0.0);
+			}
+		}
+		Assert.assertEquals(0.5, new SigmoidFunction().activate(0.0), 0.0);
+		Assert.assertEquals(1 / (1 + Math.pow(Math.E, -1.5)), new SigmoidFunction().activate(1.5), 1e-15);
+	}
 }
@@ -0,0 +1,109 @@
+package de.unikassel.ann.model;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class SomCodebookIndexTest {
+
+	private static double[] random(final Random r, final int length) {
+		double[] values = new double[length];
+		for (int k = 0; k < length; k++) {
+			values[k] = r.nextDouble() * 2 - 1;
+		}
+		return values;
+	}
+
+	@Test
+	public void testExactSearch() {
+		Random r = new Random(11);
+		int dims = 3;
+		double[] codebook = random(r, 2000 * dims);
+		// equal units, the lowest index wins
+		System.arraycopy(codebook, 0, codebook, 1500 * dims, dims);
+		SomCodebookIndex index = new SomCodebookIndex(codebook, dims, 5);
+		int[] stack = index.createStack();
+		for (int k = 0; k < 300; k++) {
+			double[] input = random(r, dims);
+			Assert.assertEquals(SomNetwork.nearest(codebook, dims, input, 0, 2000, null),
+					index.nearest(input, Integer.MAX_VALUE, stack));
+		}
+		Assert.assertEquals(0, index.nearest(new double[] { codebook[0], codebook[1], codebook[2] }, Integer.MAX_VALUE, stack));
+
+		// moved units are found after a refit
+		for (int k = 0; k < codebook.length; k++) {
+			codebook[k] += r.nextGaussian() * 0.2;
+		}
+		index.refit();
+		for (int k = 0; k < 300; k++) {
+			double[] input = random(r, dims);
+			Assert.assertEquals(SomNetwork.nearest(codebook, dims, input, 0, 2000, null),
+					index.nearest(input, Integer.MAX_VALUE, stack));
+		}
+	}
+
+	@Test
+	public void testApproximateSearch() {
+		Random r = new Random(12);
+		int dims = 4;
+		double[] codebook = random(r, 5000 * dims);
+		SomCodebookIndex index = new SomCodebookIndex(codebook, dims);
+		int[] stack = index.createStack();
+		int hits = 0;
+		for (int k = 0; k < 500; k++) {
+			double[] input = random(r, dims);
+			int unit = index.nearest(input, 200, stack);
+			Assert.assertTrue(unit >= 0 && unit < 5000);
+			if (unit == SomNetwork.nearest(codebook, dims, input, 0, 5000, null)) {
+				hits++;
+			}
+		}
+		Assert.assertTrue("recall " + hits, hits > 400);
+	}
+
+	@Test
+	public void testSomWithIndex() {
+		SomNetwork som = new SomNetwork(2.0, 2, 20, 20);
+		som.setSeed(4);
+		som.setMaxIterations(2000);
+		som.setIndexChecks(Integer.MAX_VALUE);
+		som.setIndexRefitInterval(10);
+		som.train();
+
+		// the index is refitted after the training
+		Random r = new Random(13);
+		for (int k = 0; k < 200; k++) {
+			double[] input = random(r, 2);
+			Assert.assertEquals(SomNetwork.nearest(som.getCodebook(), 2, input, 0, 400, null), som.findBestMatchingUnit(input));
+		}
+		som.setIndexChecks(0);
+		Assert.assertEquals(SomNetwork.nearest(som.getCodebook(), 2, new double[] { 0.1, 0.2 }, 0, 400, null),
+				som.findBestMatchingUnit(new double[] { 0.1, 0.2 }));
+	}
+
+	@Test
+	public void testBatchWithIndex() {
+		double[] codebook = new SomNetwork(2.0, 3, 8, 8).getCodebook();
+		double[][] results = new double[2][];
+		for (int k = 0; k < 2; k++) {
+			SomNetwork som = new SomNetwork(2.0, 3, 8, 8);
+			som.setCodebook(codebook);
+			som.setAlgorithm(SomNetwork.Algorithm.BATCH);
+			som.setSeed(8);
+			som.setBatchSize(300);
+			som.setMaxIterations(3000);
+			som.setThreads(2);
+			// exact search with and without the index
+			som.setIndexChecks(k == 0 ? 0 : Integer.MAX_VALUE);
+			som.setIndexActivation(0.0);
+			som.train();
+			results[k] = som.getCodebook();
+		}
+		for (int k = 0; k < codebook.length; k++) {
+			Assert.assertEquals(results[0][k], results[1][k]);
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+package de.unikassel.ann.model;
+
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.mdda.MDDA;
+
+public class SomNeighborhoodTest {
+
+	private static void assertSameAsMdda(final int radius, final int... size) {
+		MDDA<Object> mdda = new MDDA<Object>(size);
+		int units = mdda.getArray().length;
+		int[] coordinates = new int[units * size.length];
+		for (int i = 0; i < units; i++) {
+			System.arraycopy(mdda.getMultiDimIndices(i), 0, coordinates, i * size.length, size.length);
+		}
+		SomNeighborhood n = new SomNeighborhood(size, radius, SomNeighborhood.Kernel.BUBBLE);
+		int[] neighbors = new int[n.getCount()];
+		double[] weights = new double[n.getCount()];
+		for (int center = 0; center < units; center++) {
+			Set<Integer> expected = mdda.getNeighborForAllDims(radius, mdda.getMultiDimIndices(center));
+			expected.add(center);
+			int count = n.neighbors(coordinates, center, neighbors, weights);
+			Assert.assertEquals(expected.size(), count);
+			for (int k = 0; k < count; k++) {
+				Assert.assertTrue(expected.contains(neighbors[k]));
+				Assert.assertEquals(1.0, weights[k]);
+			}
+		}
+	}
+
+	@Test
+	public void testSameAsMdda() {
+		assertSameAsMdda(3, 9);
+		assertSameAsMdda(2, 6, 5);
+		assertSameAsMdda(3, 4, 4);
+		assertSameAsMdda(2, 4, 3, 5);
+		assertSameAsMdda(3, 3, 3, 3, 3);
+	}
+
+	@Test
+	public void testLargeRadius() {
+		// the mdda misses units for radii above 3, the whole grid is inside
+		SomNeighborhood n = new SomNeighborhood(new int[] { 4, 4 }, 9, SomNeighborhood.Kernel.BUBBLE);
+		Assert.assertEquals(49, n.getCount());
+		int[] coordinates = new int[32];
+		for (int i = 0; i < 16; i++) {
+			coordinates[2 * i] = i / 4;
+			coordinates[2 * i + 1] = i % 4;
+		}
+		int[] neighbors = new int[49];
+		Assert.assertEquals(16, n.neighbors(coordinates, 5, neighbors, new double[49]));
+	}
+
+	@Test
+	public void testKernels() {
+		int[] coordinates = { 0, 1, 2, 3, 4, 5, 6 };
+		int[] neighbors = new int[9];
+		double[] weights = new double[9];
+		SomNeighborhood n = new SomNeighborhood(new int[] { 7 }, 4, SomNeighborhood.Kernel.GAUSSIAN);
+		Assert.assertEquals(9, n.getCount());
+		int count = n.neighbors(coordinates, 3, neighbors, weights);
+		Assert.assertEquals(7, count);
+		for (int k = 0; k < count; k++) {
+			int distance = Math.abs(neighbors[k] - 3);
+			Assert.assertEquals(Math.exp(-distance * distance / 8.0), weights[k], 1e-12);
+		}
+
+		SomNeighborhood.Kernel hat = SomNeighborhood.Kernel.MEXICAN_HAT;
+		Assert.assertEquals(1.0, hat.weight(0, 4));
+		Assert.assertEquals(0.0, hat.weight(2, 4), 1e-12);
+		Assert.assertTrue(hat.weight(3, 4) < 0);
+	}
+
+}
@@ -0,0 +1,224 @@
+package de.unikassel.ann.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class SomNetworkTest {
+
+	/**
+	 * Search of the original implementation, on the synapses
+	 */
+	private static int bruteForce(final SomNetwork som, final double[] input, final int neurons) {
+		int winner = -1;
+		double best = Double.MAX_VALUE;
+		for (int i = 0; i < neurons; i++) {
+			double sum = 0;
+			for (int j = 0; j < input.length; j++) {
+				sum += Math.pow(input[j] - som.getSynapseMatrix().getSynapse(j, i).getWeight(), 2);
+			}
+			if (Math.sqrt(sum) < best) {
+				best = Math.sqrt(sum);
+				winner = i;
+			}
+		}
+		return winner;
+	}
+
+	@Test
+	public void testBestMatchingUnit() {
+		SomNetwork som = new SomNetwork(2.0, 3, 30, 30);
+		Assert.assertEquals(900 * 3, som.getCodebook().length);
+		Assert.assertEquals(som.getSynapseMatrix().getSynapse(2, 17).getWeight(), som.getWeight(2, 17));
+
+		SomNetwork parallel = new SomNetwork(2.0, 3, 30, 30);
+		parallel.setCodebook(som.getCodebook());
+		parallel.setParallelThreshold(1);
+		parallel.setThreads(4);
+		som.setThreads(1);
+
+		Random r = new Random(2);
+		for (int k = 0; k < 500; k++) {
+			double[] input = { r.nextDouble() * 2 - 1, r.nextDouble() * 2 - 1, r.nextDouble() * 2 - 1 };
+			int expected = bruteForce(som, input, 900);
+			Assert.assertEquals(expected, som.findBestMatchingUnit(input));
+			Assert.assertEquals(expected, parallel.findBestMatchingUnit(input));
+		}
+		parallel.shutdown();
+	}
+
+	@Test
+	public void testEqualDistances() {
+		SomNetwork som = new SomNetwork(2.0, 1, 8);
+		som.setParallelThreshold(1);
+		som.setThreads(3);
+		double[] codebook = som.getCodebook();
+		for (int i = 0; i < codebook.length; i++) {
+			codebook[i] = i < 3 ? 5.0 : 1.0;
+		}
+		som.setCodebook(codebook);
+		Assert.assertEquals(5.0, som.getSynapseMatrix().getSynapse(0, 2).getWeight());
+		// the returned array is a copy
+		som.getCodebook()[0] = 1.0;
+		Assert.assertEquals(5.0, som.getWeight(0, 0));
+		// the lowest index of all neurons with the same distance
+		Assert.assertEquals(3, som.findBestMatchingUnit(new double[] { 1.0 }));
+		Assert.assertEquals(0, som.findBestMatchingUnit(new double[] { 4.0 }));
+		som.shutdown();
+	}
+
+	@Test
+	public void testConcurrentScoring() throws InterruptedException {
+		final SomNetwork som = new SomNetwork(2.0, 3, 20, 20);
+		som.setParallelThreshold(1);
+		som.setThreads(3);
+		final double[][] inputs = new double[400][];
+		final int[] expected = new int[inputs.length];
+		Random r = new Random(9);
+		for (int k = 0; k < inputs.length; k++) {
+			inputs[k] = new double[] { r.nextDouble() * 2 - 1, r.nextDouble() * 2 - 1, r.nextDouble() * 2 - 1 };
+			expected[k] = SomNetwork.nearest(som.getCodebook(), 3, inputs[k], 0, 400, null);
+		}
+		final int[][] results = new int[4][inputs.length];
+		Thread[] scorers = new Thread[results.length];
+		for (int t = 0; t < scorers.length; t++) {
+			final int[] result = results[t];
+			scorers[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int k = 0; k < inputs.length; k++) {
+						result[k] = som.findBestMatchingUnit(inputs[k]);
+					}
+				}
+			};
+			scorers[t].start();
+		}
+		for (Thread t : scorers) {
+			t.join();
+		}
+		for (int[] result : results) {
+			Assert.assertTrue(Arrays.equals(expected, result));
+		}
+		som.shutdown();
+	}
+
+	private static SomNetwork batch(final double[] codebook, final int threads) {
+		SomNetwork som = new SomNetwork(2.0, 2, 12, 12);
+		som.setCodebook(codebook);
+		som.setAlgorithm(SomNetwork.Algorithm.BATCH);
+		som.setSeed(42);
+		som.setBatchSize(500);
+		som.setMaxIterations(5000);
+		som.setInitialNeighbor(4);
+		som.setThreads(threads);
+		som.train();
+		return som;
+	}
+
+	@Test
+	public void testBatchTraining() {
+		double[] codebook = new SomNetwork(2.0, 2, 12, 12).getCodebook();
+		SomNetwork first = batch(codebook, 1);
+		SomNetwork second = batch(codebook, 1);
+		SomNetwork parallel = batch(codebook, 4);
+		Assert.assertFalse(Arrays.equals(codebook, first.getCodebook()));
+		for (int k = 0; k < codebook.length; k++) {
+			Assert.assertEquals(first.getCodebook()[k], second.getCodebook()[k]);
+			Assert.assertEquals(first.getCodebook()[k], parallel.getCodebook()[k], 1e-12);
+			// means of vectors in [-1, 1]
+			Assert.assertTrue(Math.abs(first.getCodebook()[k]) <= 1.0);
+		}
+		Assert.assertEquals(first.getWeight(1, 30), first.getSynapseMatrix().getSynapse(1, 30).getWeight());
+	}
+
+	/**
+	 * Two clusters around (-0.5, -0.5) and (0.5, 0.5)
+	 */
+	private static double[] clusters(final int rows) {
+		Random r = new Random(5);
+		double[] data = new double[rows * 2];
+		for (int k = 0; k < data.length; k++) {
+			double center = (k / 2) % 2 == 0 ? -0.5 : 0.5;
+			data[k] = center + r.nextGaussian() * 0.05;
+		}
+		return data;
+	}
+
+	private static SomNetwork trained(final double[] codebook, final double[] data, final SomNetwork.Algorithm algorithm) {
+		SomNetwork som = new SomNetwork(2.0, 2, 6, 6);
+		som.setCodebook(codebook);
+		som.setAlgorithm(algorithm);
+		som.setInitialNeighbor(3);
+		som.setSeed(7);
+		som.setThreads(1);
+		som.train(data, data.length / 2, 20);
+		return som;
+	}
+
+	@Test
+	public void testTrainOnDataSet() {
+		double[] data = clusters(400);
+		double[] codebook = new SomNetwork(2.0, 2, 6, 6).getCodebook();
+		for (SomNetwork.Algorithm algorithm : SomNetwork.Algorithm.values()) {
+			SomNetwork som = trained(codebook, data, algorithm);
+			Assert.assertTrue(Arrays.equals(som.getCodebook(), trained(codebook, data, algorithm).getCodebook()));
+			// the units of both clusters are close to their center
+			for (double[] center : new double[][] { { -0.5, -0.5 }, { 0.5, 0.5 } }) {
+				int unit = som.findBestMatchingUnit(center);
+				Assert.assertEquals(center[0], som.getWeight(0, unit), 0.1);
+				Assert.assertEquals(center[1], som.getWeight(1, unit), 0.1);
+			}
+		}
+
+		// the same rows as a view
+		DataPairSet set = new DataPairSet(data, new double[0], 400, 2, 0);
+		SomNetwork view = new SomNetwork(2.0, 2, 6, 6);
+		view.setSeed(7);
+		view.train(set.view(100, 300), 1);
+		try {
+			view.train(new DataPairSet(3, 0), 1);
+			Assert.fail("wrong input size");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testTrainOnStream() {
+		final double[] data = clusters(250);
+		Iterator<double[]> stream = new Iterator<double[]>() {
+			private final double[] row = new double[2];
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < 250;
+			}
+
+			@Override
+			public double[] next() {
+				// the same array for all rows
+				System.arraycopy(data, next++ * 2, row, 0, 2);
+				return row;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+		SomNetwork som = new SomNetwork(2.0, 2, 5, 5);
+		som.setMaxIterations(250);
+		som.setSeed(3);
+		Assert.assertEquals(250, som.train(stream, 64));
+		int unit = som.findBestMatchingUnit(new double[] { 0.5, 0.5 });
+		Assert.assertEquals(0.5, som.getWeight(0, unit), 0.2);
+		// the synapses get the codebook when the training stops
+		Assert.assertEquals(som.getWeight(1, unit), som.getSynapseMatrix().getSynapse(1, unit).getWeight());
+	}
+
+}
@@ -0,0 +1,105 @@
+package de.unikassel.ann.model;
+
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+import de.unikassel.ann.model.func.SigmoidFunction;
+
+public class SynapseMatrixTest {
+
+	private static Synapse synapse(final double weight) {
+		Synapse s = new Synapse(new Neuron(new SigmoidFunction(), false), new Neuron(new SigmoidFunction(), false));
+		s.setWeight(weight);
+		return s;
+	}
+
+	@Test
+	public void testAddUpdateRemove() {
+		SynapseMatrix m = new SynapseMatrix(null, 5, 5);
+		Assert.assertFalse(m.addOrUpdateSynapse(synapse(1), 0, 3));
+		Assert.assertFalse(m.addOrUpdateSynapse(synapse(2), 0, 1));
+		Assert.assertFalse(m.addOrUpdateSynapse(synapse(3), 4, 1));
+		Assert.assertTrue(m.addOrUpdateSynapse(synapse(4), 0, 3));
+		Assert.assertEquals(3, m.getSynapseCount());
+
+		Assert.assertEquals(4.0, m.getWeight(0, 3));
+		Assert.assertNull(m.getSynapse(1, 1));
+		Assert.assertNull(m.getSynapse(7, 1));
+		Assert.assertNull(m.getWeight(-1, 1));
+		Assert.assertTrue(m.setWeight(4, 1, 5.0));
+		Assert.assertFalse(m.setWeight(3, 3, 5.0));
+
+		// rows are sorted by index
+		Assert.assertEquals(2, m.getOutDegree(0));
+		Assert.assertEquals(1, m.getOutgoingTarget(0, 0));
+		Assert.assertEquals(3, m.getOutgoingTarget(0, 1));
+		Assert.assertEquals(2, m.getInDegree(1));
+		Assert.assertEquals(0, m.getIncomingSource(1, 0));
+		Assert.assertEquals(4, m.getIncomingSource(1, 1));
+		Assert.assertEquals(5.0, m.getIncomingSynapse(1, 1).getWeight());
+
+		Synapse[][] dense = m.getSynapses();
+		Assert.assertEquals(5, dense.length);
+		Assert.assertSame(m.getSynapse(4, 1), dense[4][1]);
+		Assert.assertNull(dense[1][4]);
+
+		Assert.assertNotNull(m.removeSynapse(0, 1));
+		Assert.assertNull(m.removeSynapse(0, 1));
+		Assert.assertEquals(1, m.getOutDegree(0));
+		Assert.assertEquals(1, m.getInDegree(1));
+		Assert.assertEquals(2, m.getSynapseCount());
+
+		try {
+			m.addOrUpdateSynapse(synapse(1), 5, 0);
+			Assert.fail("out of range");
+		} catch (ArrayIndexOutOfBoundsException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testSameAsDense() {
+		int size = 60;
+		SynapseMatrix m = new SynapseMatrix(null, size, size);
+		Synapse[][] dense = new Synapse[size][size];
+		Random r = new Random(9);
+		for (int i = 0; i < 2000; i++) {
+			int from = r.nextInt(size);
+			int to = r.nextInt(size);
+			if (r.nextInt(4) == 0) {
+				m.removeSynapse(from, to);
+				dense[from][to] = null;
+			} else {
+				Synapse s = synapse(i);
+				m.addOrUpdateSynapse(s, from, to);
+				dense[from][to] = s;
+			}
+		}
+		int count = 0;
+		for (int from = 0; from < size; from++) {
+			for (int to = 0; to < size; to++) {
+				Assert.assertSame(dense[from][to], m.getSynapse(from, to));
+				if (dense[from][to] != null) {
+					count++;
+				}
+			}
+		}
+		Assert.assertEquals(count, m.getSynapseCount());
+		int incoming = 0;
+		for (int to = 0; to < size; to++) {
+			for (int k = 0; k < m.getInDegree(to); k++) {
+				Assert.assertSame(dense[m.getIncomingSource(to, k)][to], m.getIncomingSynapse(to, k));
+				incoming++;
+			}
+		}
+		Assert.assertEquals(count, incoming);
+
+		m.clear();
+		Assert.assertEquals(0, m.getSynapseCount());
+		Assert.assertEquals(size, m.getFromSize());
+	}
+
+}
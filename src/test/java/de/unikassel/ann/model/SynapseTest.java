@@ -5,6 +5,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
+import junit.framework.Assert;
+
 import org.junit.Test;
 
 import de.unikassel.ann.config.NetConfig;
@@ -31,6 +33,17 @@ public class SynapseTest {
 		}
 	}
 
+	@Test
+	public void testWeightNotSet() {
+		Neuron n = new Neuron("SigmoidFunction", false);
+		Synapse s = new Synapse(n, n);
+		Assert.assertFalse(s.hasWeight());
+		Assert.assertEquals(0.0, s.getDeltaWeight(), 0.0);
+		s.setWeight(0.5);
+		Assert.assertTrue(s.hasWeight());
+		Assert.assertEquals(0.5, s.getWeight(), 0.0);
+	}
+
 	/**
 	 * Synapse connections (matrix) looks like this<br>
 	 * for connection 00 -> 12 / 0 -> 5 there is no space remaining